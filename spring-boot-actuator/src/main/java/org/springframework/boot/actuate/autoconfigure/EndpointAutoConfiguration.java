@@ -26,7 +26,9 @@ import org.springframework.boot.actuate.endpoint.BeansEndpoint;
 import org.springframework.boot.actuate.endpoint.DumpEndpoint;
 import org.springframework.boot.actuate.endpoint.Endpoint;
 import org.springframework.boot.actuate.endpoint.EnvironmentEndpoint;
+import org.springframework.boot.actuate.endpoint.GcEndpoint;
 import org.springframework.boot.actuate.endpoint.HealthEndpoint;
+import org.springframework.boot.actuate.endpoint.HeapHistogramEndpoint;
 import org.springframework.boot.actuate.endpoint.InfoEndpoint;
 import org.springframework.boot.actuate.endpoint.MetricsEndpoint;
 import org.springframework.boot.actuate.endpoint.PublicMetrics;
@@ -125,6 +127,18 @@ public class EndpointAutoConfiguration {
 		return new DumpEndpoint();
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	public HeapHistogramEndpoint heapHistogramEndpoint() {
+		return new HeapHistogramEndpoint();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public GcEndpoint gcEndpoint() {
+		return new GcEndpoint(this.metricRepository);
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
 	public ShutdownEndpoint shutdownEndpoint() {
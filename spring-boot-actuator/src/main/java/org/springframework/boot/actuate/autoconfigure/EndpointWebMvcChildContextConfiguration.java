@@ -18,6 +18,13 @@ package org.springframework.boot.actuate.autoconfigure;
 
 import javax.servlet.Filter;
 
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.HierarchicalBeanFactory;
@@ -25,6 +32,8 @@ import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.mvc.EndpointHandlerAdapter;
 import org.springframework.boot.actuate.endpoint.mvc.EndpointHandlerMapping;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.boot.actuate.properties.ManagementServerProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -32,6 +41,10 @@ import org.springframework.boot.autoconfigure.condition.SearchStrategy;
 import org.springframework.boot.context.embedded.ConfigurableEmbeddedServletContainerFactory;
 import org.springframework.boot.context.embedded.EmbeddedServletContainer;
 import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.jetty.JettyEmbeddedServletContainerFactory;
+import org.springframework.boot.context.embedded.jetty.JettyServerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -69,6 +82,75 @@ public class EndpointWebMvcChildContextConfiguration {
 			factory.setPort(this.managementServerProperties.getPort());
 			factory.setAddress(this.managementServerProperties.getAddress());
 			factory.setContextPath(this.managementServerProperties.getContextPath());
+			if (this.managementServerProperties.getMaxThreads() > 0) {
+				if (factory instanceof TomcatEmbeddedServletContainerFactory) {
+					customizeTomcat((TomcatEmbeddedServletContainerFactory) factory);
+				}
+				if (factory instanceof JettyEmbeddedServletContainerFactory) {
+					customizeJetty((JettyEmbeddedServletContainerFactory) factory);
+				}
+			}
+		}
+
+		private void customizeTomcat(TomcatEmbeddedServletContainerFactory factory) {
+			final int maxThreads = this.managementServerProperties.getMaxThreads();
+			final int acceptCount = this.managementServerProperties.getAcceptCount();
+			factory.addConnectorCustomizers(new TomcatConnectorCustomizer() {
+				@Override
+				public void customize(Connector connector) {
+					ProtocolHandler handler = connector.getProtocolHandler();
+					if (handler instanceof AbstractProtocol) {
+						AbstractProtocol protocol = (AbstractProtocol) handler;
+						protocol.setMaxThreads(maxThreads);
+						protocol.setMinSpareThreads(maxThreads);
+						protocol.setBacklog(acceptCount);
+					}
+				}
+			});
+		}
+
+		private void customizeJetty(JettyEmbeddedServletContainerFactory factory) {
+			final int maxThreads = this.managementServerProperties.getMaxThreads();
+			final int acceptCount = this.managementServerProperties.getAcceptCount();
+			factory.addServerCustomizers(new JettyServerCustomizer() {
+				@Override
+				public void customize(Server server) {
+					// Jetty acceptors and selectors permanently occupy pool threads
+					int reserved = 0;
+					for (org.eclipse.jetty.server.Connector connector : server
+							.getConnectors()) {
+						if (connector instanceof AbstractConnector) {
+							AbstractConnector abstractConnector = (AbstractConnector) connector;
+							abstractConnector.setAcceptQueueSize(acceptCount);
+							reserved += 2 * abstractConnector.getAcceptors();
+						}
+					}
+					// The accept queue limits waiting connections, jobs are not bounded
+					QueuedThreadPool threadPool = new QueuedThreadPool();
+					threadPool.setName("management");
+					threadPool.setMinThreads(maxThreads + reserved);
+					threadPool.setMaxThreads(maxThreads + reserved);
+					server.setThreadPool(threadPool);
+				}
+			});
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnBean({ CounterService.class, GaugeService.class })
+	protected static class ManagementMetricFilterConfiguration {
+
+		@Autowired
+		private CounterService counterService;
+
+		@Autowired
+		private GaugeService gaugeService;
+
+		@Bean
+		public Filter managementMetricFilter() {
+			return new MetricFilterAutoConfiguration.MetricsFilter(this.counterService,
+					this.gaugeService, "management.");
 		}
 
 	}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.autoconfigure;
+
+import javax.servlet.Servlet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.properties.ManagementServerProperties;
+import org.springframework.boot.actuate.web.GracefulShutdownListener;
+import org.springframework.boot.actuate.web.InFlightRequestFilter;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} to drain in-flight requests before
+ * the application context is closed.
+ * 
+ * @author Dave Syer
+ */
+@Configuration
+@ConditionalOnClass({ Servlet.class })
+@ConditionalOnWebApplication
+@AutoConfigureAfter({ ManagementServerPropertiesAutoConfiguration.class,
+		MetricRepositoryAutoConfiguration.class })
+public class GracefulShutdownAutoConfiguration {
+
+	@Autowired(required = false)
+	private ManagementServerProperties managementServerProperties = new ManagementServerProperties();
+
+	@Autowired(required = false)
+	private GaugeService gaugeService;
+
+	@Bean
+	@ConditionalOnMissingBean
+	public InFlightRequestFilter inFlightRequestFilter() {
+		return new InFlightRequestFilter();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public GracefulShutdownListener gracefulShutdownListener() {
+		GracefulShutdownListener listener = new GracefulShutdownListener(
+				inFlightRequestFilter(), this.gaugeService);
+		listener.setTimeout(this.managementServerProperties.getDrainTimeout());
+		return listener;
+	}
+
+}
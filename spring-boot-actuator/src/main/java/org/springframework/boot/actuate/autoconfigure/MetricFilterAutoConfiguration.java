@@ -30,6 +30,9 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.properties.ManagementServerProperties;
+import org.springframework.boot.actuate.web.ByteCountingRequestWrapper;
+import org.springframework.boot.actuate.web.ByteCountingResponseWrapper;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -52,7 +55,8 @@ import org.springframework.web.util.UrlPathHelper;
 @Configuration
 @ConditionalOnBean({ CounterService.class, GaugeService.class })
 @ConditionalOnClass({ Servlet.class })
-@AutoConfigureAfter(MetricRepositoryAutoConfiguration.class)
+@AutoConfigureAfter({ MetricRepositoryAutoConfiguration.class,
+		ManagementServerPropertiesAutoConfiguration.class })
 public class MetricFilterAutoConfiguration {
 
 	private static final int UNDEFINED_HTTP_STATUS = 999;
@@ -63,16 +67,55 @@ public class MetricFilterAutoConfiguration {
 	@Autowired
 	private GaugeService gaugeService;
 
+	@Autowired(required = false)
+	private ManagementServerProperties managementServerProperties = new ManagementServerProperties();
+
 	@Bean
 	public Filter metricFilter() {
-		return new MetricsFilter();
+		MetricsFilter filter = new MetricsFilter(this.counterService, this.gaugeService,
+				"");
+		filter.setRecordBytes(this.managementServerProperties.isRecordBytes());
+		return filter;
 	}
 
 	/**
-	 * Filter that counts requests and measures processing times.
+	 * Filter that counts requests and measures processing times. Optionally also
+	 * measures the number of bytes read from the request and written to the response.
 	 */
 	@Order(Ordered.HIGHEST_PRECEDENCE)
-	private final class MetricsFilter extends GenericFilterBean {
+	static final class MetricsFilter extends GenericFilterBean {
+
+		private final CounterService counterService;
+
+		private final GaugeService gaugeService;
+
+		private final String prefix;
+
+		private boolean recordBytes;
+
+		/**
+		 * Create a new {@link MetricsFilter} instance.
+		 * @param counterService the counter service
+		 * @param gaugeService the gauge service
+		 * @param prefix a prefix applied to all metric names, used to keep metrics of
+		 * different servers apart
+		 */
+		MetricsFilter(CounterService counterService, GaugeService gaugeService,
+				String prefix) {
+			this.counterService = counterService;
+			this.gaugeService = gaugeService;
+			this.prefix = prefix;
+		}
+
+		/**
+		 * Set if the size of request and response bodies should be recorded. When
+		 * {@code true} the request and response are wrapped in order to count bytes as
+		 * they are read and written, the body is never buffered.
+		 * @param recordBytes if bytes should be recorded
+		 */
+		public void setRecordBytes(boolean recordBytes) {
+			this.recordBytes = recordBytes;
+		}
 
 		@Override
 		public void doFilter(ServletRequest request, ServletResponse response,
@@ -91,21 +134,41 @@ public class MetricFilterAutoConfiguration {
 				FilterChain chain) throws IOException, ServletException {
 			UrlPathHelper helper = new UrlPathHelper();
 			String suffix = helper.getPathWithinApplication(request);
+			ByteCountingRequestWrapper countingRequest = null;
+			ByteCountingResponseWrapper countingResponse = null;
+			if (this.recordBytes) {
+				countingRequest = new ByteCountingRequestWrapper(request);
+				countingResponse = new ByteCountingResponseWrapper(response);
+			}
 			StopWatch stopWatch = new StopWatch();
 			stopWatch.start();
 			try {
-				chain.doFilter(request, response);
+				if (this.recordBytes) {
+					chain.doFilter(countingRequest, countingResponse);
+				}
+				else {
+					chain.doFilter(request, response);
+				}
 			}
 			finally {
 				stopWatch.stop();
-				String gaugeKey = getKey("response" + suffix);
-				MetricFilterAutoConfiguration.this.gaugeService.set(gaugeKey,
-						stopWatch.getTotalTimeMillis());
-				String counterKey = getKey("status." + getStatus(response) + suffix);
-				MetricFilterAutoConfiguration.this.counterService.increment(counterKey);
+				if (this.recordBytes) {
+					recordBytes(suffix, countingRequest.getByteCount(),
+							countingResponse.getByteCount());
+				}
+				String gaugeKey = getKey(this.prefix + "response" + suffix);
+				this.gaugeService.set(gaugeKey, stopWatch.getTotalTimeMillis());
+				String counterKey = getKey(this.prefix + "status." + getStatus(response)
+						+ suffix);
+				this.counterService.increment(counterKey);
 			}
 		}
 
+		private void recordBytes(String suffix, long in, long out) {
+			this.gaugeService.set(getKey(this.prefix + "bytes.in" + suffix), in);
+			this.gaugeService.set(getKey(this.prefix + "bytes.out" + suffix), out);
+		}
+
 		private int getStatus(HttpServletResponse response) {
 			try {
 				return response.getStatus();
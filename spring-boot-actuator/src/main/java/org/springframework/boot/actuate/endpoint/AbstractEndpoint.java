@@ -31,11 +31,15 @@ public abstract class AbstractEndpoint<T> implements Endpoint<T> {
 	private static final MediaType[] NO_MEDIA_TYPES = new MediaType[0];
 
 	@NotNull
-	@Pattern(regexp = "/[^/]*", message = "Path must start with /")
+	@Pattern(regexp = "/[^/]*(/[^/]+)*", message = "Path must start with /")
 	private String path;
 
 	private boolean sensitive;
 
+	private double rateLimit;
+
+	private int maxConcurrency;
+
 	public AbstractEndpoint(String path) {
 		this(path, true);
 	}
@@ -63,6 +67,39 @@ public abstract class AbstractEndpoint<T> implements Endpoint<T> {
 		this.sensitive = sensitive;
 	}
 
+	/**
+	 * Returns the maximum number of invocations per second or {@code 0} if the endpoint
+	 * is not rate limited.
+	 */
+	public double getRateLimit() {
+		return this.rateLimit;
+	}
+
+	/**
+	 * Sets the maximum number of invocations per second. Requests in excess of the limit
+	 * are rejected. Use {@code 0} to remove the limit.
+	 */
+	public void setRateLimit(double rateLimit) {
+		this.rateLimit = rateLimit;
+	}
+
+	/**
+	 * Returns the maximum number of concurrent requests or {@code 0} if concurrency is
+	 * not limited.
+	 */
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	/**
+	 * Sets the maximum number of requests (including those waiting for a result that is
+	 * already being computed) that may be in progress at any one time. Use {@code 0} to
+	 * remove the limit.
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
 	@Override
 	public MediaType[] getProduces() {
 		return NO_MEDIA_TYPES;
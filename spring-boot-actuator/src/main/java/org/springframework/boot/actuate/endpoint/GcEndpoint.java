@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.actuate.metrics.MetricRepository;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Endpoint} to expose recent garbage collection pauses. Pauses are collected from
+ * GC notifications (available on HotSpot JVMs) into a bounded ring buffer and also
+ * recorded in the {@link MetricRepository}.
+ *
+ * @author Dave Syer
+ */
+@ConfigurationProperties(name = "endpoints.gc", ignoreUnknownFields = false)
+public class GcEndpoint extends AbstractEndpoint<List<GcEndpoint.Pause>> implements
+		InitializingBean, DisposableBean {
+
+	private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+	private final MetricRepository metricRepository;
+
+	private final NotificationListener listener = new GcNotificationListener();
+
+	private final List<NotificationEmitter> emitters = new ArrayList<NotificationEmitter>();
+
+	private int capacity = 100;
+
+	private Pause[] pauses;
+
+	private int next;
+
+	private int count;
+
+	/**
+	 * Create a new {@link GcEndpoint} instance.
+	 * @param metricRepository the repository used to record GC metrics
+	 */
+	public GcEndpoint(MetricRepository metricRepository) {
+		super("/gc");
+		Assert.notNull(metricRepository, "MetricRepository must not be null");
+		this.metricRepository = metricRepository;
+	}
+
+	/**
+	 * Sets the number of pauses to retain.
+	 * @param capacity the capacity
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		Assert.isTrue(this.capacity > 0, "Capacity must be positive");
+		this.pauses = new Pause[this.capacity];
+		for (GarbageCollectorMXBean bean : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			if (bean instanceof NotificationEmitter) {
+				NotificationEmitter emitter = (NotificationEmitter) bean;
+				emitter.addNotificationListener(this.listener, null, null);
+				this.emitters.add(emitter);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		for (NotificationEmitter emitter : this.emitters) {
+			try {
+				emitter.removeNotificationListener(this.listener);
+			}
+			catch (ListenerNotFoundException ex) {
+				// Ignore
+			}
+		}
+		this.emitters.clear();
+	}
+
+	@Override
+	public List<Pause> invoke() {
+		synchronized (this) {
+			List<Pause> result = new ArrayList<Pause>(this.count);
+			int first = (this.next - this.count + this.capacity) % this.capacity;
+			for (int i = 0; i < this.count; i++) {
+				result.add(this.pauses[(first + i) % this.capacity]);
+			}
+			return result;
+		}
+	}
+
+	void record(Pause pause) {
+		synchronized (this) {
+			this.pauses[this.next] = pause;
+			this.next = (this.next + 1) % this.capacity;
+			this.count = Math.min(this.count + 1, this.capacity);
+		}
+		String prefix = "gc." + pause.getName().replace(' ', '_');
+		Date timestamp = pause.getTimestamp();
+		this.metricRepository.increment("counter." + prefix + ".count", 1, timestamp);
+		this.metricRepository.set("gauge." + prefix + ".time", pause.getDuration(),
+				timestamp);
+		this.metricRepository.set("gauge." + prefix + ".reclaimed",
+				pause.getReclaimed(), timestamp);
+	}
+
+	/**
+	 * Listener used to convert GC notifications into {@link Pause}s.
+	 */
+	private class GcNotificationListener implements NotificationListener {
+
+		@Override
+		public void handleNotification(Notification notification, Object handback) {
+			if (GC_NOTIFICATION.equals(notification.getType())
+					&& notification.getUserData() instanceof CompositeData) {
+				record(getPause((CompositeData) notification.getUserData()));
+			}
+		}
+
+		private Pause getPause(CompositeData data) {
+			CompositeData info = (CompositeData) data.get("gcInfo");
+			long before = getUsed((TabularData) info.get("memoryUsageBeforeGc"));
+			long after = getUsed((TabularData) info.get("memoryUsageAfterGc"));
+			return new Pause(new Date(), (String) data.get("gcName"),
+					(String) data.get("gcAction"), (String) data.get("gcCause"),
+					(Long) info.get("duration"), before, after);
+		}
+
+		private long getUsed(TabularData usage) {
+			long used = 0;
+			for (Object row : usage.values()) {
+				CompositeData value = (CompositeData) ((CompositeData) row).get("value");
+				used += MemoryUsage.from(value).getUsed();
+			}
+			return used;
+		}
+
+	}
+
+	/**
+	 * A single garbage collection pause.
+	 */
+	public static final class Pause {
+
+		private final Date timestamp;
+
+		private final String name;
+
+		private final String action;
+
+		private final String cause;
+
+		private final long duration;
+
+		private final long usedBefore;
+
+		private final long usedAfter;
+
+		public Pause(Date timestamp, String name, String action, String cause,
+				long duration, long usedBefore, long usedAfter) {
+			this.timestamp = timestamp;
+			this.name = name;
+			this.action = action;
+			this.cause = cause;
+			this.duration = duration;
+			this.usedBefore = usedBefore;
+			this.usedAfter = usedAfter;
+		}
+
+		public Date getTimestamp() {
+			return this.timestamp;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public String getAction() {
+			return this.action;
+		}
+
+		public String getCause() {
+			return this.cause;
+		}
+
+		/**
+		 * Returns the duration of the pause in milliseconds.
+		 */
+		public long getDuration() {
+			return this.duration;
+		}
+
+		public long getUsedBefore() {
+			return this.usedBefore;
+		}
+
+		public long getUsedAfter() {
+			return this.usedAfter;
+		}
+
+		public long getReclaimed() {
+			return Math.max(0, this.usedBefore - this.usedAfter);
+		}
+
+	}
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@link Endpoint} to expose a class histogram of the heap. The histogram is obtained
+ * from the HotSpot diagnostic command MBean on a background thread so that request
+ * threads are never blocked for longer than the configured timeout. Results are cached
+ * for a minimum interval to protect the JVM from aggressive polling (a histogram of live
+ * objects triggers a full GC).
+ *
+ * @author Dave Syer
+ */
+@ConfigurationProperties(name = "endpoints.heapHistogram", ignoreUnknownFields = false)
+public class HeapHistogramEndpoint extends AbstractEndpoint<Map<String, Object>>
+		implements DisposableBean {
+
+	private static final String DIAGNOSTIC_COMMAND_MBEAN = "com.sun.management:type=DiagnosticCommand";
+
+	private static final Pattern HISTOGRAM_LINE = Pattern
+			.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+).*$");
+
+	private final ExecutorService executor = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "heap-histogram");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final Object monitor = new Object();
+
+	private int limit = 20;
+
+	private long minInterval = 10000;
+
+	private long timeout = 30000;
+
+	private Future<Map<String, Object>> histogram;
+
+	private long lastRequested;
+
+	/**
+	 * Create a new {@link HeapHistogramEndpoint} instance.
+	 */
+	public HeapHistogramEndpoint() {
+		super("/heap/histogram");
+	}
+
+	/**
+	 * Sets the number of classes to include in each ranking.
+	 * @param limit the limit
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	public int getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Sets the minimum time in milliseconds between two histogram computations. Requests
+	 * made within this interval are served from the previous result.
+	 * @param minInterval the minimum interval
+	 */
+	public void setMinInterval(long minInterval) {
+		this.minInterval = minInterval;
+	}
+
+	public long getMinInterval() {
+		return this.minInterval;
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds that a request will wait for a histogram.
+	 * @param timeout the timeout
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	@Override
+	public Map<String, Object> invoke() {
+		Future<Map<String, Object>> histogram = getHistogram();
+		try {
+			return histogram.get(this.timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex) {
+			return Collections.<String, Object> singletonMap("message",
+					"Heap histogram is still being computed, try again later.");
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return Collections.<String, Object> singletonMap("message",
+					"Interrupted while waiting for heap histogram.");
+		}
+		catch (ExecutionException ex) {
+			return Collections.<String, Object> singletonMap("message",
+					"Heap histogram not available: " + ex.getCause().getMessage());
+		}
+	}
+
+	private Future<Map<String, Object>> getHistogram() {
+		synchronized (this.monitor) {
+			long now = System.currentTimeMillis();
+			if (this.histogram == null
+					|| (this.histogram.isDone() && now - this.lastRequested >= this.minInterval)) {
+				this.histogram = this.executor.submit(new HistogramTask(this.limit));
+				this.lastRequested = now;
+			}
+			return this.histogram;
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Task used to obtain and rank the histogram.
+	 */
+	private static class HistogramTask implements Callable<Map<String, Object>> {
+
+		private final int limit;
+
+		public HistogramTask(int limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public Map<String, Object> call() throws Exception {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DIAGNOSTIC_COMMAND_MBEAN);
+			if (!server.isRegistered(name)) {
+				throw new IllegalStateException("No HotSpot diagnostic command MBean");
+			}
+			String output = (String) server.invoke(name, "gcClassHistogram",
+					new Object[] { new String[0] },
+					new String[] { String[].class.getName() });
+			List<ClassHistogramEntry> entries = parse(output);
+			long totalInstances = 0;
+			long totalBytes = 0;
+			for (ClassHistogramEntry entry : entries) {
+				totalInstances += entry.getInstances();
+				totalBytes += entry.getBytes();
+			}
+			Map<String, Object> result = new LinkedHashMap<String, Object>();
+			result.put("timestamp", new Date());
+			result.put("classes", entries.size());
+			result.put("instances", totalInstances);
+			result.put("bytes", totalBytes);
+			result.put("byBytes", top(entries, new Comparator<ClassHistogramEntry>() {
+				@Override
+				public int compare(ClassHistogramEntry o1, ClassHistogramEntry o2) {
+					return compareLongs(o2.getBytes(), o1.getBytes());
+				}
+			}));
+			result.put("byInstances",
+					top(entries, new Comparator<ClassHistogramEntry>() {
+						@Override
+						public int compare(ClassHistogramEntry o1, ClassHistogramEntry o2) {
+							return compareLongs(o2.getInstances(), o1.getInstances());
+						}
+					}));
+			return result;
+		}
+
+		private List<ClassHistogramEntry> parse(String output) {
+			List<ClassHistogramEntry> entries = new ArrayList<ClassHistogramEntry>();
+			for (String line : output.split("\n")) {
+				Matcher matcher = HISTOGRAM_LINE.matcher(line);
+				if (matcher.matches()) {
+					entries.add(new ClassHistogramEntry(matcher.group(3), Long
+							.parseLong(matcher.group(1)), Long.parseLong(matcher
+							.group(2))));
+				}
+			}
+			return entries;
+		}
+
+		private List<ClassHistogramEntry> top(List<ClassHistogramEntry> entries,
+				Comparator<ClassHistogramEntry> comparator) {
+			List<ClassHistogramEntry> sorted = new ArrayList<ClassHistogramEntry>(entries);
+			Collections.sort(sorted, comparator);
+			return new ArrayList<ClassHistogramEntry>(sorted.subList(0,
+					Math.min(this.limit, sorted.size())));
+		}
+
+		private static int compareLongs(long x, long y) {
+			return (x < y ? -1 : (x == y ? 0 : 1));
+		}
+
+	}
+
+	/**
+	 * A single class in the histogram.
+	 */
+	public static final class ClassHistogramEntry {
+
+		private final String className;
+
+		private final long instances;
+
+		private final long bytes;
+
+		public ClassHistogramEntry(String className, long instances, long bytes) {
+			this.className = className;
+			this.instances = instances;
+			this.bytes = bytes;
+		}
+
+		public String getClassName() {
+			return this.className;
+		}
+
+		public long getInstances() {
+			return this.instances;
+		}
+
+		public long getBytes() {
+			return this.bytes;
+		}
+
+	}
+
+}
@@ -28,7 +28,9 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
 import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -46,6 +48,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 /**
  * MVC {@link HandlerAdapter} for {@link Endpoint}s. Similar in may respects to
  * {@link AbstractMessageConverterMethodProcessor} but not tied to annotated methods.
+ * Rate and concurrency limits configured on {@link AbstractEndpoint}s are enforced,
+ * rejected requests receive a {@code 429} response with a {@code Retry-After} header.
  * 
  * @author Phillip Webb
  * @see EndpointHandlerMapping
@@ -62,6 +66,8 @@ public final class EndpointHandlerAdapter implements HandlerAdapter {
 
 	private List<MediaType> allSupportedMediaTypes;
 
+	private final ThrottledEndpointInvoker invoker = new ThrottledEndpointInvoker();
+
 	public EndpointHandlerAdapter() {
 		WebMvcConfigurationSupportConventions conventions = new WebMvcConfigurationSupportConventions();
 		setMessageConverters(conventions.getDefaultHttpMessageConverters());
@@ -88,7 +94,15 @@ public final class EndpointHandlerAdapter implements HandlerAdapter {
 	private void handle(HttpServletRequest request, HttpServletResponse response,
 			Endpoint<?> endpoint) throws Exception {
 
-		Object result = endpoint.invoke();
+		Object result;
+		try {
+			result = this.invoker.invoke(endpoint);
+		}
+		catch (EndpointThrottledException ex) {
+			response.setHeader("Retry-After", String.valueOf(ex.getRetryAfter()));
+			response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage());
+			return;
+		}
 		Class<?> resultClass = result.getClass();
 
 		List<MediaType> mediaTypes = getMediaTypes(request, endpoint, resultClass);
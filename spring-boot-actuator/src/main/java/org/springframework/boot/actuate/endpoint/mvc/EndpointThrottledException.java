@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint.mvc;
+
+/**
+ * Exception thrown when an endpoint invocation is rejected because of a rate or
+ * concurrency limit.
+ * 
+ * @author Dave Syer
+ */
+class EndpointThrottledException extends Exception {
+
+	private final long retryAfter;
+
+	public EndpointThrottledException(String message, long retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Returns the number of seconds after which the request may be retried.
+	 */
+	public long getRetryAfter() {
+		return this.retryAfter;
+	}
+
+}
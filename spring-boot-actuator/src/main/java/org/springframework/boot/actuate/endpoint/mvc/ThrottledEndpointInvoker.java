@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint.mvc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.actuate.endpoint.ActionEndpoint;
+import org.springframework.boot.actuate.endpoint.Endpoint;
+
+/**
+ * Invokes {@link Endpoint}s applying the rate and concurrency limits configured on
+ * {@link AbstractEndpoint}. Concurrent invocations of the same (non
+ * {@link ActionEndpoint action}) endpoint share a single in-flight result rather than
+ * computing it again.
+ * 
+ * @author Dave Syer
+ * @see EndpointHandlerAdapter
+ */
+class ThrottledEndpointInvoker {
+
+	private final ConcurrentMap<Endpoint<?>, EndpointState> states = new ConcurrentHashMap<Endpoint<?>, EndpointState>();
+
+	/**
+	 * Invoke the given endpoint.
+	 * @param endpoint the endpoint to invoke
+	 * @return the result of the invocation
+	 * @throws EndpointThrottledException if the invocation was rejected
+	 */
+	public Object invoke(Endpoint<?> endpoint) throws EndpointThrottledException {
+		EndpointState state = getState(endpoint);
+		if (!state.enter()) {
+			throw new EndpointThrottledException("Too many concurrent requests", 1);
+		}
+		try {
+			if (endpoint instanceof ActionEndpoint) {
+				state.acquirePermit();
+				return endpoint.invoke();
+			}
+			return state.invokeShared(endpoint);
+		}
+		finally {
+			state.exit();
+		}
+	}
+
+	private EndpointState getState(Endpoint<?> endpoint) {
+		EndpointState state = this.states.get(endpoint);
+		if (state == null) {
+			this.states.putIfAbsent(endpoint, new EndpointState(endpoint));
+			state = this.states.get(endpoint);
+		}
+		return state;
+	}
+
+	/**
+	 * Limits and in-flight invocation for a single endpoint.
+	 */
+	private static class EndpointState {
+
+		private final TokenBucket tokenBucket;
+
+		private final int maxConcurrency;
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		private final AtomicReference<FutureTask<Object>> inFlight = new AtomicReference<FutureTask<Object>>();
+
+		public EndpointState(Endpoint<?> endpoint) {
+			double rateLimit = 0;
+			int maxConcurrency = 0;
+			if (endpoint instanceof AbstractEndpoint) {
+				rateLimit = ((AbstractEndpoint<?>) endpoint).getRateLimit();
+				maxConcurrency = ((AbstractEndpoint<?>) endpoint).getMaxConcurrency();
+			}
+			this.tokenBucket = (rateLimit > 0 ? new TokenBucket(rateLimit) : null);
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		public boolean enter() {
+			int active = this.active.incrementAndGet();
+			if (this.maxConcurrency > 0 && active > this.maxConcurrency) {
+				this.active.decrementAndGet();
+				return false;
+			}
+			return true;
+		}
+
+		public void exit() {
+			this.active.decrementAndGet();
+		}
+
+		public void acquirePermit() throws EndpointThrottledException {
+			if (this.tokenBucket != null) {
+				long wait = this.tokenBucket.tryAcquire();
+				if (wait > 0) {
+					long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait
+							+ TimeUnit.SECONDS.toNanos(1) - 1));
+					throw new EndpointThrottledException("Rate limit exceeded", seconds);
+				}
+			}
+		}
+
+		public Object invokeShared(final Endpoint<?> endpoint)
+				throws EndpointThrottledException {
+			FutureTask<Object> task = this.inFlight.get();
+			while (task == null) {
+				acquirePermit();
+				FutureTask<Object> newTask = new FutureTask<Object>(
+						new Callable<Object>() {
+							@Override
+							public Object call() throws Exception {
+								return endpoint.invoke();
+							}
+						});
+				if (this.inFlight.compareAndSet(null, newTask)) {
+					try {
+						newTask.run();
+					}
+					finally {
+						this.inFlight.compareAndSet(newTask, null);
+					}
+					task = newTask;
+				}
+				else {
+					task = this.inFlight.get();
+				}
+			}
+			return getResult(task);
+		}
+
+		private Object getResult(FutureTask<Object> task) {
+			try {
+				return task.get();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(ex);
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint.mvc;
+
+/**
+ * Simple token bucket used to rate limit endpoint invocations. The bucket holds up to
+ * one second worth of permits.
+ * 
+ * @author Dave Syer
+ */
+class TokenBucket {
+
+	private static final double NANOS_PER_SECOND = 1000000000.0;
+
+	private final double permitsPerSecond;
+
+	private final double capacity;
+
+	private double tokens;
+
+	private long lastRefill;
+
+	/**
+	 * Create a new {@link TokenBucket} instance.
+	 * @param permitsPerSecond the rate at which permits are added
+	 */
+	public TokenBucket(double permitsPerSecond) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.capacity = Math.max(1.0, permitsPerSecond);
+		this.tokens = this.capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Attempt to take a permit from the bucket.
+	 * @return {@code 0} if a permit was taken, otherwise the number of nanoseconds until
+	 * a permit will become available
+	 */
+	public synchronized long tryAcquire() {
+		long now = System.nanoTime();
+		this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill)
+				* this.permitsPerSecond / NANOS_PER_SECOND);
+		this.lastRefill = now;
+		if (this.tokens >= 1.0) {
+			this.tokens -= 1.0;
+			return 0;
+		}
+		return (long) Math.ceil((1.0 - this.tokens) * NANOS_PER_SECOND
+				/ this.permitsPerSecond);
+	}
+
+	public double getPermitsPerSecond() {
+		return this.permitsPerSecond;
+	}
+
+}
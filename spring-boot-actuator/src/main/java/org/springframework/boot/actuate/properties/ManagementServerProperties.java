@@ -41,6 +41,14 @@ public class ManagementServerProperties {
 
 	private boolean allowShutdown = false;
 
+	private long drainTimeout = 30000;
+
+	private int maxThreads = 5;
+
+	private int acceptCount = 10;
+
+	private boolean recordBytes = false;
+
 	public boolean isAllowShutdown() {
 		return this.allowShutdown;
 	}
@@ -49,6 +57,23 @@ public class ManagementServerProperties {
 		this.allowShutdown = allowShutdown;
 	}
 
+	/**
+	 * Returns the maximum time in milliseconds to wait for in-flight requests to
+	 * complete when the application is shutdown.
+	 * @see #setDrainTimeout(long)
+	 */
+	public long getDrainTimeout() {
+		return this.drainTimeout;
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds to wait for in-flight requests to complete
+	 * when the application is shutdown. To disable draining use 0.
+	 */
+	public void setDrainTimeout(long drainTimeout) {
+		this.drainTimeout = drainTimeout;
+	}
+
 	/**
 	 * Returns the management port or {@code null} if the
 	 * {@link ServerProperties#getPort() server port} should be used.
@@ -66,6 +91,58 @@ public class ManagementServerProperties {
 		this.port = port;
 	}
 
+	/**
+	 * Returns the size of the fixed request thread pool used when the management server
+	 * runs on a different port.
+	 * @see #setMaxThreads(int)
+	 */
+	public int getMaxThreads() {
+		return this.maxThreads;
+	}
+
+	/**
+	 * Sets the size of the fixed request thread pool used when the management server
+	 * runs on a different port. Keeping this small and separate from the application
+	 * means management requests are still served when the application is overloaded.
+	 */
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	/**
+	 * Returns the maximum length of the connection accept queue used when all management
+	 * threads are busy.
+	 * @see #setAcceptCount(int)
+	 */
+	public int getAcceptCount() {
+		return this.acceptCount;
+	}
+
+	/**
+	 * Sets the maximum length of the connection accept queue used when all management
+	 * threads are busy. Only connections that have not been accepted are limited.
+	 */
+	public void setAcceptCount(int acceptCount) {
+		this.acceptCount = acceptCount;
+	}
+
+	/**
+	 * Returns if the size of request and response bodies is recorded by the metrics
+	 * filter.
+	 * @see #setRecordBytes(boolean)
+	 */
+	public boolean isRecordBytes() {
+		return this.recordBytes;
+	}
+
+	/**
+	 * Sets if the size of request and response bodies should be recorded by the metrics
+	 * filter. Bodies are counted as they are streamed, they are never buffered.
+	 */
+	public void setRecordBytes(boolean recordBytes) {
+		this.recordBytes = recordBytes;
+	}
+
 	public InetAddress getAddress() {
 		return this.address;
 	}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * {@link HttpServletRequestWrapper} that counts the bytes read from the request body.
+ * Bytes read through the {@link #getReader() reader} are calculated from the request
+ * character encoding.
+ * 
+ * @author Dave Syer
+ */
+public class ByteCountingRequestWrapper extends HttpServletRequestWrapper {
+
+	private long byteCount;
+
+	private ServletInputStream inputStream;
+
+	private BufferedReader reader;
+
+	public ByteCountingRequestWrapper(HttpServletRequest request) {
+		super(request);
+	}
+
+	/**
+	 * Returns the number of bytes read from the request body so far.
+	 */
+	public long getByteCount() {
+		return this.byteCount;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (this.inputStream == null) {
+			this.inputStream = new CountingInputStream(super.getInputStream());
+		}
+		return this.inputStream;
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		if (this.reader == null) {
+			this.reader = new BufferedReader(new CountingReader(super.getReader(),
+					new EncodedSize(getCharacterEncoding())));
+		}
+		return this.reader;
+	}
+
+	private class CountingInputStream extends ServletInputStream {
+
+		private final ServletInputStream delegate;
+
+		public CountingInputStream(ServletInputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = this.delegate.read();
+			if (b != -1) {
+				ByteCountingRequestWrapper.this.byteCount++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = this.delegate.read(b, off, len);
+			if (count > 0) {
+				ByteCountingRequestWrapper.this.byteCount += count;
+			}
+			return count;
+		}
+
+		@Override
+		public int readLine(byte[] b, int off, int len) throws IOException {
+			int count = this.delegate.readLine(b, off, len);
+			if (count > 0) {
+				ByteCountingRequestWrapper.this.byteCount += count;
+			}
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return this.delegate.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+
+	}
+
+	private class CountingReader extends Reader {
+
+		private final Reader delegate;
+
+		private final EncodedSize encodedSize;
+
+		public CountingReader(Reader delegate, EncodedSize encodedSize) {
+			this.delegate = delegate;
+			this.encodedSize = encodedSize;
+		}
+
+		@Override
+		public int read(char[] chars, int off, int len) throws IOException {
+			int count = this.delegate.read(chars, off, len);
+			if (count > 0) {
+				ByteCountingRequestWrapper.this.byteCount += this.encodedSize.of(chars,
+						off, count);
+			}
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.web;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * {@link HttpServletResponseWrapper} that counts the bytes written to the response body.
+ * Nothing is buffered, all writes and flushes are passed straight through to the
+ * underlying response. Bytes written through the {@link #getWriter() writer} are
+ * calculated from the response character encoding.
+ * 
+ * @author Dave Syer
+ */
+public class ByteCountingResponseWrapper extends HttpServletResponseWrapper {
+
+	private long byteCount;
+
+	private ServletOutputStream outputStream;
+
+	private PrintWriter writer;
+
+	public ByteCountingResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+
+	/**
+	 * Returns the number of bytes written to the response body so far.
+	 */
+	public long getByteCount() {
+		return this.byteCount;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (this.outputStream == null) {
+			this.outputStream = new CountingOutputStream(super.getOutputStream());
+		}
+		return this.outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (this.writer == null) {
+			this.writer = new PrintWriter(new CountingWriter(super.getWriter(),
+					new EncodedSize(getCharacterEncoding())));
+		}
+		return this.writer;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (this.writer != null) {
+			this.writer.flush();
+		}
+		super.flushBuffer();
+	}
+
+	private class CountingOutputStream extends ServletOutputStream {
+
+		private final ServletOutputStream delegate;
+
+		public CountingOutputStream(ServletOutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.delegate.write(b);
+			ByteCountingResponseWrapper.this.byteCount++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.delegate.write(b, off, len);
+			ByteCountingResponseWrapper.this.byteCount += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+
+	}
+
+	private class CountingWriter extends Writer {
+
+		private final Writer delegate;
+
+		private final EncodedSize encodedSize;
+
+		public CountingWriter(Writer delegate, EncodedSize encodedSize) {
+			this.delegate = delegate;
+			this.encodedSize = encodedSize;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			this.delegate.write(c);
+			ByteCountingResponseWrapper.this.byteCount += this.encodedSize.of(c);
+		}
+
+		@Override
+		public void write(char[] chars, int off, int len) throws IOException {
+			this.delegate.write(chars, off, len);
+			ByteCountingResponseWrapper.this.byteCount += this.encodedSize.of(chars,
+					off, len);
+		}
+
+		@Override
+		public void write(String string, int off, int len) throws IOException {
+			this.delegate.write(string, off, len);
+			ByteCountingResponseWrapper.this.byteCount += this.encodedSize.of(string,
+					off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.web;
+
+import java.nio.charset.Charset;
+
+/**
+ * Calculates the number of bytes that characters occupy once encoded, without actually
+ * encoding them. Exact for UTF-8 and single byte charsets, an estimate otherwise.
+ * 
+ * @author Dave Syer
+ */
+final class EncodedSize {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final boolean utf8;
+
+	private final float bytesPerChar;
+
+	EncodedSize(String encoding) {
+		Charset charset = getCharset(encoding);
+		this.utf8 = UTF_8.equals(charset);
+		this.bytesPerChar = charset.newEncoder().averageBytesPerChar();
+	}
+
+	private static Charset getCharset(String encoding) {
+		try {
+			return (encoding == null ? Charset.forName("ISO-8859-1") : Charset
+					.forName(encoding));
+		}
+		catch (RuntimeException ex) {
+			return Charset.forName("ISO-8859-1");
+		}
+	}
+
+	public long of(int c) {
+		if (!this.utf8) {
+			return (long) this.bytesPerChar;
+		}
+		if (c < 0x80) {
+			return 1;
+		}
+		if (c < 0x800) {
+			return 2;
+		}
+		if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+			// Each half of a surrogate pair contributes 2 of the 4 bytes
+			return 2;
+		}
+		return 3;
+	}
+
+	public long of(char[] chars, int off, int len) {
+		if (!this.utf8) {
+			return (long) (len * this.bytesPerChar);
+		}
+		long size = 0;
+		for (int i = off; i < off + len; i++) {
+			size += of(chars[i]);
+		}
+		return size;
+	}
+
+	public long of(String string, int off, int len) {
+		if (!this.utf8) {
+			return (long) (len * this.bytesPerChar);
+		}
+		long size = 0;
+		for (int i = off; i < off + len; i++) {
+			size += of(string.charAt(i));
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.web;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.context.embedded.EmbeddedServletContainer;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationListener} that drains the {@link EmbeddedServletContainer} when the
+ * application context is closed. The container is {@link EmbeddedServletContainer#pause()
+ * paused} so that no new connections are accepted and then, before any beans are
+ * destroyed, the listener waits (up to a timeout) for requests tracked by the
+ * {@link InFlightRequestFilter} to complete. Drain progress is reported through the
+ * {@link GaugeService} when one is available.
+ * 
+ * @author Dave Syer
+ */
+public class GracefulShutdownListener implements ApplicationListener<ContextClosedEvent>,
+		ApplicationContextAware, Ordered {
+
+	private static final long PROGRESS_INTERVAL = 100;
+
+	private final Log logger = LogFactory.getLog(GracefulShutdownListener.class);
+
+	private final InFlightRequestFilter filter;
+
+	private final GaugeService gaugeService;
+
+	private ApplicationContext applicationContext;
+
+	private long timeout = 30000;
+
+	/**
+	 * Create a new {@link GracefulShutdownListener} instance.
+	 * @param filter the filter used to track in-flight requests
+	 * @param gaugeService an optional gauge service used to report drain progress
+	 */
+	public GracefulShutdownListener(InFlightRequestFilter filter,
+			GaugeService gaugeService) {
+		Assert.notNull(filter, "Filter must not be null");
+		this.filter = filter;
+		this.gaugeService = gaugeService;
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds to wait for in-flight requests. Use 0 to
+	 * disable draining.
+	 * @param timeout the timeout
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext)
+			throws BeansException {
+		this.applicationContext = applicationContext;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public void onApplicationEvent(ContextClosedEvent event) {
+		if (event.getApplicationContext() != this.applicationContext
+				|| this.timeout <= 0) {
+			return;
+		}
+		pauseContainer();
+		long start = System.currentTimeMillis();
+		int remaining = drain(start + this.timeout);
+		long time = System.currentTimeMillis() - start;
+		setGauge("time", time);
+		if (remaining > 0) {
+			this.logger.warn("Closing context with " + remaining
+					+ " request(s) still in flight after " + time + "ms");
+		}
+		else if (this.logger.isDebugEnabled()) {
+			this.logger.debug("Drained in-flight requests in " + time + "ms");
+		}
+	}
+
+	private void pauseContainer() {
+		if (this.applicationContext instanceof EmbeddedWebApplicationContext) {
+			EmbeddedServletContainer container = ((EmbeddedWebApplicationContext) this.applicationContext)
+					.getEmbeddedServletContainer();
+			if (container != null) {
+				container.pause();
+			}
+		}
+	}
+
+	private int drain(long deadline) {
+		int remaining = this.filter.getInFlightRequests();
+		try {
+			long now = System.currentTimeMillis();
+			while (remaining > 0 && now < deadline) {
+				setGauge("active", remaining);
+				this.filter.awaitDrained(Math.min(PROGRESS_INTERVAL, deadline - now));
+				remaining = this.filter.getInFlightRequests();
+				now = System.currentTimeMillis();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		setGauge("active", remaining);
+		return remaining;
+	}
+
+	private void setGauge(String name, double value) {
+		if (this.gaugeService != null) {
+			this.gaugeService.set("shutdown.drain." + name, value);
+		}
+	}
+
+}
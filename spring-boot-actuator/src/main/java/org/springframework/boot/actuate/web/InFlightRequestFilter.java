@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.web;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Servlet {@link Filter} that counts the requests currently being processed so that the
+ * container can be drained before it is stopped.
+ * 
+ * @author Dave Syer
+ * @see GracefulShutdownListener
+ */
+public class InFlightRequestFilter extends OncePerRequestFilter implements Ordered {
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final Object monitor = new Object();
+
+	private int order = Ordered.HIGHEST_PRECEDENCE;
+
+	/**
+	 * @param order the order to set
+	 */
+	public void setOrder(int order) {
+		this.order = order;
+	}
+
+	@Override
+	public int getOrder() {
+		return this.order;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request,
+			HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		this.inFlight.incrementAndGet();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			if (this.inFlight.decrementAndGet() == 0) {
+				synchronized (this.monitor) {
+					this.monitor.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of requests currently being processed.
+	 */
+	public int getInFlightRequests() {
+		return this.inFlight.get();
+	}
+
+	/**
+	 * Wait for all in-flight requests to complete.
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return {@code true} if there are no more requests in flight
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public boolean awaitDrained(long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		synchronized (this.monitor) {
+			long remaining = timeout;
+			while (this.inFlight.get() > 0 && remaining > 0) {
+				this.monitor.wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+			return this.inFlight.get() == 0;
+		}
+	}
+
+}
@@ -23,7 +23,9 @@ import org.springframework.boot.actuate.autoconfigure.EndpointAutoConfiguration;
 import org.springframework.boot.actuate.endpoint.BeansEndpoint;
 import org.springframework.boot.actuate.endpoint.DumpEndpoint;
 import org.springframework.boot.actuate.endpoint.EnvironmentEndpoint;
+import org.springframework.boot.actuate.endpoint.GcEndpoint;
 import org.springframework.boot.actuate.endpoint.HealthEndpoint;
+import org.springframework.boot.actuate.endpoint.HeapHistogramEndpoint;
 import org.springframework.boot.actuate.endpoint.InfoEndpoint;
 import org.springframework.boot.actuate.endpoint.MetricsEndpoint;
 import org.springframework.boot.actuate.endpoint.ShutdownEndpoint;
@@ -61,6 +63,8 @@ public class EndpointAutoConfigurationTests {
 		assertNotNull(this.context.getBean(MetricsEndpoint.class));
 		assertNotNull(this.context.getBean(ShutdownEndpoint.class));
 		assertNotNull(this.context.getBean(TraceEndpoint.class));
+		assertNotNull(this.context.getBean(HeapHistogramEndpoint.class));
+		assertNotNull(this.context.getBean(GcEndpoint.class));
 	}
 
 	@Test
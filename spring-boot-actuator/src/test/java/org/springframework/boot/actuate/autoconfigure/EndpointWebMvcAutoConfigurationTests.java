@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.springframework.boot.TestUtils;
 import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
 import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.actuate.metrics.MetricRepository;
 import org.springframework.boot.actuate.properties.ManagementServerProperties;
 import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.DispatcherServletAutoConfiguration;
@@ -100,6 +101,31 @@ public class EndpointWebMvcAutoConfigurationTests {
 		assertAllClosed();
 	}
 
+	@Test
+	public void onDifferentPortWithSeparateMetrics() throws Exception {
+		this.applicationContext.register(RootConfig.class, DifferentPortConfig.class,
+				PropertyPlaceholderAutoConfiguration.class,
+				EmbeddedServletContainerAutoConfiguration.class,
+				DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class,
+				ManagementServerPropertiesAutoConfiguration.class,
+				MetricRepositoryAutoConfiguration.class,
+				MetricFilterAutoConfiguration.class,
+				EndpointWebMvcAutoConfiguration.class);
+		this.applicationContext.refresh();
+		assertContent("/controller", 8080, "controlleroutput");
+		assertContent("/endpoint", 8081, "endpointoutput");
+		MetricRepository repository = this.applicationContext
+				.getBean(MetricRepository.class);
+		assertThat(repository.findOne("counter.status.200.controller").getValue(),
+				equalTo(1.0));
+		assertThat(repository.findOne("counter.management.status.200.endpoint")
+				.getValue(), equalTo(1.0));
+		assertThat(repository.findOne("counter.status.200.endpoint").getValue(),
+				equalTo(0.0));
+		this.applicationContext.close();
+		assertAllClosed();
+	}
+
 	@Test
 	public void disabled() throws Exception {
 		this.applicationContext.register(RootConfig.class, DisableConfig.class,
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.autoconfigure;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.actuate.properties.ManagementServerProperties;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.jetty.JettyEmbeddedServletContainerFactory;
+import org.springframework.boot.context.embedded.jetty.JettyServerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link EndpointWebMvcChildContextConfiguration}.
+ * 
+ * @author Phillip Webb
+ */
+public class EndpointWebMvcChildContextConfigurationTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void tomcatManagementContainerUsesFixedThreadPool() throws Exception {
+		TomcatEmbeddedServletContainerFactory factory = new TomcatEmbeddedServletContainerFactory();
+		getCustomizer().customize(factory);
+		Connector connector = new Connector("org.apache.coyote.http11.Http11NioProtocol");
+		for (TomcatConnectorCustomizer customizer : factory
+				.getTomcatConnectorCustomizers()) {
+			customizer.customize(connector);
+		}
+		AbstractProtocol protocol = (AbstractProtocol) connector.getProtocolHandler();
+		assertThat(protocol.getMaxThreads(), equalTo(3));
+		assertThat(protocol.getMinSpareThreads(), equalTo(3));
+		assertThat(protocol.getBacklog(), equalTo(7));
+	}
+
+	@Test
+	public void jettyManagementContainerUsesFixedThreadPool() throws Exception {
+		JettyEmbeddedServletContainerFactory factory = new JettyEmbeddedServletContainerFactory();
+		getCustomizer().customize(factory);
+		Server server = new Server(0);
+		for (JettyServerCustomizer customizer : factory.getServerCustomizers()) {
+			customizer.customize(server);
+		}
+		AbstractConnector connector = (AbstractConnector) server.getConnectors()[0];
+		assertThat(connector.getAcceptQueueSize(), equalTo(7));
+		assertThat(server.getThreadPool(), instanceOf(QueuedThreadPool.class));
+		QueuedThreadPool threadPool = (QueuedThreadPool) server.getThreadPool();
+		int reserved = 2 * connector.getAcceptors();
+		assertThat(threadPool.getMinThreads(), equalTo(3 + reserved));
+		assertThat(threadPool.getMaxThreads(), equalTo(3 + reserved));
+		assertThat(threadPool.getMaxQueued(), equalTo(-1));
+	}
+
+	private EmbeddedServletContainerCustomizer getCustomizer() {
+		this.context = new AnnotationConfigApplicationContext(PropertiesConfig.class,
+				EndpointWebMvcChildContextConfiguration.ServerCustomization.class);
+		return this.context.getBean(EmbeddedServletContainerCustomizer.class);
+	}
+
+	@Configuration
+	public static class PropertiesConfig {
+
+		@Bean
+		public ManagementServerProperties managementServerProperties() {
+			ManagementServerProperties properties = new ManagementServerProperties();
+			properties.setPort(8081);
+			properties.setMaxThreads(3);
+			properties.setAcceptCount(7);
+			return properties;
+		}
+
+	}
+
+}
@@ -18,10 +18,13 @@ package org.springframework.boot.actuate.autoconfigure;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.springframework.boot.TestUtils;
 import org.springframework.boot.actuate.autoconfigure.MetricFilterAutoConfiguration;
 import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.boot.actuate.metrics.GaugeService;
@@ -34,6 +37,7 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -69,6 +73,70 @@ public class MetricFilterAutoConfigurationTests {
 		context.close();
 	}
 
+	@Test
+	public void recordsBytesWrittenToOutputStream() throws Exception {
+		GaugeService gaugeService = mock(GaugeService.class);
+		MockHttpServletResponse response = doFilterWithRecordBytes(gaugeService, false);
+		verify(gaugeService).set("bytes.in.test.path", 2);
+		verify(gaugeService).set("bytes.out.test.path", 3);
+		assertThat(response.getContentAsString(), equalTo("out"));
+	}
+
+	@Test
+	public void recordsBytesWrittenToWriter() throws Exception {
+		GaugeService gaugeService = mock(GaugeService.class);
+		MockHttpServletResponse response = doFilterWithRecordBytes(gaugeService, true);
+		verify(gaugeService).set("bytes.in.test.path", 2);
+		verify(gaugeService).set("bytes.out.test.path", 5);
+		assertThat(response.getContentAsString(), equalTo("out\u00e9"));
+	}
+
+	@Test
+	public void recordBytesFromManagementProperties() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestUtils.addEnviroment(context, "management.recordBytes:true");
+		context.register(Config.class, ManagementServerPropertiesAutoConfiguration.class,
+				MetricFilterAutoConfiguration.class);
+		context.refresh();
+		Filter filter = context.getBean(Filter.class);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test/path");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, mock(FilterChain.class));
+		verify(context.getBean(GaugeService.class)).set("bytes.out.test.path", 0);
+		context.close();
+	}
+
+	private MockHttpServletResponse doFilterWithRecordBytes(GaugeService gaugeService,
+			final boolean useWriter) throws Exception {
+		MetricFilterAutoConfiguration.MetricsFilter filter = new MetricFilterAutoConfiguration.MetricsFilter(
+				mock(CounterService.class), gaugeService, "");
+		filter.setRecordBytes(true);
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/test/path");
+		request.setContent("in".getBytes());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		response.setCharacterEncoding("UTF-8");
+		FilterChain chain = mock(FilterChain.class);
+		willAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				ServletRequest request = (ServletRequest) invocation.getArguments()[0];
+				ServletResponse response = (ServletResponse) invocation.getArguments()[1];
+				while (request.getInputStream().read() != -1) {
+					// Consume
+				}
+				if (useWriter) {
+					response.getWriter().write("out\u00e9");
+				}
+				else {
+					response.getOutputStream().write("out".getBytes());
+				}
+				return null;
+			}
+		}).given(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
 	@Test
 	public void skipsFilterIfMissingServices() throws Exception {
 		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
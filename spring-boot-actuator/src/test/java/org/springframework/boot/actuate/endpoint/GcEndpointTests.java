@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.endpoint.GcEndpoint.Pause;
+import org.springframework.boot.actuate.metrics.InMemoryMetricRepository;
+import org.springframework.boot.actuate.metrics.MetricRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link GcEndpoint}.
+ * 
+ * @author Dave Syer
+ */
+public class GcEndpointTests extends AbstractEndpointTests<GcEndpoint> {
+
+	public GcEndpointTests() {
+		super(Config.class, GcEndpoint.class, "/gc", true, "endpoints.gc");
+	}
+
+	@Test
+	public void ringBufferIsBounded() throws Exception {
+		GcEndpoint endpoint = new GcEndpoint(new InMemoryMetricRepository());
+		endpoint.setCapacity(2);
+		endpoint.afterPropertiesSet();
+		try {
+			endpoint.record(pause("a"));
+			endpoint.record(pause("b"));
+			endpoint.record(pause("c"));
+			List<Pause> pauses = endpoint.invoke();
+			assertThat(pauses.size(), equalTo(2));
+			assertThat(pauses.get(0).getName(), equalTo("b"));
+			assertThat(pauses.get(1).getName(), equalTo("c"));
+		}
+		finally {
+			endpoint.destroy();
+		}
+	}
+
+	@Test
+	public void recordsMetrics() throws Exception {
+		MetricRepository repository = this.context.getBean(MetricRepository.class);
+		getEndpointBean().record(pause("PS Scavenge"));
+		assertThat(repository.findOne("counter.gc.PS_Scavenge.count").getValue(),
+				equalTo(1.0));
+		assertThat(repository.findOne("gauge.gc.PS_Scavenge.time").getValue(),
+				equalTo(12.0));
+		assertThat(repository.findOne("gauge.gc.PS_Scavenge.reclaimed").getValue(),
+				equalTo(1024.0));
+	}
+
+	private Pause pause(String name) {
+		return new Pause(new Date(), name, "end of minor GC", "Allocation Failure", 12,
+				2048, 1024);
+	}
+
+	@Configuration
+	@EnableConfigurationProperties
+	public static class Config {
+
+		@Bean
+		public MetricRepository metricRepository() {
+			return new InMemoryMetricRepository();
+		}
+
+		@Bean
+		public GcEndpoint endpoint() {
+			return new GcEndpoint(metricRepository());
+		}
+
+	}
+}
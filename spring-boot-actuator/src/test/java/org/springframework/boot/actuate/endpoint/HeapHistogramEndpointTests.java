@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.endpoint;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link HeapHistogramEndpoint}.
+ * 
+ * @author Dave Syer
+ */
+public class HeapHistogramEndpointTests extends
+		AbstractEndpointTests<HeapHistogramEndpoint> {
+
+	public HeapHistogramEndpointTests() {
+		super(Config.class, HeapHistogramEndpoint.class, "/heap/histogram", true,
+				"endpoints.heapHistogram");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void invoke() throws Exception {
+		assumeDiagnosticCommandAvailable();
+		HeapHistogramEndpoint endpoint = getEndpointBean();
+		endpoint.setLimit(5);
+		Map<String, Object> histogram = endpoint.invoke();
+		assertThat((Integer) histogram.get("classes"), greaterThan(0));
+		assertThat(((List<Object>) histogram.get("byBytes")).size(),
+				lessThanOrEqualTo(5));
+		assertThat(((List<Object>) histogram.get("byInstances")).size(),
+				lessThanOrEqualTo(5));
+	}
+
+	@Test
+	public void rateLimited() throws Exception {
+		assumeDiagnosticCommandAvailable();
+		HeapHistogramEndpoint endpoint = getEndpointBean();
+		endpoint.setMinInterval(60000);
+		Map<String, Object> first = endpoint.invoke();
+		assertThat(endpoint.invoke(), sameInstance(first));
+	}
+
+	private void assumeDiagnosticCommandAvailable() throws Exception {
+		assumeTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+				new ObjectName("com.sun.management:type=DiagnosticCommand")));
+	}
+
+	@Configuration
+	@EnableConfigurationProperties
+	public static class Config {
+
+		@Bean
+		public HeapHistogramEndpoint endpoint() {
+			return new HeapHistogramEndpoint();
+		}
+
+	}
+}
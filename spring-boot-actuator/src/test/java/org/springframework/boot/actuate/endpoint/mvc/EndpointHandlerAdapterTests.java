@@ -16,10 +16,17 @@
 
 package org.springframework.boot.actuate.endpoint.mvc;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
 import org.springframework.boot.actuate.endpoint.Endpoint;
-import org.springframework.boot.actuate.endpoint.mvc.EndpointHandlerAdapter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -39,6 +46,95 @@ public class EndpointHandlerAdapterTests {
 		assertFalse(this.adapter.supports(mock(Object.class)));
 	}
 
-	// FIXME tests
+	@Test
+	public void rateLimitExceeded() throws Exception {
+		TestEndpoint endpoint = new TestEndpoint();
+		endpoint.setRateLimit(1);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.adapter.handle(new MockHttpServletRequest(), response, endpoint);
+		assertEquals(HttpStatus.OK.value(), response.getStatus());
+		response = new MockHttpServletResponse();
+		this.adapter.handle(new MockHttpServletRequest(), response, endpoint);
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+		assertEquals("1", response.getHeader("Retry-After"));
+		assertEquals(1, endpoint.invocations.get());
+	}
+
+	@Test
+	public void concurrentRequestsShareResult() throws Exception {
+		TestEndpoint endpoint = new TestEndpoint();
+		endpoint.latch = new CountDownLatch(1);
+		Thread first = startRequest(endpoint);
+		while (endpoint.invocations.get() == 0) {
+			Thread.sleep(10);
+		}
+		Thread second = startRequest(endpoint);
+		Thread.sleep(100);
+		endpoint.latch.countDown();
+		first.join();
+		second.join();
+		assertEquals(1, endpoint.invocations.get());
+	}
+
+	@Test
+	public void maxConcurrencyExceeded() throws Exception {
+		TestEndpoint endpoint = new TestEndpoint();
+		endpoint.setMaxConcurrency(1);
+		endpoint.latch = new CountDownLatch(1);
+		Thread thread = startRequest(endpoint);
+		while (endpoint.invocations.get() == 0) {
+			Thread.sleep(10);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.adapter.handle(new MockHttpServletRequest(), response, endpoint);
+		endpoint.latch.countDown();
+		thread.join();
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+		assertEquals(1, endpoint.invocations.get());
+	}
+
+	private Thread startRequest(final Endpoint<?> endpoint) {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					EndpointHandlerAdapterTests.this.adapter.handle(
+							new MockHttpServletRequest(), new MockHttpServletResponse(),
+							endpoint);
+				}
+				catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private static class TestEndpoint extends AbstractEndpoint<String> {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private volatile CountDownLatch latch;
+
+		public TestEndpoint() {
+			super("/test");
+		}
+
+		@Override
+		public String invoke() {
+			this.invocations.incrementAndGet();
+			if (this.latch != null) {
+				try {
+					this.latch.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return "test";
+		}
+
+	}
 
 }
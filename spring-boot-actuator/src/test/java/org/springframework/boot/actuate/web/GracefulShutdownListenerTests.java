@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.actuate.web;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.DefaultGaugeService;
+import org.springframework.boot.actuate.metrics.InMemoryMetricRepository;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link GracefulShutdownListener} and {@link InFlightRequestFilter}.
+ * 
+ * @author Dave Syer
+ */
+public class GracefulShutdownListenerTests {
+
+	private final InFlightRequestFilter filter = new InFlightRequestFilter();
+
+	private final InMemoryMetricRepository repository = new InMemoryMetricRepository();
+
+	@Test
+	public void closeWaitsForInFlightRequest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Thread request = startRequest(release);
+		StaticApplicationContext context = createContext(5000);
+		new Thread(new Releaser(release, 200)).start();
+		long start = System.currentTimeMillis();
+		context.close();
+		assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(150L));
+		assertThat(this.filter.getInFlightRequests(), equalTo(0));
+		assertThat(this.repository.findOne("gauge.shutdown.drain.active").getValue(),
+				equalTo(0.0));
+		request.join();
+	}
+
+	@Test
+	public void closeGivesUpAfterTimeout() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Thread request = startRequest(release);
+		StaticApplicationContext context = createContext(100);
+		long start = System.currentTimeMillis();
+		context.close();
+		assertThat(System.currentTimeMillis() - start, lessThan(2000L));
+		assertThat(this.repository.findOne("gauge.shutdown.drain.active").getValue(),
+				equalTo(1.0));
+		release.countDown();
+		request.join();
+	}
+
+	@Test
+	public void awaitDrained() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Thread request = startRequest(release);
+		assertFalse(this.filter.awaitDrained(50));
+		release.countDown();
+		assertTrue(this.filter.awaitDrained(5000));
+		request.join();
+	}
+
+	private StaticApplicationContext createContext(long timeout) {
+		StaticApplicationContext context = new StaticApplicationContext();
+		GracefulShutdownListener listener = new GracefulShutdownListener(this.filter,
+				new DefaultGaugeService(this.repository));
+		listener.setTimeout(timeout);
+		listener.setApplicationContext(context);
+		context.addApplicationListener(listener);
+		context.refresh();
+		return context;
+	}
+
+	private Thread startRequest(final CountDownLatch release) throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					GracefulShutdownListenerTests.this.filter.doFilter(
+							new MockHttpServletRequest(), new MockHttpServletResponse(),
+							new FilterChain() {
+								@Override
+								public void doFilter(ServletRequest request,
+										ServletResponse response) throws IOException,
+										ServletException {
+									started.countDown();
+									try {
+										release.await();
+									}
+									catch (InterruptedException ex) {
+										Thread.currentThread().interrupt();
+									}
+								}
+							});
+				}
+				catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		});
+		thread.start();
+		started.await(5, TimeUnit.SECONDS);
+		return thread;
+	}
+
+	private static class Releaser implements Runnable {
+
+		private final CountDownLatch latch;
+
+		private final long delay;
+
+		public Releaser(CountDownLatch latch, long delay) {
+			this.latch = latch;
+			this.delay = delay;
+		}
+
+		@Override
+		public void run() {
+			try {
+				Thread.sleep(this.delay);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.latch.countDown();
+		}
+
+	}
+
+}
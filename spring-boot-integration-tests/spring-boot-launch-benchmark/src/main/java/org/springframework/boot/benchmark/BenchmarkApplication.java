@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Application packaged into the jars generated by {@link FatJarGenerator}. Loads every
+ * generated class, then serves a single HTTP request and exits. Progress is reported
+ * to {@link LaunchBenchmark} using {@link #PREFIX prefixed} lines on
+ * {@link System#out}. Only JDK classes may be used since this class is copied into the
+ * generated jar without any of its dependencies.
+ * 
+ * @author Phillip Webb
+ */
+public class BenchmarkApplication {
+
+	/**
+	 * Prefix used for lines that are read by the {@link LaunchBenchmark}.
+	 */
+	public static final String PREFIX = "benchmark:";
+
+	/**
+	 * Resource listing the names of the classes that are loaded on startup.
+	 */
+	public static final String CLASSES_RESOURCE = "META-INF/benchmark/classes.txt";
+
+	public static void main(String[] args) throws Exception {
+		System.out.println(PREFIX + "main");
+		System.out.flush();
+		int loaded = loadClasses();
+		ServerSocket serverSocket = new ServerSocket(0, 1,
+				InetAddress.getByName("127.0.0.1"));
+		try {
+			System.out.println(PREFIX + "listening " + serverSocket.getLocalPort());
+			System.out.flush();
+			Socket socket = serverSocket.accept();
+			try {
+				serve(socket, loaded);
+			}
+			finally {
+				socket.close();
+			}
+		}
+		finally {
+			serverSocket.close();
+		}
+		System.out.println(PREFIX + "rss " + getPeakResidentSetSize());
+		System.out.flush();
+	}
+
+	private static int loadClasses() throws IOException, ClassNotFoundException {
+		ClassLoader classLoader = BenchmarkApplication.class.getClassLoader();
+		InputStream inputStream = classLoader.getResourceAsStream(CLASSES_RESOURCE);
+		if (inputStream == null) {
+			return 0;
+		}
+		int loaded = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
+				"UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.length() > 0) {
+					Class.forName(line, false, classLoader);
+					loaded++;
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return loaded;
+	}
+
+	private static void serve(Socket socket, int loaded) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				socket.getInputStream(), "US-ASCII"));
+		String line;
+		while ((line = reader.readLine()) != null && line.length() > 0) {
+			// Discard the request
+		}
+		OutputStream outputStream = socket.getOutputStream();
+		String body = "loaded " + loaded + " classes\n";
+		outputStream.write(("HTTP/1.0 200 OK\r\nContent-Type: text/plain\r\n"
+				+ "Content-Length: " + body.length() + "\r\n\r\n" + body)
+				.getBytes("US-ASCII"));
+		outputStream.flush();
+	}
+
+	/**
+	 * Returns the peak resident set size of the process in kilobytes, or {@code -1} if
+	 * it cannot be determined (only Linux is supported).
+	 * @return the peak resident set size
+	 */
+	private static long getPeakResidentSetSize() {
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					new FileInputStream("/proc/self/status"), "US-ASCII"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("VmHWM:")) {
+						return Long.parseLong(line.substring(6).replace("kB", "").trim());
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (Exception ex) {
+			// Not available
+		}
+		return -1;
+	}
+
+}
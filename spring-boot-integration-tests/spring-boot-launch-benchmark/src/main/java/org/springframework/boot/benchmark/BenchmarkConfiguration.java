@@ -0,0 +1,290 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for a {@link LaunchBenchmark} run. Options are usually parsed from
+ * command line arguments in the form {@code --name=value}.
+ * 
+ * @author Phillip Webb
+ */
+public class BenchmarkConfiguration {
+
+	private int libraries = 40;
+
+	private int classesPerLibrary = 200;
+
+	private int classSize = 2048;
+
+	private boolean compressed = true;
+
+	private int packageDepth = 4;
+
+	private int runs = 10;
+
+	private int warmups = 1;
+
+	private long timeout = 120000;
+
+	private File workDirectory = new File("target/launch-benchmark");
+
+	private File jar;
+
+	private File output;
+
+	private final List<String> jvmArguments = new ArrayList<String>();
+
+	/**
+	 * Parse the given command line arguments. Each argument may contain several
+	 * whitespace separated options.
+	 * @param args the arguments
+	 * @return the parsed configuration
+	 * @throws IllegalArgumentException if an option is not recognized
+	 */
+	public static BenchmarkConfiguration parse(String... args) {
+		BenchmarkConfiguration configuration = new BenchmarkConfiguration();
+		for (String arg : args) {
+			for (String option : arg.trim().split("\\s+")) {
+				if (option.length() > 0) {
+					configuration.apply(option);
+				}
+			}
+		}
+		return configuration;
+	}
+
+	private void apply(String option) {
+		if (!option.startsWith("--")) {
+			throw new IllegalArgumentException("Unrecognized option " + option);
+		}
+		int equals = option.indexOf('=');
+		String name = option.substring(2, equals == -1 ? option.length() : equals);
+		String value = (equals == -1 ? null : option.substring(equals + 1));
+		if ("libraries".equals(name)) {
+			this.libraries = parseInt(name, value);
+		}
+		else if ("classes".equals(name)) {
+			this.classesPerLibrary = parseInt(name, value);
+		}
+		else if ("class-size".equals(name)) {
+			this.classSize = parseInt(name, value);
+		}
+		else if ("stored".equals(name)) {
+			this.compressed = false;
+		}
+		else if ("compressed".equals(name)) {
+			this.compressed = true;
+		}
+		else if ("depth".equals(name)) {
+			this.packageDepth = parseInt(name, value);
+		}
+		else if ("runs".equals(name)) {
+			this.runs = parseInt(name, value);
+		}
+		else if ("warmups".equals(name)) {
+			this.warmups = parseInt(name, value);
+		}
+		else if ("timeout".equals(name)) {
+			this.timeout = parseInt(name, value) * 1000L;
+		}
+		else if ("work-dir".equals(name)) {
+			this.workDirectory = new File(requireValue(name, value));
+		}
+		else if ("jar".equals(name)) {
+			this.jar = new File(requireValue(name, value));
+		}
+		else if ("output".equals(name)) {
+			this.output = new File(requireValue(name, value));
+		}
+		else if ("jvm-arg".equals(name)) {
+			this.jvmArguments.add(requireValue(name, value));
+		}
+		else {
+			throw new IllegalArgumentException("Unrecognized option " + option);
+		}
+	}
+
+	private String requireValue(String name, String value) {
+		if (value == null || value.length() == 0) {
+			throw new IllegalArgumentException("Option --" + name
+					+ " requires a value");
+		}
+		return value;
+	}
+
+	private int parseInt(String name, String value) {
+		try {
+			int result = Integer.parseInt(requireValue(name, value));
+			if (result < 0) {
+				throw new IllegalArgumentException("Option --" + name
+						+ " must not be negative");
+			}
+			return result;
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Option --" + name
+					+ " requires a number");
+		}
+	}
+
+	/**
+	 * Returns the number of libraries nested in the generated jar.
+	 * @return the number of libraries
+	 */
+	public int getLibraries() {
+		return this.libraries;
+	}
+
+	public void setLibraries(int libraries) {
+		this.libraries = libraries;
+	}
+
+	/**
+	 * Returns the number of classes generated in each library.
+	 * @return the number of classes per library
+	 */
+	public int getClassesPerLibrary() {
+		return this.classesPerLibrary;
+	}
+
+	public void setClassesPerLibrary(int classesPerLibrary) {
+		this.classesPerLibrary = classesPerLibrary;
+	}
+
+	/**
+	 * Returns the approximate size (in bytes) of each generated class.
+	 * @return the class size
+	 */
+	public int getClassSize() {
+		return this.classSize;
+	}
+
+	public void setClassSize(int classSize) {
+		this.classSize = classSize;
+	}
+
+	/**
+	 * Returns if library entries are compressed (rather than stored).
+	 * @return if entries are compressed
+	 */
+	public boolean isCompressed() {
+		return this.compressed;
+	}
+
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * Returns the number of package segments used for generated class names.
+	 * @return the package depth
+	 */
+	public int getPackageDepth() {
+		return this.packageDepth;
+	}
+
+	public void setPackageDepth(int packageDepth) {
+		this.packageDepth = packageDepth;
+	}
+
+	/**
+	 * Returns the number of measured launches.
+	 * @return the number of runs
+	 */
+	public int getRuns() {
+		return this.runs;
+	}
+
+	public void setRuns(int runs) {
+		this.runs = runs;
+	}
+
+	/**
+	 * Returns the number of launches performed (and discarded) before measuring.
+	 * @return the number of warmup runs
+	 */
+	public int getWarmups() {
+		return this.warmups;
+	}
+
+	public void setWarmups(int warmups) {
+		this.warmups = warmups;
+	}
+
+	/**
+	 * Returns the maximum time (in milliseconds) allowed for a single launch.
+	 * @return the timeout
+	 */
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Returns the directory used for generated files.
+	 * @return the work directory
+	 */
+	public File getWorkDirectory() {
+		return this.workDirectory;
+	}
+
+	public void setWorkDirectory(File workDirectory) {
+		this.workDirectory = workDirectory;
+	}
+
+	/**
+	 * Returns an existing jar to launch instead of generating one or {@code null}.
+	 * @return the jar to launch
+	 */
+	public File getJar() {
+		return this.jar;
+	}
+
+	public void setJar(File jar) {
+		this.jar = jar;
+	}
+
+	/**
+	 * Returns the file that the summary is written to, or {@code null} to write the
+	 * summary to {@code summary.json} in the work directory.
+	 * @return the output file
+	 */
+	public File getOutput() {
+		return (this.output != null ? this.output : new File(this.workDirectory,
+				"summary.json"));
+	}
+
+	public void setOutput(File output) {
+		this.output = output;
+	}
+
+	/**
+	 * Returns additional arguments passed to each launched JVM.
+	 * @return the JVM arguments
+	 */
+	public List<String> getJvmArguments() {
+		return this.jvmArguments;
+	}
+
+}
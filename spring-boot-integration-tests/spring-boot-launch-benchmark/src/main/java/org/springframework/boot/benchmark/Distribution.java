@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A distribution of measured values (for example launch times in milliseconds).
+ * 
+ * @author Phillip Webb
+ */
+public class Distribution {
+
+	private final List<Long> samples = new ArrayList<Long>();
+
+	/**
+	 * Add a sample to the distribution. Negative samples (which indicate that a value
+	 * could not be measured) are ignored.
+	 * @param sample the sample to add
+	 */
+	public void add(long sample) {
+		if (sample >= 0) {
+			this.samples.add(sample);
+		}
+	}
+
+	public int getCount() {
+		return this.samples.size();
+	}
+
+	public long getMin() {
+		return (this.samples.isEmpty() ? 0 : Collections.min(this.samples));
+	}
+
+	public long getMax() {
+		return (this.samples.isEmpty() ? 0 : Collections.max(this.samples));
+	}
+
+	public double getMean() {
+		if (this.samples.isEmpty()) {
+			return 0;
+		}
+		double total = 0;
+		for (Long sample : this.samples) {
+			total += sample;
+		}
+		return total / this.samples.size();
+	}
+
+	public double getStandardDeviation() {
+		if (this.samples.size() < 2) {
+			return 0;
+		}
+		double mean = getMean();
+		double total = 0;
+		for (Long sample : this.samples) {
+			total += (sample - mean) * (sample - mean);
+		}
+		return Math.sqrt(total / (this.samples.size() - 1));
+	}
+
+	/**
+	 * Returns the given percentile using the nearest rank method.
+	 * @param percentile the percentile (between 0 and 100)
+	 * @return the value at the percentile
+	 */
+	public long getPercentile(double percentile) {
+		if (this.samples.isEmpty()) {
+			return 0;
+		}
+		List<Long> sorted = new ArrayList<Long>(this.samples);
+		Collections.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+		return sorted.get(Math.min(sorted.size() - 1, Math.max(0, rank - 1)));
+	}
+
+	/**
+	 * Returns a JSON representation of the distribution.
+	 * @return the JSON
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{");
+		json.append("\"count\":").append(getCount());
+		json.append(",\"min\":").append(getMin());
+		json.append(",\"max\":").append(getMax());
+		json.append(",\"mean\":").append(format(getMean()));
+		json.append(",\"stddev\":").append(format(getStandardDeviation()));
+		json.append(",\"p50\":").append(getPercentile(50));
+		json.append(",\"p90\":").append(getPercentile(90));
+		json.append(",\"p99\":").append(getPercentile(99));
+		json.append(",\"samples\":").append(this.samples.toString().replace(" ", ""));
+		json.append("}");
+		return json.toString();
+	}
+
+	private String format(double value) {
+		return String.format(Locale.ROOT, "%.1f", value);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("min=%d p50=%d p90=%d max=%d mean=%.1f", getMin(),
+				getPercentile(50), getPercentile(90), getMax(), getMean());
+	}
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.springframework.boot.loader.tools.Libraries;
+import org.springframework.boot.loader.tools.LibraryCallback;
+import org.springframework.boot.loader.tools.LibraryScope;
+import org.springframework.boot.loader.tools.Repackager;
+
+/**
+ * Generates synthetic executable jars for the {@link LaunchBenchmark}. Library jars
+ * containing generated classes are written and then packaged together with the
+ * {@link BenchmarkApplication} using a {@link Repackager}. Generation is deterministic
+ * so that the same configuration always produces the same jar.
+ * 
+ * @author Phillip Webb
+ */
+public class FatJarGenerator {
+
+	private static final String[] WORDS = { "java/lang/String", "java/util/List",
+			"getName", "setName", "value", "Ljava/lang/Object;", "toString", "hashCode",
+			"equals", "Code", "LineNumberTable", "LocalVariableTable", "this", "<init>",
+			"()V", "(Ljava/lang/String;)V", "SourceFile", "StackMapTable" };
+
+	private static final int CLASS_HEADER_SIZE = 64;
+
+	private final BenchmarkConfiguration configuration;
+
+	public FatJarGenerator(BenchmarkConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Generate an executable jar in the given directory.
+	 * @param directory the destination directory
+	 * @return the generated jar
+	 * @throws IOException
+	 */
+	public File generate(File directory) throws IOException {
+		File libraryDirectory = new File(directory, "lib");
+		libraryDirectory.mkdirs();
+		Random random = new Random(0);
+		final List<File> libraries = new ArrayList<File>();
+		List<String> classNames = new ArrayList<String>();
+		for (int i = 0; i < this.configuration.getLibraries(); i++) {
+			File library = new File(libraryDirectory, "library" + i + ".jar");
+			writeLibrary(library, i, classNames, random);
+			libraries.add(library);
+		}
+		File application = new File(directory, "application.jar");
+		writeApplication(application, classNames);
+		File destination = new File(directory, "benchmark.jar");
+		Repackager repackager = new Repackager(application);
+		repackager.setMainClass(BenchmarkApplication.class.getName());
+		repackager.repackage(destination, new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				for (File library : libraries) {
+					callback.library(library, LibraryScope.COMPILE);
+				}
+			}
+		});
+		return destination;
+	}
+
+	private void writeLibrary(File file, int index, List<String> classNames,
+			Random random) throws IOException {
+		JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file),
+				createManifest());
+		try {
+			Set<String> directories = new HashSet<String>();
+			for (int i = 0; i < this.configuration.getClassesPerLibrary(); i++) {
+				String name = getClassName(index, i);
+				writeDirectories(outputStream, name, directories);
+				byte[] bytes = generateClass(name, this.configuration.getClassSize(),
+						random);
+				writeEntry(outputStream, name + ".class", bytes,
+						this.configuration.isCompressed());
+				classNames.add(name.replace('/', '.'));
+			}
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	private String getClassName(int library, int index) {
+		StringBuilder name = new StringBuilder("benchmark/library" + library);
+		for (int depth = 3; depth < this.configuration.getPackageDepth(); depth++) {
+			name.append("/module" + depth);
+		}
+		name.append("/package" + (index % 10));
+		name.append("/Class" + index);
+		return name.toString();
+	}
+
+	private void writeDirectories(JarOutputStream outputStream, String name,
+			Set<String> directories) throws IOException {
+		int slash = name.indexOf('/');
+		while (slash != -1) {
+			String directory = name.substring(0, slash + 1);
+			if (directories.add(directory)) {
+				writeEntry(outputStream, directory, new byte[0], false);
+			}
+			slash = name.indexOf('/', slash + 1);
+		}
+	}
+
+	private void writeApplication(File file, List<String> classNames)
+			throws IOException {
+		JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file),
+				createManifest());
+		try {
+			String name = BenchmarkApplication.class.getName().replace('.', '/')
+					+ ".class";
+			InputStream inputStream = getClass().getClassLoader().getResourceAsStream(
+					name);
+			if (inputStream == null) {
+				throw new IllegalStateException("Unable to find " + name);
+			}
+			try {
+				writeEntry(outputStream, name, readBytes(inputStream), true);
+			}
+			finally {
+				inputStream.close();
+			}
+			StringBuilder classes = new StringBuilder();
+			for (String className : classNames) {
+				classes.append(className).append("\n");
+			}
+			writeEntry(outputStream, BenchmarkApplication.CLASSES_RESOURCE, classes
+					.toString().getBytes("UTF-8"), true);
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	private Manifest createManifest() {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+		return manifest;
+	}
+
+	private void writeEntry(JarOutputStream outputStream, String name, byte[] bytes,
+			boolean compressed) throws IOException {
+		JarEntry entry = new JarEntry(name);
+		if (!compressed) {
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(bytes.length);
+			entry.setCompressedSize(bytes.length);
+			entry.setCrc(crc.getValue());
+		}
+		outputStream.putNextEntry(entry);
+		outputStream.write(bytes);
+		outputStream.closeEntry();
+	}
+
+	private byte[] readBytes(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, read);
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Generate a minimal (Java 6) class file with no methods. The class is padded to
+	 * approximately the given size using an attribute that the JVM ignores. The padding
+	 * is made up of words commonly found in class files so that it compresses in a
+	 * similar way to real classes.
+	 * @param internalName the internal name of the class
+	 * @param size the approximate size of the class
+	 * @param random the source of randomness used for the padding
+	 * @return the class file bytes
+	 * @throws IOException
+	 */
+	static byte[] generateClass(String internalName, int size, Random random)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(size,
+				CLASS_HEADER_SIZE));
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0xCAFEBABE);
+		output.writeShort(0);
+		output.writeShort(50);
+		output.writeShort(6);
+		output.writeByte(1);
+		output.writeUTF(internalName);
+		output.writeByte(7);
+		output.writeShort(1);
+		output.writeByte(1);
+		output.writeUTF("java/lang/Object");
+		output.writeByte(7);
+		output.writeShort(3);
+		output.writeByte(1);
+		output.writeUTF("BenchmarkPadding");
+		output.writeShort(0x0021);
+		output.writeShort(2);
+		output.writeShort(4);
+		output.writeShort(0);
+		output.writeShort(0);
+		output.writeShort(0);
+		output.writeShort(1);
+		output.writeShort(5);
+		byte[] padding = generatePadding(size - output.size() - 4, random);
+		output.writeInt(padding.length);
+		output.write(padding);
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] generatePadding(int size, Random random) {
+		byte[] padding = new byte[Math.max(0, size)];
+		int i = 0;
+		while (i < padding.length) {
+			if (random.nextInt(4) == 0) {
+				padding[i++] = (byte) random.nextInt(256);
+			}
+			else {
+				String word = WORDS[random.nextInt(WORDS.length)];
+				for (int j = 0; j < word.length() && i < padding.length; j++) {
+					padding[i++] = (byte) word.charAt(j);
+				}
+			}
+		}
+		return padding;
+	}
+
+}
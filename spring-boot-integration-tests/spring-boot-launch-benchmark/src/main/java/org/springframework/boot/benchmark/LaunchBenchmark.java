@@ -0,0 +1,293 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Harness that measures how quickly executable jars start. A synthetic jar is generated
+ * (see {@link FatJarGenerator}) and launched in a fresh JVM a number of times. For each
+ * launch the time until the main method is called, the time until the first HTTP
+ * request is answered and the peak resident set size are recorded. A JSON summary of
+ * the distributions is written so that runs can be compared. No network access is
+ * required.
+ * <p>
+ * Usage: {@code LaunchBenchmark [--libraries=n] [--classes=n] [--class-size=bytes]
+ * [--stored|--compressed] [--depth=n] [--runs=n] [--warmups=n] [--timeout=seconds]
+ * [--work-dir=dir] [--jar=file] [--output=file] [--jvm-arg=arg]...}
+ * 
+ * @author Phillip Webb
+ * @see BenchmarkConfiguration
+ */
+public class LaunchBenchmark {
+
+	private static final int MAX_OUTPUT_LINES = 50;
+
+	private final BenchmarkConfiguration configuration;
+
+	public LaunchBenchmark(BenchmarkConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Run the benchmark, writing the summary to the configured output file.
+	 * @return the JSON summary
+	 * @throws Exception if the benchmark fails
+	 */
+	public String run() throws Exception {
+		File jar = this.configuration.getJar();
+		if (jar == null) {
+			File directory = this.configuration.getWorkDirectory();
+			directory.mkdirs();
+			System.out.println("Generating benchmark jar in " + directory);
+			jar = new FatJarGenerator(this.configuration).generate(directory);
+		}
+		for (int i = 0; i < this.configuration.getWarmups(); i++) {
+			launch(jar);
+		}
+		Distribution timeToMain = new Distribution();
+		Distribution timeToFirstRequest = new Distribution();
+		Distribution peakResidentSetSize = new Distribution();
+		for (int i = 0; i < this.configuration.getRuns(); i++) {
+			LaunchResult result = launch(jar);
+			System.out.println("Run " + (i + 1) + ": " + result);
+			timeToMain.add(result.getTimeToMain());
+			timeToFirstRequest.add(result.getTimeToFirstRequest());
+			peakResidentSetSize.add(result.getPeakResidentSetSize());
+		}
+		System.out.println("Time to main (ms): " + timeToMain);
+		System.out.println("Time to first request (ms): " + timeToFirstRequest);
+		System.out.println("Peak RSS (kB): " + peakResidentSetSize);
+		String summary = getSummary(jar, timeToMain, timeToFirstRequest,
+				peakResidentSetSize);
+		writeSummary(summary);
+		return summary;
+	}
+
+	/**
+	 * Launch the jar once in a fresh JVM.
+	 * @param jar the jar to launch
+	 * @return the result of the launch
+	 * @throws Exception if the launch fails
+	 */
+	LaunchResult launch(File jar) throws Exception {
+		List<String> command = new ArrayList<String>();
+		command.add(new File(System.getProperty("java.home"), "bin/java")
+				.getAbsolutePath());
+		command.addAll(this.configuration.getJvmArguments());
+		command.add("-jar");
+		command.add(jar.getAbsolutePath());
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectErrorStream(true);
+		long start = System.nanoTime();
+		final Process process = builder.start();
+		Timer timer = new Timer(true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				process.destroy();
+			}
+		}, this.configuration.getTimeout());
+		try {
+			return readResult(process, start);
+		}
+		finally {
+			timer.cancel();
+			process.destroy();
+		}
+	}
+
+	private LaunchResult readResult(Process process, long start) throws Exception {
+		LaunchResult result = new LaunchResult();
+		LinkedList<String> output = new LinkedList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				process.getInputStream()));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.equals(BenchmarkApplication.PREFIX + "main")) {
+				result.timeToMain = elapsed(start);
+			}
+			else if (line.startsWith(BenchmarkApplication.PREFIX + "listening ")) {
+				int port = Integer.parseInt(line.substring(line.indexOf(' ') + 1));
+				result.timeToFirstRequest = request(port, start);
+			}
+			else if (line.startsWith(BenchmarkApplication.PREFIX + "rss ")) {
+				result.peakResidentSetSize = Long.parseLong(line.substring(line
+						.indexOf(' ') + 1));
+			}
+			else {
+				output.add(line);
+				if (output.size() > MAX_OUTPUT_LINES) {
+					output.removeFirst();
+				}
+			}
+		}
+		int exitCode = process.waitFor();
+		if (exitCode != 0 || result.timeToFirstRequest < 0) {
+			StringBuilder message = new StringBuilder("Launch failed with exit code "
+					+ exitCode);
+			for (String outputLine : output) {
+				message.append("\n    ").append(outputLine);
+			}
+			throw new IllegalStateException(message.toString());
+		}
+		return result;
+	}
+
+	private long request(int port, long start) throws IOException {
+		Socket socket = new Socket("127.0.0.1", port);
+		try {
+			OutputStream outputStream = socket.getOutputStream();
+			outputStream.write("GET / HTTP/1.0\r\nHost: localhost\r\n\r\n"
+					.getBytes("US-ASCII"));
+			outputStream.flush();
+			InputStream inputStream = socket.getInputStream();
+			if (inputStream.read() == -1) {
+				throw new IOException("No response received");
+			}
+			long elapsed = elapsed(start);
+			byte[] buffer = new byte[1024];
+			while (inputStream.read(buffer) != -1) {
+				// Drain the response
+			}
+			return elapsed;
+		}
+		finally {
+			socket.close();
+		}
+	}
+
+	private long elapsed(long start) {
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	private String getSummary(File jar, Distribution timeToMain,
+			Distribution timeToFirstRequest, Distribution peakResidentSetSize) {
+		StringBuilder json = new StringBuilder("{\n");
+		json.append("  \"configuration\": {");
+		json.append("\"libraries\":").append(this.configuration.getLibraries());
+		json.append(",\"classesPerLibrary\":").append(
+				this.configuration.getClassesPerLibrary());
+		json.append(",\"classSize\":").append(this.configuration.getClassSize());
+		json.append(",\"compressed\":").append(this.configuration.isCompressed());
+		json.append(",\"packageDepth\":").append(this.configuration.getPackageDepth());
+		json.append(",\"runs\":").append(this.configuration.getRuns());
+		json.append(",\"warmups\":").append(this.configuration.getWarmups());
+		json.append(",\"jvmArguments\":[");
+		for (int i = 0; i < this.configuration.getJvmArguments().size(); i++) {
+			json.append(i == 0 ? "" : ",").append(
+					quote(this.configuration.getJvmArguments().get(i)));
+		}
+		json.append("]},\n");
+		json.append("  \"java\": {\"version\":")
+				.append(quote(System.getProperty("java.version")))
+				.append(",\"vendor\":").append(quote(System.getProperty("java.vendor")))
+				.append("},\n");
+		json.append("  \"jar\": {\"path\":").append(quote(jar.getAbsolutePath()))
+				.append(",\"size\":").append(jar.length()).append("},\n");
+		json.append("  \"timeToMain\": ").append(timeToMain.toJson()).append(",\n");
+		json.append("  \"timeToFirstRequest\": ").append(timeToFirstRequest.toJson())
+				.append(",\n");
+		json.append("  \"peakResidentSetSize\": ")
+				.append(peakResidentSetSize.toJson()).append("\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	private String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : String.valueOf(value).toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append("\"").toString();
+	}
+
+	private void writeSummary(String summary) throws IOException {
+		File output = this.configuration.getOutput();
+		if (output.getParentFile() != null) {
+			output.getParentFile().mkdirs();
+		}
+		Writer writer = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+		try {
+			writer.write(summary);
+		}
+		finally {
+			writer.close();
+		}
+		System.out.println("Summary written to " + output);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new LaunchBenchmark(BenchmarkConfiguration.parse(args)).run();
+	}
+
+	/**
+	 * The result of a single launch. Times are in milliseconds and the peak resident set
+	 * size is in kilobytes, values that could not be measured are {@code -1}.
+	 */
+	static class LaunchResult {
+
+		private long timeToMain = -1;
+
+		private long timeToFirstRequest = -1;
+
+		private long peakResidentSetSize = -1;
+
+		public long getTimeToMain() {
+			return this.timeToMain;
+		}
+
+		public long getTimeToFirstRequest() {
+			return this.timeToFirstRequest;
+		}
+
+		public long getPeakResidentSetSize() {
+			return this.peakResidentSetSize;
+		}
+
+		@Override
+		public String toString() {
+			return "main=" + this.timeToMain + "ms firstRequest="
+					+ this.timeToFirstRequest + "ms peakRss=" + this.peakResidentSetSize
+					+ "kB";
+		}
+
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link BenchmarkConfiguration}.
+ * 
+ * @author Phillip Webb
+ */
+public class BenchmarkConfigurationTests {
+
+	@Test
+	public void defaults() throws Exception {
+		BenchmarkConfiguration configuration = BenchmarkConfiguration.parse();
+		assertEquals(new File("target/launch-benchmark/summary.json"),
+				configuration.getOutput());
+		assertEquals(0, configuration.getJvmArguments().size());
+	}
+
+	@Test
+	public void parseOptions() throws Exception {
+		BenchmarkConfiguration configuration = BenchmarkConfiguration.parse(
+				"--libraries=5 --classes=10", "--stored", "--depth=6", "--runs=3",
+				"--warmups=0", "--timeout=5", "--work-dir=work",
+				"--jvm-arg=-Xmx64m", "");
+		assertEquals(5, configuration.getLibraries());
+		assertEquals(10, configuration.getClassesPerLibrary());
+		assertFalse(configuration.isCompressed());
+		assertEquals(6, configuration.getPackageDepth());
+		assertEquals(3, configuration.getRuns());
+		assertEquals(0, configuration.getWarmups());
+		assertEquals(5000, configuration.getTimeout());
+		assertEquals(new File("work/summary.json"), configuration.getOutput());
+		assertEquals("[-Xmx64m]", configuration.getJvmArguments().toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownOption() throws Exception {
+		BenchmarkConfiguration.parse("--unknown");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidNumber() throws Exception {
+		BenchmarkConfiguration.parse("--runs=many");
+	}
+
+}
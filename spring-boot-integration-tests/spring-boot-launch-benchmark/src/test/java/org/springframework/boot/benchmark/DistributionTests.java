@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link Distribution}.
+ * 
+ * @author Phillip Webb
+ */
+public class DistributionTests {
+
+	@Test
+	public void empty() throws Exception {
+		Distribution distribution = new Distribution();
+		assertEquals(0, distribution.getCount());
+		assertEquals(0, distribution.getPercentile(50));
+		assertThat(distribution.toJson(), containsString("\"samples\":[]"));
+	}
+
+	@Test
+	public void statistics() throws Exception {
+		Distribution distribution = new Distribution();
+		for (long sample : new long[] { 50, 10, 40, 20, 30, -1 }) {
+			distribution.add(sample);
+		}
+		assertEquals(5, distribution.getCount());
+		assertEquals(10, distribution.getMin());
+		assertEquals(50, distribution.getMax());
+		assertEquals(30.0, distribution.getMean(), 0.001);
+		assertEquals(30, distribution.getPercentile(50));
+		assertEquals(50, distribution.getPercentile(90));
+		assertEquals(10, distribution.getPercentile(0));
+	}
+
+	@Test
+	public void toJson() throws Exception {
+		Distribution distribution = new Distribution();
+		distribution.add(1);
+		distribution.add(2);
+		assertEquals("{\"count\":2,\"min\":1,\"max\":2,\"mean\":1.5,\"stddev\":0.7,"
+				+ "\"p50\":1,\"p90\":2,\"p99\":2,\"samples\":[1,2]}",
+				distribution.toJson());
+	}
+
+}
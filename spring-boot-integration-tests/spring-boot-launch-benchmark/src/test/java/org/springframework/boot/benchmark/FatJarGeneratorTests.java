@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.benchmark;
+
+import java.io.File;
+import java.util.Random;
+import java.util.jar.JarFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link FatJarGenerator}.
+ * 
+ * @author Phillip Webb
+ */
+public class FatJarGeneratorTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void generate() throws Exception {
+		BenchmarkConfiguration configuration = BenchmarkConfiguration
+				.parse("--libraries=3 --classes=5 --depth=5");
+		File jar = new FatJarGenerator(configuration).generate(this.temporaryFolder
+				.getRoot());
+		JarFile jarFile = new JarFile(jar);
+		try {
+			assertEquals(BenchmarkApplication.class.getName(), jarFile.getManifest()
+					.getMainAttributes().getValue("Start-Class"));
+			assertNotNull(jarFile.getEntry("lib/library0.jar"));
+			assertNotNull(jarFile.getEntry("lib/library2.jar"));
+			assertNotNull(jarFile.getEntry(BenchmarkApplication.CLASSES_RESOURCE));
+			assertNotNull(jarFile
+					.getEntry("org/springframework/boot/loader/JarLauncher.class"));
+		}
+		finally {
+			jarFile.close();
+		}
+		JarFile library = new JarFile(new File(this.temporaryFolder.getRoot(),
+				"lib/library1.jar"));
+		try {
+			assertNotNull(library
+					.getEntry("benchmark/library1/module3/module4/package3/Class3.class"));
+		}
+		finally {
+			library.close();
+		}
+	}
+
+	@Test
+	public void generatedClassCanBeDefined() throws Exception {
+		byte[] bytes = FatJarGenerator.generateClass("benchmark/Test", 1024,
+				new Random(0));
+		assertThat(bytes.length, greaterThan(1000));
+		assertThat(bytes.length, lessThan(1050));
+		Class<?> type = new TestClassLoader().define("benchmark.Test", bytes);
+		assertEquals(Object.class, type.getSuperclass());
+	}
+
+	private static class TestClassLoader extends ClassLoader {
+
+		public Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+	}
+
+}
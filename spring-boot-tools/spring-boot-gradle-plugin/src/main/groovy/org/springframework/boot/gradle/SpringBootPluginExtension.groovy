@@ -74,6 +74,14 @@ public class SpringBootPluginExtension {
 	 */
 	LayoutType layout;
 
+	/**
+	 * A file listing classes in the order that they are loaded when the application
+	 * starts, one class name per line (as recorded using -Dloader.trace.record). If
+	 * specified, the listed classes and the libraries that contain them are written
+	 * at the front of the archive.
+	 */
+	File classLoadOrder;
+
 	/**
 	 * Convenience method for use in a custom task.
 	 * 
@@ -54,6 +54,7 @@ public class Repackage extends DefaultTask {
 						repackager.setLayout(extension.convertLayout());
 					}
 					repackager.setBackupSource(extension.isBackupSource());
+					repackager.setClassLoadOrder(extension.getClassLoadOrder());
 					try {
 						repackager.repackage(libraries);
 					} catch (IOException ex) {
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The order in which classes are loaded when an application starts, used to write
+ * startup entries to the front of a repackaged archive. The order is read from a trace
+ * file containing one class name per line, as recorded by a launched application
+ * using {@code -Dloader.trace.record}.
+ * <p>
+ * A class is only loaded from the first location that contains it so source entries
+ * must be ordered before libraries.
+ * 
+ * @author Phillip Webb
+ */
+class ClassLoadOrder {
+
+	private static final String ENCODING = "UTF-8";
+
+	private static final String CLASS_SUFFIX = ".class";
+
+	private final Map<String, Integer> ranks = new HashMap<String, Integer>();
+
+	private final Set<String> claimed = new HashSet<String>();
+
+	/**
+	 * Create a new {@link ClassLoadOrder} instance.
+	 * @param classNames the names of the classes in load order
+	 */
+	public ClassLoadOrder(List<String> classNames) {
+		for (String className : classNames) {
+			String entryName = className.replace('.', '/') + CLASS_SUFFIX;
+			if (!this.ranks.containsKey(entryName)) {
+				this.ranks.put(entryName, this.ranks.size());
+			}
+		}
+	}
+
+	/**
+	 * Remove the entries of classes that are loaded at startup.
+	 * @param entries the source entries (startup entries are removed)
+	 * @param classesLocation the location of classes within the source
+	 * @return the removed entries in load order
+	 */
+	public List<JarEntry> removeStartupEntries(List<JarEntry> entries,
+			String classesLocation) {
+		final Map<JarEntry, Integer> startupEntries = new HashMap<JarEntry, Integer>();
+		Iterator<JarEntry> iterator = entries.iterator();
+		while (iterator.hasNext()) {
+			JarEntry entry = iterator.next();
+			String name = entry.getName();
+			if (name.startsWith(classesLocation)) {
+				name = name.substring(classesLocation.length());
+				Integer rank = this.ranks.get(name);
+				if (rank != null && this.claimed.add(name)) {
+					startupEntries.put(entry, rank);
+					iterator.remove();
+				}
+			}
+		}
+		List<JarEntry> ordered = new ArrayList<JarEntry>(startupEntries.keySet());
+		Collections.sort(ordered, new Comparator<JarEntry>() {
+			@Override
+			public int compare(JarEntry o1, JarEntry o2) {
+				return startupEntries.get(o1).compareTo(startupEntries.get(o2));
+			}
+		});
+		return ordered;
+	}
+
+	/**
+	 * Returns the libraries that classes are loaded from at startup, in load order. A
+	 * library is only moved ahead of libraries that it does not share any classes or
+	 * resources with (other than those in {@literal META-INF/}) so that class path
+	 * lookups find the same content as before. Libraries that must stay ahead of a
+	 * startup library are returned before it.
+	 * @param libraries the library files in class path order
+	 * @return the indexes of the libraries that should be written first
+	 * @throws IOException
+	 */
+	public List<Integer> getStartupLibraries(List<File> libraries) throws IOException {
+		final int[] ranks = new int[libraries.size()];
+		List<Set<Integer>> predecessors = new ArrayList<Set<Integer>>();
+		Map<String, Integer> owners = new HashMap<String, Integer>();
+		List<Integer> startupLibraries = new ArrayList<Integer>();
+		for (int i = 0; i < libraries.size(); i++) {
+			ranks[i] = Integer.MAX_VALUE;
+			predecessors.add(new HashSet<Integer>());
+			File file = libraries.get(i);
+			if (file.getName().endsWith(".jar")) {
+				readLibrary(i, file, ranks, predecessors.get(i), owners);
+			}
+			if (ranks[i] != Integer.MAX_VALUE) {
+				startupLibraries.add(i);
+			}
+		}
+		Collections.sort(startupLibraries, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Integer.valueOf(ranks[o1]).compareTo(ranks[o2]);
+			}
+		});
+		List<Integer> ordered = new ArrayList<Integer>();
+		boolean[] added = new boolean[libraries.size()];
+		for (Integer library : startupLibraries) {
+			addLibrary(library, predecessors, added, ordered);
+		}
+		return ordered;
+	}
+
+	private void readLibrary(int index, File file, int[] ranks,
+			Set<Integer> predecessors, Map<String, Integer> owners) throws IOException {
+		ZipFile zipFile = new ZipFile(file);
+		try {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				if (entry.isDirectory() || name.startsWith("META-INF/")) {
+					continue;
+				}
+				Integer owner = owners.get(name);
+				if (owner == null) {
+					owners.put(name, index);
+				}
+				else if (owner != index) {
+					predecessors.add(owner);
+				}
+				Integer rank = this.ranks.get(name);
+				if (rank != null && this.claimed.add(name)) {
+					ranks[index] = Math.min(ranks[index], rank);
+				}
+			}
+		}
+		finally {
+			zipFile.close();
+		}
+	}
+
+	private void addLibrary(int library, List<Set<Integer>> predecessors,
+			boolean[] added, List<Integer> ordered) {
+		if (!added[library]) {
+			added[library] = true;
+			for (Integer predecessor : new TreeSet<Integer>(predecessors.get(library))) {
+				addLibrary(predecessor, predecessors, added, ordered);
+			}
+			ordered.add(library);
+		}
+	}
+
+	/**
+	 * Load the class load order from a trace file.
+	 * @param file the trace file
+	 * @return the class load order
+	 * @throws IOException
+	 */
+	public static ClassLoadOrder load(File file) throws IOException {
+		List<String> classNames = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), ENCODING));
+		try {
+			String line = reader.readLine();
+			while (line != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					classNames.add(line);
+				}
+				line = reader.readLine();
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return new ClassLoadOrder(classNames);
+	}
+
+}
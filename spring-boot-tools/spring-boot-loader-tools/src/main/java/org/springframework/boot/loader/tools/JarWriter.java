@@ -23,14 +23,26 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.security.MessageDigest;
 import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
@@ -39,22 +51,56 @@ import java.util.jar.Manifest;
 import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 
+import org.springframework.boot.loader.tools.NestedJarIndexWriter.NestedJar;
+
 /**
  * Writes JAR content, ensuring valid directory entries are always create and duplicate
  * items are ignored.
+ * <p>
+ * Entries from source jars and nested libraries are read (and their CRCs calculated)
+ * concurrently by a pool of worker threads. The prepared entries are written by the
+ * calling thread in the order that they were added so the output does not depend on
+ * thread scheduling. Entries that do not specify a time are given the time passed to
+ * the constructor so that writing the same content always produces the same bytes.
  * 
  * @author Phillip Webb
  */
 class JarWriter {
 
-	private static final String NESTED_LOADER_JAR = "META-INF/loader/spring-boot-loader.jar";
+	static final String NESTED_LOADER_JAR = "META-INF/loader/spring-boot-loader.jar";
 
 	private static final int BUFFER_SIZE = 4096;
 
+	/**
+	 * The maximum size of content that a worker will read into memory. Larger content
+	 * is streamed by the writing thread.
+	 */
+	private static final int MAX_BUFFERED_SIZE = 4 * 1024 * 1024;
+
+	private static final int MAX_PENDING_BYTES = 32 * 1024 * 1024;
+
+	private static final int MAX_PENDING_ENTRIES = 512;
+
+	private final CountingOutputStream countingOutput;
+
 	private final JarOutputStream jarOutput;
 
 	private final Set<String> writtenEntries = new HashSet<String>();
 
+	private final NestedJarIndexWriter nestedJarIndex = new NestedJarIndexWriter();
+
+	private final long entryTime;
+
+	private final ExecutorService executor;
+
+	private final LinkedList<PendingEntry> pendingEntries = new LinkedList<PendingEntry>();
+
+	private long pendingBytes;
+
+	private JarFile previousJar;
+
+	private Map<String, NestedJar> previousNestedJars;
+
 	/**
 	 * Create a new {@link JarWriter} instance.
 	 * @param file the file to write
@@ -62,7 +108,37 @@ class JarWriter {
 	 * @throws FileNotFoundException
 	 */
 	public JarWriter(File file) throws FileNotFoundException, IOException {
-		this.jarOutput = new JarOutputStream(new FileOutputStream(file));
+		this(file, System.currentTimeMillis());
+	}
+
+	/**
+	 * Create a new {@link JarWriter} instance.
+	 * @param file the file to write
+	 * @param entryTime the time used for entries that do not specify one
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 */
+	public JarWriter(File file, long entryTime) throws FileNotFoundException,
+			IOException {
+		this.countingOutput = new CountingOutputStream(new FileOutputStream(file));
+		this.jarOutput = new JarOutputStream(this.countingOutput);
+		this.entryTime = entryTime;
+		this.executor = createExecutor(Runtime.getRuntime().availableProcessors());
+	}
+
+	private static ExecutorService createExecutor(int threads) {
+		if (threads <= 1) {
+			// Entries are prepared by the writing thread
+			return null;
+		}
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "jar-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 	}
 
 	/**
@@ -71,6 +147,7 @@ class JarWriter {
 	 * @throws IOException
 	 */
 	public void writeManifest(final Manifest manifest) throws IOException {
+		writePendingEntries();
 		JarEntry entry = new JarEntry("META-INF/MANIFEST.MF");
 		writeEntry(entry, new EntryWriter() {
 			@Override
@@ -86,25 +163,58 @@ class JarWriter {
 	 * @throws IOException
 	 */
 	public void writeEntries(JarFile jarFile) throws IOException {
-		Enumeration<JarEntry> entries = jarFile.entries();
-		while (entries.hasMoreElements()) {
-			JarEntry entry = entries.nextElement();
-			ZipHeaderPeekInputStream inputStream = new ZipHeaderPeekInputStream(
-					jarFile.getInputStream(entry));
-			try {
-				if (inputStream.hasZipHeader() && entry.getMethod() != ZipEntry.STORED) {
-					new CrcAndSize(inputStream).setupStoredEntry(entry);
-					inputStream.close();
-					inputStream = new ZipHeaderPeekInputStream(
-							jarFile.getInputStream(entry));
+		writeEntries(jarFile, Collections.list(jarFile.entries()));
+	}
+
+	/**
+	 * Write the given entries from the specified jar file, in the order provided.
+	 * @param jarFile the source jar file
+	 * @param entries the entries to write
+	 * @throws IOException
+	 */
+	public void writeEntries(final JarFile jarFile, List<JarEntry> entries)
+			throws IOException {
+		for (final JarEntry entry : entries) {
+			if (NestedJarIndexWriter.ENTRY_NAME.equals(entry.getName())) {
+				// Always rebuilt since offsets will change
+				continue;
+			}
+			addPendingEntry(new Callable<PreparedEntry>() {
+				@Override
+				public PreparedEntry call() throws IOException {
+					return prepareEntry(jarFile, entry);
 				}
-				EntryWriter entryWriter = new InputStreamEntryWriter(inputStream, true);
-				writeEntry(entry, entryWriter);
+			}, entry.getSize());
+		}
+	}
+
+	private PreparedEntry prepareEntry(final JarFile jarFile, final JarEntry entry)
+			throws IOException {
+		if (entry.getSize() >= 0 && entry.getSize() <= MAX_BUFFERED_SIZE) {
+			byte[] content = readContent(jarFile.getInputStream(entry), entry.getSize());
+			if (ZipHeaderPeekInputStream.hasZipHeader(content)
+					&& entry.getMethod() != ZipEntry.STORED) {
+				new CrcAndSize(content).setupStoredEntry(entry);
 			}
-			finally {
-				inputStream.close();
+			return new PreparedEntry(entry, new ByteArrayEntryWriter(content));
+		}
+		ZipHeaderPeekInputStream inputStream = new ZipHeaderPeekInputStream(
+				jarFile.getInputStream(entry));
+		try {
+			if (inputStream.hasZipHeader() && entry.getMethod() != ZipEntry.STORED) {
+				new CrcAndSize(inputStream).setupStoredEntry(entry);
 			}
 		}
+		finally {
+			inputStream.close();
+		}
+		return new PreparedEntry(entry, new EntryWriter() {
+			@Override
+			public void write(OutputStream outputStream) throws IOException {
+				new InputStreamEntryWriter(jarFile.getInputStream(entry), true)
+						.write(outputStream);
+			}
+		});
 	}
 
 	/**
@@ -113,10 +223,218 @@ class JarWriter {
 	 * @param file the library file
 	 * @throws IOException
 	 */
-	public void writeNestedLibrary(String destination, File file) throws IOException {
+	public void writeNestedLibrary(final String destination, final File file)
+			throws IOException {
+		addPendingEntry(new Callable<PreparedEntry>() {
+			@Override
+			public PreparedEntry call() throws IOException {
+				return prepareNestedLibrary(destination, file);
+			}
+		}, file.length());
+	}
+
+	private PreparedEntry prepareNestedLibrary(String destination, final File file)
+			throws IOException {
 		JarEntry entry = new JarEntry(destination + file.getName());
-		new CrcAndSize(file).setupStoredEntry(entry);
-		writeEntry(entry, new InputStreamEntryWriter(new FileInputStream(file), true));
+		// Jars are digested in the same pass as the CRC for the nested jar index
+		MessageDigest digest = (file.getName().endsWith(".jar") ? NestedJarIndexWriter
+				.createDigest() : null);
+		EntryWriter entryWriter;
+		if (file.length() <= MAX_BUFFERED_SIZE) {
+			byte[] content = readContent(new FileInputStream(file), file.length());
+			new CrcAndSize(content, digest).setupStoredEntry(entry);
+			entryWriter = new ByteArrayEntryWriter(content);
+		}
+		else {
+			new CrcAndSize(file, digest).setupStoredEntry(entry);
+			entryWriter = new EntryWriter() {
+				@Override
+				public void write(OutputStream outputStream) throws IOException {
+					new InputStreamEntryWriter(new FileInputStream(file), true)
+							.write(outputStream);
+				}
+			};
+		}
+		NestedJar nestedJar = (digest != null ? this.nestedJarIndex.readNestedJar(file,
+				digest.digest()) : null);
+		return new PreparedEntry(entry, entryWriter, nestedJar);
+	}
+
+	/**
+	 * Write a nested library by copying the stored entry that was written for it to a
+	 * previous jar. The content, CRC and index of the library are taken from the previous
+	 * jar so the library file itself is not read.
+	 * @param destination the destination of the library
+	 * @param file the library file
+	 * @param previousJar a jar previously written by this class
+	 * @return {@code true} if the library was copied or {@code false} if the previous jar
+	 * does not contain a stored entry for the library (in which case nothing is written)
+	 * @throws IOException
+	 */
+	public boolean copyNestedLibrary(String destination, File file,
+			final JarFile previousJar) throws IOException {
+		final JarEntry previousEntry = previousJar.getJarEntry(destination
+				+ file.getName());
+		if (previousEntry == null || previousEntry.getMethod() != ZipEntry.STORED) {
+			return false;
+		}
+		NestedJar nestedJar = null;
+		if (file.getName().endsWith(".jar")) {
+			nestedJar = getPreviousNestedJars(previousJar).get(
+					NestedJarIndexWriter.getKey(previousEntry.getSize(),
+							previousEntry.getCrc()));
+			if (nestedJar == null) {
+				return false;
+			}
+		}
+		final JarEntry entry = new JarEntry(previousEntry.getName());
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(previousEntry.getSize());
+		entry.setCompressedSize(previousEntry.getSize());
+		entry.setCrc(previousEntry.getCrc());
+		final NestedJar previousNestedJar = nestedJar;
+		addPendingEntry(new Callable<PreparedEntry>() {
+			@Override
+			public PreparedEntry call() throws IOException {
+				return prepareCopiedEntry(entry, previousJar, previousEntry,
+						previousNestedJar);
+			}
+		}, previousEntry.getSize());
+		return true;
+	}
+
+	private PreparedEntry prepareCopiedEntry(JarEntry entry, final JarFile previousJar,
+			final JarEntry previousEntry, NestedJar nestedJar) throws IOException {
+		EntryWriter entryWriter;
+		if (previousEntry.getSize() <= MAX_BUFFERED_SIZE) {
+			byte[] content = readContent(previousJar.getInputStream(previousEntry),
+					previousEntry.getSize());
+			entryWriter = new ByteArrayEntryWriter(content);
+		}
+		else {
+			entryWriter = new EntryWriter() {
+				@Override
+				public void write(OutputStream outputStream) throws IOException {
+					new InputStreamEntryWriter(previousJar.getInputStream(previousEntry),
+							true).write(outputStream);
+				}
+			};
+		}
+		return new PreparedEntry(entry, entryWriter, nestedJar);
+	}
+
+	private Map<String, NestedJar> getPreviousNestedJars(JarFile previousJar)
+			throws IOException {
+		if (previousJar != this.previousJar) {
+			this.previousJar = previousJar;
+			this.previousNestedJars = Collections.emptyMap();
+			ZipEntry indexEntry = previousJar.getEntry(NestedJarIndexWriter.ENTRY_NAME);
+			if (indexEntry != null) {
+				InputStream inputStream = new BufferedInputStream(
+						previousJar.getInputStream(indexEntry));
+				try {
+					this.previousNestedJars = NestedJarIndexWriter
+							.readNestedJars(inputStream);
+				}
+				catch (IOException ex) {
+					// Unsupported index, libraries will be written again
+				}
+				finally {
+					inputStream.close();
+				}
+			}
+		}
+		return this.previousNestedJars;
+	}
+
+	/**
+	 * Add an entry that will be prepared by a worker thread and written once all
+	 * previously added entries have been written. If too much content is pending the
+	 * oldest entries are written before this method returns.
+	 * @param task the task that prepares the entry
+	 * @param size the expected size of the entry content
+	 * @throws IOException
+	 */
+	private void addPendingEntry(Callable<PreparedEntry> task, long size)
+			throws IOException {
+		size = Math.max(0, Math.min(size, MAX_BUFFERED_SIZE));
+		Future<PreparedEntry> future;
+		if (this.executor != null) {
+			future = this.executor.submit(task);
+		}
+		else {
+			FutureTask<PreparedEntry> futureTask = new FutureTask<PreparedEntry>(task);
+			futureTask.run();
+			future = futureTask;
+		}
+		this.pendingEntries.add(new PendingEntry(future, size));
+		this.pendingBytes += size;
+		while (this.pendingEntries.size() > MAX_PENDING_ENTRIES
+				|| this.pendingBytes > MAX_PENDING_BYTES) {
+			writePendingEntry();
+		}
+	}
+
+	/**
+	 * Write all pending entries.
+	 * @throws IOException
+	 */
+	private void writePendingEntries() throws IOException {
+		while (!this.pendingEntries.isEmpty()) {
+			writePendingEntry();
+		}
+	}
+
+	private void writePendingEntry() throws IOException {
+		PendingEntry pendingEntry = this.pendingEntries.removeFirst();
+		this.pendingBytes -= pendingEntry.getSize();
+		PreparedEntry preparedEntry = pendingEntry.get();
+		JarEntry entry = preparedEntry.getEntry();
+		long[] offsets = writeEntry(entry, preparedEntry.getEntryWriter());
+		if (offsets != null && preparedEntry.getNestedJar() != null) {
+			this.nestedJarIndex.add(preparedEntry.getNestedJar(), offsets[0],
+					offsets[1], entry.getSize(), entry.getCrc());
+		}
+	}
+
+	private static byte[] readContent(InputStream inputStream, long size)
+			throws IOException {
+		try {
+			byte[] content = new byte[(int) size];
+			int offset = 0;
+			while (offset < content.length) {
+				int read = inputStream.read(content, offset, content.length - offset);
+				if (read == -1) {
+					throw new IOException("Unexpected end of stream");
+				}
+				offset += read;
+			}
+			if (inputStream.read() != -1) {
+				throw new IOException("Content is larger than expected");
+			}
+			return content;
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Write an index describing the location and layout of all nested libraries written
+	 * so far. The index allows the launcher to open nested jars without scanning them.
+	 * Should be called after all nested libraries have been written.
+	 * @throws IOException
+	 */
+	public void writeNestedJarIndex() throws IOException {
+		writePendingEntries();
+		if (this.nestedJarIndex.isEmpty()) {
+			return;
+		}
+		byte[] bytes = this.nestedJarIndex.toByteArray();
+		JarEntry entry = new JarEntry(NestedJarIndexWriter.ENTRY_NAME);
+		new CrcAndSize(new ByteArrayInputStream(bytes)).setupStoredEntry(entry);
+		writeEntry(entry, new InputStreamEntryWriter(new ByteArrayInputStream(bytes),
+				true));
 	}
 
 	/**
@@ -124,6 +442,7 @@ class JarWriter {
 	 * @throws IOException
 	 */
 	public void writeLoaderClasses() throws IOException {
+		writePendingEntries();
 		URL loaderJar = getClass().getClassLoader().getResource(NESTED_LOADER_JAR);
 		JarInputStream inputStream = new JarInputStream(new BufferedInputStream(
 				loaderJar.openStream()));
@@ -141,7 +460,19 @@ class JarWriter {
 	 * @throws IOException
 	 */
 	public void close() throws IOException {
-		this.jarOutput.close();
+		try {
+			try {
+				writePendingEntries();
+			}
+			finally {
+				this.jarOutput.close();
+			}
+		}
+		finally {
+			if (this.executor != null) {
+				this.executor.shutdownNow();
+			}
+		}
 	}
 
 	/**
@@ -149,9 +480,12 @@ class JarWriter {
 	 * delegate to this one.
 	 * @param entry the entry to write
 	 * @param entryWriter the entry writer or {@code null} if there is no content
+	 * @return the offsets of the local header and data of the written entry or
+	 * {@code null} if the entry was not written because it is a duplicate
 	 * @throws IOException
 	 */
-	private void writeEntry(JarEntry entry, EntryWriter entryWriter) throws IOException {
+	private long[] writeEntry(JarEntry entry, EntryWriter entryWriter)
+			throws IOException {
 		String parent = entry.getName();
 		if (parent.endsWith("/")) {
 			parent = parent.substring(0, parent.length() - 1);
@@ -164,12 +498,21 @@ class JarWriter {
 		}
 
 		if (this.writtenEntries.add(entry.getName())) {
+			if (entry.getTime() == -1) {
+				entry.setTime(this.entryTime);
+			}
+			this.jarOutput.flush();
+			long localHeaderOffset = this.countingOutput.getCount();
 			this.jarOutput.putNextEntry(entry);
+			this.jarOutput.flush();
+			long dataOffset = this.countingOutput.getCount();
 			if (entryWriter != null) {
 				entryWriter.write(this.jarOutput);
 			}
 			this.jarOutput.closeEntry();
+			return new long[] { localHeaderOffset, dataOffset };
 		}
+		return null;
 	}
 
 	/**
@@ -214,6 +557,129 @@ class JarWriter {
 
 	}
 
+	/**
+	 * {@link EntryWriter} that writes content that has already been read into memory.
+	 */
+	private static class ByteArrayEntryWriter implements EntryWriter {
+
+		private final byte[] content;
+
+		public ByteArrayEntryWriter(byte[] content) {
+			this.content = content;
+		}
+
+		@Override
+		public void write(OutputStream outputStream) throws IOException {
+			outputStream.write(this.content);
+			outputStream.flush();
+		}
+
+	}
+
+	/**
+	 * An entry that has been prepared for writing.
+	 */
+	private static class PreparedEntry {
+
+		private final JarEntry entry;
+
+		private final EntryWriter entryWriter;
+
+		private final NestedJar nestedJar;
+
+		public PreparedEntry(JarEntry entry, EntryWriter entryWriter) {
+			this(entry, entryWriter, null);
+		}
+
+		public PreparedEntry(JarEntry entry, EntryWriter entryWriter,
+				NestedJar nestedJar) {
+			this.entry = entry;
+			this.entryWriter = entryWriter;
+			this.nestedJar = nestedJar;
+		}
+
+		public JarEntry getEntry() {
+			return this.entry;
+		}
+
+		public EntryWriter getEntryWriter() {
+			return this.entryWriter;
+		}
+
+		public NestedJar getNestedJar() {
+			return this.nestedJar;
+		}
+
+	}
+
+	/**
+	 * An entry that is being prepared by a worker thread.
+	 */
+	private static class PendingEntry {
+
+		private final Future<PreparedEntry> future;
+
+		private final long size;
+
+		public PendingEntry(Future<PreparedEntry> future, long size) {
+			this.future = future;
+			this.size = size;
+		}
+
+		public PreparedEntry get() throws IOException {
+			try {
+				return this.future.get();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while preparing jar entry");
+			}
+			catch (ExecutionException ex) {
+				if (ex.getCause() instanceof IOException) {
+					throw (IOException) ex.getCause();
+				}
+				if (ex.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ex.getCause();
+				}
+				throw new IllegalStateException(ex.getCause());
+			}
+		}
+
+		public long getSize() {
+			return this.size;
+		}
+
+	}
+
+	/**
+	 * {@link OutputStream} that counts the bytes written to the underlying stream.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+	}
+
 	/**
 	 * {@link InputStream} that can peek ahead at zip header bytes.
 	 */
@@ -261,6 +727,18 @@ class JarWriter {
 		public boolean hasZipHeader() {
 			return Arrays.equals(this.header, ZIP_HEADER);
 		}
+
+		public static boolean hasZipHeader(byte[] content) {
+			if (content.length < ZIP_HEADER.length) {
+				return false;
+			}
+			for (int i = 0; i < ZIP_HEADER.length; i++) {
+				if (content[i] != ZIP_HEADER[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
 	}
 
 	/**
@@ -270,9 +748,12 @@ class JarWriter {
 
 		private final CRC32 crc = new CRC32();
 
+		private final MessageDigest digest;
+
 		private long size;
 
-		public CrcAndSize(File file) throws IOException {
+		public CrcAndSize(File file, MessageDigest digest) throws IOException {
+			this.digest = digest;
 			FileInputStream inputStream = new FileInputStream(file);
 			try {
 				load(inputStream);
@@ -283,14 +764,31 @@ class JarWriter {
 		}
 
 		public CrcAndSize(InputStream inputStream) throws IOException {
+			this.digest = null;
 			load(inputStream);
 		}
 
+		public CrcAndSize(byte[] content) {
+			this(content, null);
+		}
+
+		public CrcAndSize(byte[] content, MessageDigest digest) {
+			this.digest = digest;
+			this.crc.update(content);
+			this.size = content.length;
+			if (digest != null) {
+				digest.update(content);
+			}
+		}
+
 		private void load(InputStream inputStream) throws IOException {
 			byte[] buffer = new byte[BUFFER_SIZE];
 			int bytesRead = -1;
 			while ((bytesRead = inputStream.read(buffer)) != -1) {
 				this.crc.update(buffer, 0, bytesRead);
+				if (this.digest != null) {
+					this.digest.update(buffer, 0, bytesRead);
+				}
 				this.size += bytesRead;
 			}
 		}
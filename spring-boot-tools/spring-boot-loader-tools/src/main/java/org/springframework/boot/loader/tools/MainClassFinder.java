@@ -16,12 +16,13 @@
 
 package org.springframework.boot.loader.tools;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +31,13 @@ import java.util.Comparator;
 import java.util.Deque;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -42,6 +50,10 @@ import org.objectweb.asm.Type;
 /**
  * Finds any class with a {@code public static main} method by performing a breadth first
  * search.
+ * <p>
+ * Classes are only visited if their constant pool contains both the {@code main} name
+ * and descriptor. Jar entries at the same depth are checked concurrently and the search
+ * stops at the first depth that contains a main class.
  * 
  * @author Phillip Webb
  */
@@ -56,6 +68,15 @@ public abstract class MainClassFinder {
 
 	private static final String MAIN_METHOD_NAME = "main";
 
+	private static final byte[] MAIN_METHOD_NAME_BYTES = getBytes(MAIN_METHOD_NAME);
+
+	private static final byte[] MAIN_METHOD_DESCRIPTOR_BYTES = getBytes(MAIN_METHOD_TYPE
+			.getDescriptor());
+
+	private static final int CONSTANT_UTF8 = 1;
+
+	private static final int BUFFER_SIZE = 4096;
+
 	private static final FileFilter CLASS_FILE_FILTER = new FileFilter() {
 		@Override
 		public boolean accept(File file) {
@@ -135,21 +156,113 @@ public abstract class MainClassFinder {
 			throws IOException {
 		List<JarEntry> classEntries = getClassEntries(jarFile, classesLocation);
 		Collections.sort(classEntries, new ClassEntryComparator());
-		for (JarEntry entry : classEntries) {
-			InputStream inputStream = new BufferedInputStream(
-					jarFile.getInputStream(entry));
-			try {
-				if (isMainClass(inputStream)) {
-					String name = entry.getName();
-					name = convertToClassName(name, classesLocation);
-					return name;
+		ExecutorService executor = createExecutor(Math.min(Runtime.getRuntime()
+				.availableProcessors(), classEntries.size()));
+		try {
+			int start = 0;
+			while (start < classEntries.size()) {
+				int depth = ClassEntryComparator.getDepth(classEntries.get(start));
+				int end = start + 1;
+				while (end < classEntries.size()
+						&& ClassEntryComparator.getDepth(classEntries.get(end)) == depth) {
+					end++;
+				}
+				JarEntry mainEntry = findMainClassEntry(jarFile,
+						classEntries.subList(start, end), executor);
+				if (mainEntry != null) {
+					return convertToClassName(mainEntry.getName(), classesLocation);
 				}
+				start = end;
 			}
-			finally {
-				inputStream.close();
+			return null;
+		}
+		finally {
+			if (executor != null) {
+				executor.shutdownNow();
 			}
 		}
-		return null;
+	}
+
+	private static ExecutorService createExecutor(int threads) {
+		if (threads <= 1) {
+			// Entries are checked by the calling thread
+			return null;
+		}
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "main-class-finder");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Find the first main class entry from entries at the same depth. Entries after a
+	 * main class that has already been found are not checked.
+	 */
+	private static JarEntry findMainClassEntry(final JarFile jarFile,
+			final List<JarEntry> entries, ExecutorService executor) throws IOException {
+		if (executor == null) {
+			for (JarEntry entry : entries) {
+				if (isMainClass(jarFile, entry)) {
+					return entry;
+				}
+			}
+			return null;
+		}
+		final AtomicInteger found = new AtomicInteger(entries.size());
+		List<Future<?>> futures = new ArrayList<Future<?>>(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			final int index = i;
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					if (index < found.get() && isMainClass(jarFile, entries.get(index))) {
+						int current = found.get();
+						while (index < current && !found.compareAndSet(current, index)) {
+							current = found.get();
+						}
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			get(future);
+		}
+		return (found.get() < entries.size() ? entries.get(found.get()) : null);
+	}
+
+	private static void get(Future<?> future) throws IOException {
+		try {
+			future.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while finding main class");
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	private static boolean isMainClass(JarFile jarFile, JarEntry entry)
+			throws IOException {
+		InputStream inputStream = jarFile.getInputStream(entry);
+		try {
+			return isMainClass(inputStream);
+		}
+		finally {
+			inputStream.close();
+		}
 	}
 
 	private static String convertToClassName(String name, String prefix) {
@@ -178,9 +291,14 @@ public abstract class MainClassFinder {
 
 	private static boolean isMainClass(InputStream inputStream) {
 		try {
-			ClassReader classReader = new ClassReader(inputStream);
+			byte[] bytes = readBytes(inputStream);
+			ClassReader classReader = new ClassReader(bytes);
+			if (!hasMainMethodConstants(classReader, bytes)) {
+				return false;
+			}
 			MainMethodFinder mainMethodFinder = new MainMethodFinder();
-			classReader.accept(mainMethodFinder, ClassReader.SKIP_CODE);
+			classReader.accept(mainMethodFinder, ClassReader.SKIP_CODE
+					| ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 			return mainMethodFinder.isFound();
 		}
 		catch (IOException ex) {
@@ -188,6 +306,59 @@ public abstract class MainClassFinder {
 		}
 	}
 
+	/**
+	 * Returns {@code true} if the constant pool contains both the name and the descriptor
+	 * of a main method, which must be true of any class that declares one.
+	 */
+	private static boolean hasMainMethodConstants(ClassReader classReader, byte[] bytes) {
+		boolean name = false;
+		boolean descriptor = false;
+		for (int i = 1; i < classReader.getItemCount(); i++) {
+			int offset = classReader.getItem(i);
+			if (offset > 0 && bytes[offset - 1] == CONSTANT_UTF8) {
+				name = name || isUtf8(bytes, offset, MAIN_METHOD_NAME_BYTES);
+				descriptor = descriptor
+						|| isUtf8(bytes, offset, MAIN_METHOD_DESCRIPTOR_BYTES);
+				if (name && descriptor) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isUtf8(byte[] bytes, int offset, byte[] expected) {
+		int length = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+		if (length != expected.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (bytes[offset + 2 + i] != expected[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] readBytes(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, bytesRead);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private static byte[] getBytes(String value) {
+		try {
+			return value.getBytes("UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 	private static class ClassEntryComparator implements Comparator<JarEntry> {
 
 		@Override
@@ -201,7 +372,7 @@ public abstract class MainClassFinder {
 			return o1.getName().compareTo(o2.getName());
 		}
 
-		private int getDepth(JarEntry entry) {
+		public static int getDepth(JarEntry entry) {
 			return entry.getName().split("/").length;
 		}
 
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the nested jar index that is written to repackaged archives. The index records
+ * the location of each nested jar and the layout of its entries so that the launcher
+ * does not need to scan nested jars at startup.
+ * <p>
+ * The content digest allows the launcher to find a previously extracted copy of a nested
+ * jar without reading the jar itself.
+ * <p>
+ * The index is a big-endian binary file with the following structure:
+ * 
+ * <pre>
+ * int   magic (0x4E4A4958)
+ * short version
+ * int   jar count
+ * for each jar (fixed size so that the table can be searched without parsing entries):
+ *   long  local header offset (relative to the start of the archive)
+ *   long  data offset (relative to the start of the archive)
+ *   long  size
+ *   long  crc
+ *   byte[32] SHA-256 digest of the jar content
+ *   int   entry count
+ *   int   offset of the first entry (relative to the start of the index)
+ * for each entry of each jar:
+ *   short name length, followed by the UTF-8 name bytes
+ *   int   local header offset (relative to the start of the nested jar)
+ *   int   data offset (relative to the start of the nested jar)
+ *   int   compressed size
+ *   int   size
+ *   int   crc
+ *   short method
+ *   int   time (MS-DOS date and time, converted when the index is read)
+ *   short extra length, followed by the extra bytes
+ *   short comment length, followed by the UTF-8 comment bytes
+ * </pre>
+ * 
+ * The format must be kept in sync with
+ * {@code org.springframework.boot.loader.jar.NestedJarIndex}.
+ * 
+ * @author Phillip Webb
+ */
+class NestedJarIndexWriter {
+
+	/**
+	 * The name of the jar entry that contains the index.
+	 */
+	public static final String ENTRY_NAME = "META-INF/spring-boot-nested-jars.idx";
+
+	private static final int MAGIC = 0x4E4A4958;
+
+	private static final int VERSION = 3;
+
+	private static final int HEADER_SIZE = 10;
+
+	private static final int JAR_RECORD_SIZE = 72;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final int DIGEST_SIZE = 32;
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	private static final int END_RECORD_SIGNATURE = 0x06054b50;
+
+	private static final int END_RECORD_MINIMUM_SIZE = 22;
+
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+	private final ByteArrayOutputStream jarRecords = new ByteArrayOutputStream();
+
+	private final DataOutputStream jarOutput = new DataOutputStream(this.jarRecords);
+
+	private final ByteArrayOutputStream entryRecords = new ByteArrayOutputStream();
+
+	private final DataOutputStream entryOutput = new DataOutputStream(
+			this.entryRecords);
+
+	private final List<Integer> entryOffsets = new ArrayList<Integer>();
+
+	private int jarCount;
+
+	/**
+	 * Add a nested jar to the index.
+	 * @param file the nested jar file
+	 * @param localHeaderOffset the offset of the local header in the archive
+	 * @param dataOffset the offset of the jar data in the archive
+	 * @param size the size of the jar
+	 * @param crc the CRC of the jar
+	 * @throws IOException
+	 */
+	public void add(File file, long localHeaderOffset, long dataOffset, long size,
+			long crc) throws IOException {
+		add(readNestedJar(file), localHeaderOffset, dataOffset, size, crc);
+	}
+
+	/**
+	 * Add a nested jar that has already been read to the index.
+	 * @param nestedJar the nested jar (see {@link #readNestedJar(File)})
+	 * @param localHeaderOffset the offset of the local header in the archive
+	 * @param dataOffset the offset of the jar data in the archive
+	 * @param size the size of the jar
+	 * @param crc the CRC of the jar
+	 * @throws IOException
+	 */
+	public void add(NestedJar nestedJar, long localHeaderOffset, long dataOffset,
+			long size, long crc) throws IOException {
+		List<IndexedEntry> entries = nestedJar.entries;
+		this.jarOutput.writeLong(localHeaderOffset);
+		this.jarOutput.writeLong(dataOffset);
+		this.jarOutput.writeLong(size);
+		this.jarOutput.writeLong(crc);
+		this.jarOutput.write(nestedJar.digest);
+		this.jarOutput.writeInt(entries.size());
+		this.entryOffsets.add(this.entryOutput.size());
+		for (IndexedEntry entry : entries) {
+			entry.write(this.entryOutput);
+		}
+		this.jarCount++;
+	}
+
+	/**
+	 * Returns {@code true} if no jars have been added.
+	 * @return if the index is empty
+	 */
+	public boolean isEmpty() {
+		return this.jarCount == 0;
+	}
+
+	/**
+	 * Returns the bytes of the index.
+	 * @return the index bytes
+	 * @throws IOException
+	 */
+	public byte[] toByteArray() throws IOException {
+		this.jarOutput.flush();
+		this.entryOutput.flush();
+		byte[] jarRecords = this.jarRecords.toByteArray();
+		int entriesStart = HEADER_SIZE + this.jarCount * JAR_RECORD_SIZE;
+		ByteArrayOutputStream result = new ByteArrayOutputStream(entriesStart
+				+ this.entryRecords.size());
+		DataOutputStream output = new DataOutputStream(result);
+		output.writeInt(MAGIC);
+		output.writeShort(VERSION);
+		output.writeInt(this.jarCount);
+		for (int i = 0; i < this.jarCount; i++) {
+			output.write(jarRecords, i * (JAR_RECORD_SIZE - 4), JAR_RECORD_SIZE - 4);
+			output.writeInt(entriesStart + this.entryOffsets.get(i));
+		}
+		this.entryRecords.writeTo(output);
+		output.flush();
+		return result.toByteArray();
+	}
+
+	/**
+	 * Read the entries of a nested jar so that it can be {@link #add(NestedJar, long,
+	 * long, long, long) added} later. This method does not change the state of the
+	 * writer and may be called concurrently.
+	 * @param file the nested jar file
+	 * @return the nested jar
+	 * @throws IOException
+	 */
+	public NestedJar readNestedJar(File file) throws IOException {
+		MessageDigest digest = createDigest();
+		InputStream inputStream = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int bytesRead;
+			while ((bytesRead = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, bytesRead);
+			}
+		}
+		finally {
+			inputStream.close();
+		}
+		return readNestedJar(file, digest.digest());
+	}
+
+	/**
+	 * Read the entries of a nested jar whose content digest has already been calculated
+	 * using a {@link #createDigest() digest} from this class.
+	 * @param file the nested jar file
+	 * @param digest the digest of the file content
+	 * @return the nested jar
+	 * @throws IOException
+	 * @see #readNestedJar(File)
+	 */
+	public NestedJar readNestedJar(File file, byte[] digest) throws IOException {
+		if (digest.length != DIGEST_SIZE) {
+			throw new IllegalArgumentException("Invalid digest for " + file);
+		}
+		return new NestedJar(readEntries(file), digest);
+	}
+
+	/**
+	 * Create a new digest for calculating the content digest of a nested jar.
+	 * @return the digest
+	 */
+	public static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Read the nested jars from an index that was previously written by this class.
+	 * Entries within a nested jar are relative to the start of the jar so they remain
+	 * valid when the jar is copied to a different offset.
+	 * @param inputStream the index content (not closed by this method)
+	 * @return the nested jars keyed using {@link #getKey(long, long)}
+	 * @throws IOException
+	 */
+	public static Map<String, NestedJar> readNestedJars(InputStream inputStream)
+			throws IOException {
+		DataInputStream input = new DataInputStream(inputStream);
+		if (input.readInt() != MAGIC || input.readShort() != VERSION) {
+			throw new IOException("Unsupported nested jar index");
+		}
+		int jarCount = input.readInt();
+		String[] keys = new String[jarCount];
+		byte[][] digests = new byte[jarCount][DIGEST_SIZE];
+		int[] entryCounts = new int[jarCount];
+		for (int i = 0; i < jarCount; i++) {
+			input.readLong();
+			input.readLong();
+			long size = input.readLong();
+			long crc = input.readLong();
+			keys[i] = getKey(size, crc);
+			input.readFully(digests[i]);
+			entryCounts[i] = input.readInt();
+			input.readInt();
+		}
+		// Entries are written in the same order as the jars
+		Map<String, NestedJar> nestedJars = new HashMap<String, NestedJar>();
+		for (int i = 0; i < jarCount; i++) {
+			List<IndexedEntry> entries = new ArrayList<IndexedEntry>(entryCounts[i]);
+			for (int j = 0; j < entryCounts[i]; j++) {
+				entries.add(new IndexedEntry(input));
+			}
+			nestedJars.put(keys[i], new NestedJar(entries, digests[i]));
+		}
+		return nestedJars;
+	}
+
+	/**
+	 * Returns the key used to identify a nested jar read using
+	 * {@link #readNestedJars(InputStream)}.
+	 * @param size the size of the jar
+	 * @param crc the CRC of the jar
+	 * @return the key
+	 */
+	public static String getKey(long size, long crc) {
+		return size + ":" + crc;
+	}
+
+	private List<IndexedEntry> readEntries(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			long endRecordOffset = findEndRecord(randomAccessFile);
+			byte[] endRecord = read(randomAccessFile, endRecordOffset,
+					END_RECORD_MINIMUM_SIZE);
+			int numberOfRecords = (int) getValue(endRecord, 10, 2);
+			long centralDirectorySize = getValue(endRecord, 12, 4);
+			long centralDirectoryOffset = endRecordOffset - centralDirectorySize;
+			// Allow for bytes prefixed to the archive
+			long startOfArchive = centralDirectoryOffset - getValue(endRecord, 16, 4);
+			byte[] centralDirectory = read(randomAccessFile, centralDirectoryOffset,
+					(int) centralDirectorySize);
+			List<IndexedEntry> entries = new ArrayList<IndexedEntry>(numberOfRecords);
+			int position = 0;
+			for (int i = 0; i < numberOfRecords; i++) {
+				if (getValue(centralDirectory, position, 4) != CENTRAL_DIRECTORY_SIGNATURE) {
+					throw new IOException("Invalid central directory in " + file);
+				}
+				IndexedEntry entry = new IndexedEntry(centralDirectory, position,
+						startOfArchive);
+				byte[] localHeader = read(randomAccessFile, entry.localHeaderOffset,
+						LOCAL_FILE_HEADER_SIZE);
+				entry.dataOffset = entry.localHeaderOffset + LOCAL_FILE_HEADER_SIZE
+						+ getValue(localHeader, 26, 2) + getValue(localHeader, 28, 2);
+				entries.add(entry);
+				position += CENTRAL_DIRECTORY_HEADER_SIZE
+						+ getValue(centralDirectory, position + 28, 2)
+						+ getValue(centralDirectory, position + 30, 2)
+						+ getValue(centralDirectory, position + 32, 2);
+			}
+			return entries;
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private long findEndRecord(RandomAccessFile file) throws IOException {
+		int length = (int) Math.min(file.length(), END_RECORD_MINIMUM_SIZE + 0xFFFF);
+		long blockOffset = file.length() - length;
+		byte[] block = read(file, blockOffset, length);
+		for (int offset = length - END_RECORD_MINIMUM_SIZE; offset >= 0; offset--) {
+			if (getValue(block, offset, 4) == END_RECORD_SIGNATURE
+					&& offset + END_RECORD_MINIMUM_SIZE + getValue(block, offset + 20, 2) == length) {
+				return blockOffset + offset;
+			}
+		}
+		throw new IOException("Unable to find end of central directory record");
+	}
+
+	private byte[] read(RandomAccessFile file, long offset, int length)
+			throws IOException {
+		byte[] bytes = new byte[length];
+		file.seek(offset);
+		file.readFully(bytes);
+		return bytes;
+	}
+
+	private static long getValue(byte[] bytes, int offset, int length) {
+		long value = 0;
+		for (int i = length - 1; i >= 0; i--) {
+			value = ((value << 8) | (bytes[offset + i] & 0xFF));
+		}
+		return value;
+	}
+
+	/**
+	 * The entries of a nested jar that has been read but not yet added to the index.
+	 */
+	static class NestedJar {
+
+		private final List<IndexedEntry> entries;
+
+		private final byte[] digest;
+
+		private NestedJar(List<IndexedEntry> entries, byte[] digest) {
+			this.entries = entries;
+			this.digest = digest;
+		}
+
+	}
+
+	/**
+	 * A single entry of a nested jar.
+	 */
+	private static class IndexedEntry {
+
+		private final String name;
+
+		private final long localHeaderOffset;
+
+		private long dataOffset;
+
+		private final long compressedSize;
+
+		private final long size;
+
+		private final long crc;
+
+		private final int method;
+
+		private final long time;
+
+		private final byte[] extra;
+
+		private final String comment;
+
+		public IndexedEntry(byte[] centralDirectory, int offset, long startOfArchive)
+				throws IOException {
+			int nameLength = (int) getValue(centralDirectory, offset + 28, 2);
+			int extraLength = (int) getValue(centralDirectory, offset + 30, 2);
+			int commentLength = (int) getValue(centralDirectory, offset + 32, 2);
+			int nameOffset = offset + CENTRAL_DIRECTORY_HEADER_SIZE;
+			this.name = new String(centralDirectory, nameOffset, nameLength, "UTF-8");
+			this.method = (int) getValue(centralDirectory, offset + 10, 2);
+			this.time = getValue(centralDirectory, offset + 12, 4);
+			this.crc = getValue(centralDirectory, offset + 16, 4);
+			this.compressedSize = getValue(centralDirectory, offset + 20, 4);
+			this.size = getValue(centralDirectory, offset + 24, 4);
+			this.localHeaderOffset = startOfArchive
+					+ getValue(centralDirectory, offset + 42, 4);
+			this.extra = new byte[extraLength];
+			System.arraycopy(centralDirectory, nameOffset + nameLength, this.extra, 0,
+					extraLength);
+			this.comment = new String(centralDirectory, nameOffset + nameLength
+					+ extraLength, commentLength, "UTF-8");
+		}
+
+		public IndexedEntry(DataInputStream input) throws IOException {
+			this.name = readString(input);
+			this.localHeaderOffset = input.readInt() & 0xFFFFFFFFL;
+			this.dataOffset = input.readInt() & 0xFFFFFFFFL;
+			this.compressedSize = input.readInt() & 0xFFFFFFFFL;
+			this.size = input.readInt() & 0xFFFFFFFFL;
+			this.crc = input.readInt() & 0xFFFFFFFFL;
+			this.method = input.readUnsignedShort();
+			this.time = input.readInt() & 0xFFFFFFFFL;
+			this.extra = new byte[input.readUnsignedShort()];
+			input.readFully(this.extra);
+			this.comment = readString(input);
+		}
+
+		private static String readString(DataInputStream input) throws IOException {
+			byte[] bytes = new byte[input.readUnsignedShort()];
+			input.readFully(bytes);
+			return new String(bytes, "UTF-8");
+		}
+
+		public void write(DataOutputStream output) throws IOException {
+			byte[] name = this.name.getBytes("UTF-8");
+			byte[] comment = this.comment.getBytes("UTF-8");
+			output.writeShort(name.length);
+			output.write(name);
+			output.writeInt((int) this.localHeaderOffset);
+			output.writeInt((int) this.dataOffset);
+			output.writeInt((int) this.compressedSize);
+			output.writeInt((int) this.size);
+			output.writeInt((int) this.crc);
+			output.writeShort(this.method);
+			output.writeInt((int) this.time);
+			output.writeShort(this.extra.length);
+			output.write(this.extra);
+			output.writeShort(comment.length);
+			output.write(comment);
+		}
+
+	}
+
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The inputs of a repackage along with their content hashes. Inputs are saved next to
+ * the repackaged archive so that a later repackage can tell which of them have changed.
+ * <p>
+ * Hashes are only calculated for files whose size or modification time differ from the
+ * previously saved inputs, otherwise the saved hash is reused.
+ * 
+ * @author Phillip Webb
+ */
+class RepackageInputs {
+
+	private static final String FILE_SUFFIX = ".inputs";
+
+	private static final String SETTINGS = "settings";
+
+	private static final String SOURCE = "source";
+
+	private static final String LIBRARY = "library.";
+
+	private static final String OUTPUT = "output";
+
+	private static final int BUFFER_SIZE = 4096;
+
+	private final RepackageInputs previous;
+
+	private final String settings;
+
+	private FileHash source;
+
+	private final List<FileHash> libraries = new ArrayList<FileHash>();
+
+	private FileHash output;
+
+	/**
+	 * Create a new {@link RepackageInputs} instance.
+	 * @param settings the settings used to repackage (any change to the settings causes
+	 * a full repackage)
+	 * @param previous the previous inputs used to avoid calculating hashes of files that
+	 * have not changed (may be {@code null})
+	 */
+	public RepackageInputs(String settings, RepackageInputs previous) {
+		this.settings = settings;
+		this.previous = previous;
+	}
+
+	private RepackageInputs(Properties properties) {
+		this.previous = null;
+		this.settings = properties.getProperty(SETTINGS);
+		this.source = FileHash.load(properties, SOURCE);
+		this.output = FileHash.load(properties, OUTPUT);
+		for (int i = 0; properties.containsKey(LIBRARY + i + ".name"); i++) {
+			this.libraries.add(FileHash.load(properties, LIBRARY + i));
+		}
+	}
+
+	/**
+	 * Set the source archive.
+	 * @param source the source archive
+	 * @throws IOException
+	 */
+	public void setSource(File source) throws IOException {
+		this.source = hash(null, source);
+	}
+
+	/**
+	 * Set the source from previous inputs, used when the source archive has already
+	 * been repackaged.
+	 * @param previous the previous inputs
+	 */
+	public void setSource(RepackageInputs previous) {
+		this.source = previous.source;
+	}
+
+	/**
+	 * Add a library.
+	 * @param name the name of the library entry in the archive
+	 * @param file the library file
+	 * @throws IOException
+	 */
+	public void addLibrary(String name, File file) throws IOException {
+		this.libraries.add(hash(name, file));
+	}
+
+	/**
+	 * Set the repackaged archive that was written from these inputs.
+	 * @param output the output archive
+	 */
+	public void setOutput(File output) {
+		this.output = new FileHash(null, output, null);
+	}
+
+	/**
+	 * Returns {@code true} if the given file is the output that was written from these
+	 * inputs and has not been modified since.
+	 * @param file the file to check
+	 * @return if the file is the output
+	 */
+	public boolean isOutput(File file) {
+		return this.output != null && this.output.isSameFile(file);
+	}
+
+	/**
+	 * Returns {@code true} if these inputs have the same content as the given inputs.
+	 * @param other the inputs to compare (may be {@code null})
+	 * @return if the inputs are unchanged
+	 */
+	public boolean isUnchanged(RepackageInputs other) {
+		if (other == null || !nullSafeEquals(this.settings, other.settings)
+				|| !isSameContent(this.source, other.source)
+				|| this.libraries.size() != other.libraries.size()) {
+			return false;
+		}
+		for (int i = 0; i < this.libraries.size(); i++) {
+			if (!isSameContent(this.libraries.get(i), other.libraries.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns {@code true} if the previous inputs contain a library with the given name
+	 * and the same content. The library must have been {@link #addLibrary(String, File)
+	 * added} first.
+	 * @param name the name of the library entry
+	 * @param file the library file
+	 * @return if the library is unchanged
+	 */
+	public boolean isUnchanged(String name, File file) {
+		FileHash library = findLibrary(name, file);
+		if (library == null || this.previous == null) {
+			return false;
+		}
+		for (FileHash previousLibrary : this.previous.libraries) {
+			if (isSameContent(library, previousLibrary)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private FileHash findLibrary(String name, File file) {
+		String path = file.getAbsolutePath();
+		for (FileHash library : this.libraries) {
+			if (library.name.equals(name) && library.path.equals(path)) {
+				return library;
+			}
+		}
+		return null;
+	}
+
+	private FileHash hash(String name, File file) throws IOException {
+		FileHash previous = findPrevious(file);
+		if (previous != null) {
+			return new FileHash(name, file, previous.hash);
+		}
+		return new FileHash(name, file, calculateHash(file));
+	}
+
+	private FileHash findPrevious(File file) {
+		if (this.previous != null) {
+			if (this.previous.source != null && this.previous.source.isSameFile(file)) {
+				return this.previous.source;
+			}
+			for (FileHash library : this.previous.libraries) {
+				if (library.isSameFile(file)) {
+					return library;
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isSameContent(FileHash hash, FileHash other) {
+		return hash != null && other != null && nullSafeEquals(hash.name, other.name)
+				&& hash.hash.equals(other.hash);
+	}
+
+	private static boolean nullSafeEquals(Object o1, Object o2) {
+		return (o1 == null ? o2 == null : o1.equals(o2));
+	}
+
+	/**
+	 * Save the inputs next to the given archive.
+	 * @param archive the repackaged archive
+	 * @throws IOException
+	 */
+	public void save(File archive) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(SETTINGS, this.settings);
+		this.source.save(properties, SOURCE);
+		if (this.output != null) {
+			this.output.save(properties, OUTPUT);
+		}
+		for (int i = 0; i < this.libraries.size(); i++) {
+			this.libraries.get(i).save(properties, LIBRARY + i);
+		}
+		OutputStream outputStream = new FileOutputStream(getFile(archive));
+		try {
+			properties.store(outputStream, "Spring Boot repackage inputs");
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	/**
+	 * Load the inputs that were saved next to the given archive.
+	 * @param archive the repackaged archive
+	 * @return the inputs or {@code null} if no valid inputs were saved
+	 */
+	public static RepackageInputs load(File archive) {
+		File file = getFile(archive);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			Properties properties = new Properties();
+			InputStream inputStream = new FileInputStream(file);
+			try {
+				properties.load(inputStream);
+			}
+			finally {
+				inputStream.close();
+			}
+			return new RepackageInputs(properties);
+		}
+		catch (Exception ex) {
+			// Treat as if nothing was saved
+			return null;
+		}
+	}
+
+	/**
+	 * Delete any inputs that were saved next to the given archive.
+	 * @param archive the repackaged archive
+	 */
+	public static void delete(File archive) {
+		getFile(archive).delete();
+	}
+
+	private static File getFile(File archive) {
+		return new File(archive.getParentFile(), archive.getName() + FILE_SUFFIX);
+	}
+
+	/**
+	 * Calculate the content hash of a file.
+	 * @param file the file
+	 * @return the hex encoded SHA-1 hash of the content
+	 * @throws IOException
+	 */
+	public static String calculateHash(File file) throws IOException {
+		InputStream inputStream = new FileInputStream(file);
+		try {
+			return calculateHash(inputStream);
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Calculate the content hash of a stream.
+	 * @param inputStream the stream (not closed by this method)
+	 * @return the hex encoded SHA-1 hash of the content
+	 * @throws IOException
+	 */
+	public static String calculateHash(InputStream inputStream) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int bytesRead;
+			while ((bytesRead = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, bytesRead);
+			}
+			StringBuilder hash = new StringBuilder();
+			for (byte b : digest.digest()) {
+				hash.append(String.format("%02x", b & 0xFF));
+			}
+			return hash.toString();
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * A file along with its content hash.
+	 */
+	private static class FileHash {
+
+		private final String name;
+
+		private final String path;
+
+		private final long size;
+
+		private final long modified;
+
+		private final String hash;
+
+		public FileHash(String name, File file, String hash) {
+			this(name, file.getAbsolutePath(), file.length(), file.lastModified(), hash);
+		}
+
+		private FileHash(String name, String path, long size, long modified,
+				String hash) {
+			this.name = name;
+			this.path = path;
+			this.size = size;
+			this.modified = modified;
+			this.hash = (hash == null ? "" : hash);
+		}
+
+		public boolean isSameFile(File file) {
+			return this.path.equals(file.getAbsolutePath()) && file.isFile()
+					&& this.size == file.length() && this.modified == file.lastModified();
+		}
+
+		public void save(Properties properties, String prefix) {
+			if (this.name != null) {
+				properties.setProperty(prefix + ".name", this.name);
+			}
+			properties.setProperty(prefix + ".path", this.path);
+			properties.setProperty(prefix + ".size", String.valueOf(this.size));
+			properties.setProperty(prefix + ".modified", String.valueOf(this.modified));
+			properties.setProperty(prefix + ".hash", this.hash);
+		}
+
+		public static FileHash load(Properties properties, String prefix) {
+			String path = properties.getProperty(prefix + ".path");
+			if (path == null) {
+				return null;
+			}
+			return new FileHash(properties.getProperty(prefix + ".name"), path,
+					Long.parseLong(properties.getProperty(prefix + ".size")),
+					Long.parseLong(properties.getProperty(prefix + ".modified")),
+					properties.getProperty(prefix + ".hash"));
+		}
+
+	}
+
+}
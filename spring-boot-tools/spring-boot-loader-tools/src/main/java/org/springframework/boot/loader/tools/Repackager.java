@@ -19,13 +19,22 @@ package org.springframework.boot.loader.tools;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
 /**
  * Utility class that can be used to repackage an archive so that it can be executed using
  * '{@literal java -jar}'.
+ * <p>
+ * The content hashes of the inputs are saved next to the repackaged archive. If the
+ * archive is repackaged again and none of the inputs have changed the existing archive is
+ * kept. If only some inputs have changed, libraries that have not changed are copied
+ * directly from the existing archive.
  * 
  * @author Phillip Webb
  */
@@ -47,6 +56,8 @@ public class Repackager {
 
 	private Layout layout;
 
+	private File classLoadOrder;
+
 	public Repackager(File source) {
 		if (source == null || !source.exists() || !source.isFile()) {
 			throw new IllegalArgumentException("Source must refer to an existing file");
@@ -84,6 +95,23 @@ public class Repackager {
 		this.layout = layout;
 	}
 
+	/**
+	 * Sets a file that lists classes in the order that they are loaded when the
+	 * application starts, one class name per line. Such a file can be recorded by
+	 * launching the application with {@code -Dloader.trace.record=<file>}. When set, the
+	 * launcher classes, the listed classes and the libraries that contain them are
+	 * written at the front of the archive, in load order, so that they are read together
+	 * when the application starts.
+	 * @param classLoadOrder the class load order file or {@code null}
+	 */
+	public void setClassLoadOrder(File classLoadOrder) {
+		if (classLoadOrder != null && !classLoadOrder.isFile()) {
+			throw new IllegalArgumentException("Class load order must refer to an "
+					+ "existing file");
+		}
+		this.classLoadOrder = classLoadOrder;
+	}
+
 	/**
 	 * Repackage the source file so that it can be run using '{@literal java -jar}'
 	 * @param libraries the libraries required to run the archive
@@ -108,55 +136,201 @@ public class Repackager {
 			throw new IllegalArgumentException("Libraries must not be null");
 		}
 		destination = destination.getAbsoluteFile();
+		List<Library> resolvedLibraries = resolveLibraries(libraries);
+		RepackageInputs previousInputs = RepackageInputs.load(destination);
+		RepackageInputs inputs = new RepackageInputs(getSettings(), previousInputs);
+		boolean sourceRepackaged = (previousInputs != null && previousInputs
+				.isOutput(this.source));
+		if (sourceRepackaged && this.source.equals(destination)) {
+			inputs.setSource(previousInputs);
+		}
+		else {
+			inputs.setSource(this.source);
+		}
+		for (Library library : resolvedLibraries) {
+			inputs.addLibrary(library.getName(), library.getFile());
+		}
+		boolean destinationRepackaged = (previousInputs != null && previousInputs
+				.isOutput(destination));
+		if (destinationRepackaged && inputs.isUnchanged(previousInputs)) {
+			return;
+		}
+		RepackageInputs.delete(destination);
 		File workingSource = this.source;
+		File previousDestination = null;
 		if (this.source.equals(destination)) {
 			workingSource = new File(this.source.getParentFile(), this.source.getName()
 					+ ".original");
 			workingSource.delete();
 			renameFile(this.source, workingSource);
 		}
+		else if (destinationRepackaged) {
+			previousDestination = new File(destination.getParentFile(),
+					destination.getName() + ".previous");
+			previousDestination.delete();
+			renameFile(destination, previousDestination);
+		}
 		destination.delete();
+		boolean written = false;
 		try {
 			JarFile jarFileSource = new JarFile(workingSource);
 			try {
-				repackage(jarFileSource, destination, libraries);
+				JarFile previousJar = (previousDestination == null ? null : new JarFile(
+						previousDestination));
+				try {
+					repackage(jarFileSource, destination, resolvedLibraries, inputs,
+							previousJar);
+				}
+				finally {
+					if (previousJar != null) {
+						previousJar.close();
+					}
+				}
 			}
 			finally {
 				jarFileSource.close();
 			}
+			written = true;
 		}
 		finally {
+			if (!written) {
+				// Never leave an incomplete archive that could be mistaken for output
+				destination.delete();
+			}
 			if (!this.backupSource && !this.source.equals(workingSource)) {
 				deleteFile(workingSource);
 			}
+			if (previousDestination != null) {
+				previousDestination.delete();
+			}
 		}
+		inputs.setOutput(destination);
+		inputs.save(destination);
 	}
 
-	private void repackage(JarFile sourceJar, File destination, Libraries libraries)
+	private List<Library> resolveLibraries(Libraries libraries) throws IOException {
+		final List<Library> resolved = new ArrayList<Library>();
+		libraries.doWithLibraries(new LibraryCallback() {
+			@Override
+			public void library(File file, LibraryScope scope) throws IOException {
+				String destination = Repackager.this.layout.getLibraryDestination(
+						file.getName(), scope);
+				if (destination != null) {
+					resolved.add(new Library(destination, file));
+				}
+			}
+		});
+		return resolved;
+	}
+
+	private String getSettings() throws IOException {
+		StringBuilder settings = new StringBuilder();
+		settings.append(this.mainClass).append(",");
+		settings.append(this.layout.getClass().getName()).append(",");
+		settings.append(this.layout.getLauncherClassName()).append(",");
+		InputStream loaderJar = getClass().getClassLoader().getResourceAsStream(
+				JarWriter.NESTED_LOADER_JAR);
+		if (loaderJar != null) {
+			try {
+				settings.append(RepackageInputs.calculateHash(loaderJar));
+			}
+			finally {
+				loaderJar.close();
+			}
+		}
+		if (this.classLoadOrder != null) {
+			settings.append(",").append(
+					RepackageInputs.calculateHash(this.classLoadOrder));
+		}
+		return settings.toString();
+	}
+
+	private void repackage(JarFile sourceJar, File destination,
+			List<Library> libraries, RepackageInputs inputs, JarFile previousJar)
 			throws IOException {
-		final JarWriter writer = new JarWriter(destination);
+		// Use the time of the source for generated entries so output is repeatable
+		long entryTime = new File(sourceJar.getName()).lastModified();
+		JarWriter writer = createJarWriter(destination, entryTime);
+		boolean written = false;
 		try {
 			writer.writeManifest(buildManifest(sourceJar));
-			writer.writeEntries(sourceJar);
-			libraries.doWithLibraries(new LibraryCallback() {
-
-				@Override
-				public void library(File file, LibraryScope scope) throws IOException {
-					String destination = Repackager.this.layout.getLibraryDestination(
-							file.getName(), scope);
-					if (destination != null) {
-						writer.writeNestedLibrary(destination, file);
-					}
-				}
-			});
-			writer.writeLoaderClasses();
+			if (this.classLoadOrder == null) {
+				writer.writeEntries(sourceJar);
+				writeLibraries(writer, libraries, inputs, previousJar);
+				writer.writeNestedJarIndex();
+				writer.writeLoaderClasses();
+			}
+			else {
+				// Loader classes are always loaded first
+				writer.writeLoaderClasses();
+				ClassLoadOrder order = ClassLoadOrder.load(this.classLoadOrder);
+				List<JarEntry> entries = Collections.list(sourceJar.entries());
+				List<JarEntry> startupEntries = order.removeStartupEntries(entries,
+						this.layout.getClassesLocation());
+				List<Library> otherLibraries = new ArrayList<Library>(libraries);
+				List<Library> startupLibraries = removeStartupLibraries(order,
+						otherLibraries);
+				writer.writeEntries(sourceJar, startupEntries);
+				writeLibraries(writer, startupLibraries, inputs, previousJar);
+				writer.writeEntries(sourceJar, entries);
+				writeLibraries(writer, otherLibraries, inputs, previousJar);
+				writer.writeNestedJarIndex();
+			}
+			written = true;
 		}
 		finally {
-			try {
+			if (written) {
+				// Pending entries and the central directory are written on close
 				writer.close();
 			}
-			catch (Exception ex) {
-				// Ignore
+			else {
+				closeAfterFailure(writer);
+			}
+		}
+	}
+
+	/**
+	 * Create the {@link JarWriter} used to write the destination.
+	 * @param destination the destination file
+	 * @param entryTime the time to use for generated entries
+	 * @return the jar writer
+	 * @throws IOException
+	 */
+	JarWriter createJarWriter(File destination, long entryTime) throws IOException {
+		return new JarWriter(destination, entryTime);
+	}
+
+	private void closeAfterFailure(JarWriter writer) {
+		try {
+			writer.close();
+		}
+		catch (Exception ex) {
+			// Ignore so that the original failure is reported
+		}
+	}
+
+	private List<Library> removeStartupLibraries(ClassLoadOrder order,
+			List<Library> libraries) throws IOException {
+		List<File> files = new ArrayList<File>();
+		for (Library library : libraries) {
+			files.add(library.getFile());
+		}
+		List<Library> startupLibraries = new ArrayList<Library>();
+		for (Integer index : order.getStartupLibraries(files)) {
+			startupLibraries.add(libraries.get(index));
+		}
+		libraries.removeAll(startupLibraries);
+		return startupLibraries;
+	}
+
+	private void writeLibraries(JarWriter writer, List<Library> libraries,
+			RepackageInputs inputs, JarFile previousJar) throws IOException {
+		for (Library library : libraries) {
+			if (previousJar == null
+					|| !inputs.isUnchanged(library.getName(), library.getFile())
+					|| !writer.copyNestedLibrary(library.getDestination(),
+							library.getFile(), previousJar)) {
+				writer.writeNestedLibrary(library.getDestination(), library.getFile());
 			}
 		}
 	}
@@ -213,4 +387,32 @@ public class Repackager {
 		}
 	}
 
+	/**
+	 * A library that will be written to the archive.
+	 */
+	private static class Library {
+
+		private final String destination;
+
+		private final File file;
+
+		public Library(String destination, File file) {
+			this.destination = destination;
+			this.file = file;
+		}
+
+		public String getDestination() {
+			return this.destination;
+		}
+
+		public File getFile() {
+			return this.file;
+		}
+
+		public String getName() {
+			return this.destination + this.file.getName();
+		}
+
+	}
+
 }
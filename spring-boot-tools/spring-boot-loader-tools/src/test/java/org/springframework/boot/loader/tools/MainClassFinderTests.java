@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.springframework.boot.loader.tools.MainClassFinder;
 import org.springframework.boot.loader.tools.sample.ClassWithMainMethod;
+import org.springframework.boot.loader.tools.sample.ClassWithNonStaticMainMethod;
 import org.springframework.boot.loader.tools.sample.ClassWithoutMainMethod;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -81,6 +82,26 @@ public class MainClassFinderTests {
 
 	}
 
+	@Test
+	public void findFirstMainClassAtSameDepthInJar() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			this.testJarFile.addClass("a/C" + i + ".class", ClassWithoutMainMethod.class);
+		}
+		this.testJarFile.addClass("a/D.class", ClassWithMainMethod.class);
+		this.testJarFile.addClass("a/B.class", ClassWithMainMethod.class);
+		this.testJarFile.addClass("a/b/A.class", ClassWithMainMethod.class);
+		String actual = MainClassFinder.findMainClass(this.testJarFile.getJarFile(), "");
+		assertThat(actual, equalTo("a.B"));
+	}
+
+	@Test
+	public void nonStaticMainMethodIsIgnoredInJar() throws Exception {
+		this.testJarFile.addClass("a/B.class", ClassWithNonStaticMainMethod.class);
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		String actual = MainClassFinder.findMainClass(this.testJarFile.getJarFile(), "");
+		assertThat(actual, equalTo("a.b.C"));
+	}
+
 	@Test
 	public void findMainClassInFolder() throws Exception {
 		this.testJarFile.addClass("B.class", ClassWithMainMethod.class);
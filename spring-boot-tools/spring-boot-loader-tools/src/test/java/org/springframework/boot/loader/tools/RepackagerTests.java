@@ -16,8 +16,22 @@
 
 package org.springframework.boot.loader.tools;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
@@ -27,6 +41,10 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.archive.Archive.Entry;
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.boot.loader.jar.RandomAccessJarFile;
 import org.springframework.boot.loader.tools.Layout;
 import org.springframework.boot.loader.tools.Libraries;
 import org.springframework.boot.loader.tools.LibraryCallback;
@@ -36,7 +54,9 @@ import org.springframework.boot.loader.tools.sample.ClassWithMainMethod;
 import org.springframework.boot.loader.tools.sample.ClassWithoutMainMethod;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
@@ -234,6 +254,158 @@ public class RepackagerTests {
 		assertThat(hasEntry(file, "lib/" + libJarFile.getName()), equalTo(true));
 	}
 
+	@Test
+	public void librariesAreIndexed() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Repackager repackager = new Repackager(file);
+		repackager.repackage(new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(libJarFile, LibraryScope.COMPILE);
+			}
+		});
+		assertThat(hasEntry(file, NestedJarIndexWriter.ENTRY_NAME), equalTo(true));
+		RandomAccessJarFile jarFile = new RandomAccessJarFile(file);
+		try {
+			RandomAccessJarFile nestedJarFile = jarFile.getNestedJarFile(jarFile
+					.getEntry("lib/" + libJarFile.getName()));
+			ZipEntry entry = nestedJarFile.getEntry("a/b/C.class");
+			InputStream inputStream = nestedJarFile.getInputStream(entry);
+			try {
+				int length = 0;
+				while (inputStream.read() != -1) {
+					length++;
+				}
+				assertThat((long) length, equalTo(entry.getSize()));
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+		finally {
+			jarFile.close();
+		}
+	}
+
+	@Test
+	public void indexedTimesDoNotDependOnTimeZone() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		TimeZone timeZone = TimeZone.getDefault();
+		try {
+			TimeZone.setDefault(TimeZone.getTimeZone("GMT+10"));
+			byte[] index = getNestedJarIndex(libJarFile);
+			new Repackager(file).repackage(new Libraries() {
+				@Override
+				public void doWithLibraries(LibraryCallback callback) throws IOException {
+					callback.library(libJarFile, LibraryScope.COMPILE);
+				}
+			});
+			TimeZone.setDefault(TimeZone.getTimeZone("GMT-10"));
+			assertArrayEquals(index, getNestedJarIndex(libJarFile));
+			JarFile expected = new JarFile(libJarFile);
+			RandomAccessJarFile jarFile = new RandomAccessJarFile(file);
+			try {
+				RandomAccessJarFile nestedJarFile = jarFile.getNestedJarFile(jarFile
+						.getEntry("lib/" + libJarFile.getName()));
+				assertThat(nestedJarFile.getEntry("a/b/C.class").getTime(),
+						equalTo(expected.getEntry("a/b/C.class").getTime()));
+			}
+			finally {
+				jarFile.close();
+				expected.close();
+			}
+		}
+		finally {
+			TimeZone.setDefault(timeZone);
+		}
+	}
+
+	@Test
+	public void packageNamesAreReadFromIndex() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		libJar.addClass("a/b/D.class", ClassWithoutMainMethod.class);
+		libJar.addClass("E.class", ClassWithoutMainMethod.class);
+		libJar.addClass("a/F.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		new Repackager(file).repackage(new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(libJarFile, LibraryScope.COMPILE);
+			}
+		});
+		Set<String> expected = new HashSet<String>(Arrays.asList("a.b", "", "a"));
+		RandomAccessJarFile jarFile = new RandomAccessJarFile(file);
+		try {
+			RandomAccessJarFile nestedJarFile = jarFile.getNestedJarFile(jarFile
+					.getEntry("lib/" + libJarFile.getName()));
+			assertThat(nestedJarFile.getPackageNames(), equalTo(expected));
+			nestedJarFile.entries();
+			assertThat(nestedJarFile.getPackageNames(), equalTo(expected));
+		}
+		finally {
+			jarFile.close();
+		}
+	}
+
+	@Test
+	public void extractedLibrariesAreCachedUsingIndexedDigest() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		new Repackager(file).repackage(new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(libJarFile, LibraryScope.COMPILE);
+			}
+		});
+		byte[] libJarBytes = getBytes(libJarFile);
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(libJarBytes);
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest) {
+			hex.append(String.format("%02x", b & 0xFF));
+		}
+		File cacheDirectory = this.temporaryFolder.newFolder();
+		RandomAccessJarFile jarFile = new RandomAccessJarFile(file);
+		try {
+			assertArrayEquals(digest, jarFile.getNestedJarDigest(jarFile.getEntry("lib/"
+					+ libJarFile.getName())));
+			new JarFileArchive(jarFile).getExtractedNestedArchives(
+					new Archive.EntryFilter() {
+						@Override
+						public boolean matches(Entry entry) {
+							return entry.getName().startsWith("lib/");
+						}
+					}, cacheDirectory);
+		}
+		finally {
+			jarFile.close();
+		}
+		File extracted = new File(new File(cacheDirectory, hex.toString()),
+				libJarFile.getName());
+		assertArrayEquals(libJarBytes, getBytes(extracted));
+	}
+
+	@Test
+	public void noIndexWithoutLibraries() throws Exception {
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		new Repackager(file).repackage(NO_LIBRARIES);
+		assertThat(hasEntry(file, NestedJarIndexWriter.ENTRY_NAME), equalTo(false));
+	}
+
 	@Test
 	public void customLayout() throws Exception {
 		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
@@ -296,6 +468,346 @@ public class RepackagerTests {
 
 	}
 
+	@Test
+	public void librariesAreWrittenInOrder() throws Exception {
+		final List<File> libraries = new ArrayList<File>();
+		for (int i = 0; i < 20; i++) {
+			TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+			libJar.addClass("a/b" + i + "/C.class", ClassWithoutMainMethod.class);
+			libraries.add(libJar.getFile());
+		}
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		new Repackager(file).repackage(new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				for (File library : libraries) {
+					callback.library(library, LibraryScope.COMPILE);
+				}
+			}
+		});
+		List<String> written = new ArrayList<String>();
+		JarFile jarFile = new JarFile(file);
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				String name = entries.nextElement().getName();
+				if (name.startsWith("lib/") && name.endsWith(".jar")) {
+					written.add(name);
+				}
+			}
+		}
+		finally {
+			jarFile.close();
+		}
+		List<String> expected = new ArrayList<String>();
+		for (File library : libraries) {
+			expected.add("lib/" + library.getName());
+		}
+		assertThat(written, equalTo(expected));
+	}
+
+	@Test
+	public void repackagedJarIsRepeatable() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Libraries libraries = new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(libJarFile, LibraryScope.COMPILE);
+			}
+		};
+		// Entry times come from the source rather than the clock
+		long sourceTime = 946684800000L;
+		file.setLastModified(sourceTime);
+		File first = this.temporaryFolder.newFile("first.jar");
+		File second = this.temporaryFolder.newFile("second.jar");
+		new Repackager(file).repackage(first, libraries);
+		new Repackager(file).repackage(second, libraries);
+		assertArrayEquals(getBytes(first), getBytes(second));
+		JarFile jarFile = new JarFile(first);
+		try {
+			assertThat(jarFile.getEntry("lib/" + libJarFile.getName()).getTime(),
+					equalTo(sourceTime));
+		}
+		finally {
+			jarFile.close();
+		}
+	}
+
+	@Test
+	public void unchangedInputsAreNotRepackaged() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Libraries libraries = new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(libJarFile, LibraryScope.COMPILE);
+			}
+		};
+		File destination = this.temporaryFolder.newFile("dest.jar");
+		new Repackager(file).repackage(destination, libraries);
+		// The inputs file is rewritten whenever the destination is, backdate it so that
+		// a rewrite is detected without waiting for the clock to move on
+		File inputs = new File(destination.getParentFile(), destination.getName()
+				+ ".inputs");
+		long lastModified = 946684800000L;
+		inputs.setLastModified(lastModified);
+		new Repackager(file).repackage(destination, libraries);
+		assertThat(inputs.lastModified(), equalTo(lastModified));
+		Repackager repackager = new Repackager(file);
+		repackager.setMainClass("a.b.C");
+		repackager.repackage(destination, libraries);
+		assertThat(inputs.lastModified() != lastModified, equalTo(true));
+	}
+
+	@Test
+	public void failureOnCloseIsRepackagedAgain() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Libraries libraries = new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(libJarFile, LibraryScope.COMPILE);
+			}
+		};
+		File destination = this.temporaryFolder.newFile("dest.jar");
+		File inputs = new File(destination.getParentFile(), destination.getName()
+				+ ".inputs");
+		Repackager failingRepackager = new Repackager(file) {
+			@Override
+			JarWriter createJarWriter(File destination, long entryTime)
+					throws IOException {
+				return new JarWriter(destination, entryTime) {
+					@Override
+					public void close() throws IOException {
+						super.close();
+						throw new IOException("Disk full");
+					}
+				};
+			}
+		};
+		try {
+			failingRepackager.repackage(destination, libraries);
+			fail("Expected IOException");
+		}
+		catch (IOException ex) {
+			assertThat(ex.getMessage(), equalTo("Disk full"));
+		}
+		assertThat(destination.exists(), equalTo(false));
+		assertThat(inputs.exists(), equalTo(false));
+		new Repackager(file).repackage(destination, libraries);
+		assertThat(hasLauncherClasses(destination), equalTo(true));
+		assertThat(hasEntry(destination, "lib/" + libJarFile.getName()), equalTo(true));
+		assertThat(inputs.exists(), equalTo(true));
+	}
+
+	@Test
+	public void unchangedLibrariesAreCopiedFromPreviousArchive() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/C.class", ClassWithoutMainMethod.class);
+		final File libJarFile = libJar.getFile();
+		byte[] libJarBytes = getBytes(libJarFile);
+		final List<File> libraryFiles = new ArrayList<File>();
+		libraryFiles.add(libJarFile);
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Libraries libraries = new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				for (File libraryFile : libraryFiles) {
+					callback.library(libraryFile, LibraryScope.COMPILE);
+				}
+			}
+		};
+		File destination = this.temporaryFolder.newFile("dest.jar");
+		new Repackager(file).repackage(destination, libraries);
+		// Change the content without changing the size or time so that the library
+		// appears unchanged
+		long lastModified = libJarFile.lastModified();
+		RandomAccessFile randomAccessFile = new RandomAccessFile(libJarFile, "rw");
+		try {
+			randomAccessFile.seek(randomAccessFile.length() - 1);
+			randomAccessFile.write(1);
+		}
+		finally {
+			randomAccessFile.close();
+		}
+		libJarFile.setLastModified(lastModified);
+		TestJarFile otherLibJar = new TestJarFile(this.temporaryFolder);
+		otherLibJar.addClass("a/b/D.class", ClassWithoutMainMethod.class);
+		File otherLibJarFile = otherLibJar.getFile();
+		libraryFiles.add(otherLibJarFile);
+		new Repackager(file).repackage(destination, libraries);
+		assertThat(hasEntry(destination, "lib/" + otherLibJarFile.getName()),
+				equalTo(true));
+		JarFile jarFile = new JarFile(destination);
+		try {
+			assertArrayEquals(libJarBytes, getBytes(jarFile.getInputStream(jarFile
+					.getEntry("lib/" + libJarFile.getName()))));
+		}
+		finally {
+			jarFile.close();
+		}
+	}
+
+	@Test
+	public void incrementalRepackageMatchesFullRepackage() throws Exception {
+		final List<File> libraryFiles = new ArrayList<File>();
+		for (int i = 0; i < 3; i++) {
+			TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+			libJar.addClass("a/b" + i + "/C.class", ClassWithoutMainMethod.class);
+			libraryFiles.add(libJar.getFile());
+		}
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Libraries libraries = new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				for (File libraryFile : libraryFiles) {
+					callback.library(libraryFile, LibraryScope.COMPILE);
+				}
+			}
+		};
+		File incremental = this.temporaryFolder.newFile("incremental.jar");
+		new Repackager(file).repackage(incremental, libraries);
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("a/b/D.class", ClassWithoutMainMethod.class);
+		libraryFiles.add(1, libJar.getFile());
+		new Repackager(file).repackage(incremental, libraries);
+		File full = this.temporaryFolder.newFile("full.jar");
+		new Repackager(file).repackage(full, libraries);
+		assertArrayEquals(getBytes(full), getBytes(incremental));
+	}
+
+	@Test
+	public void classLoadOrder() throws Exception {
+		final List<File> libraryFiles = new ArrayList<File>();
+		for (String name : new String[] { "x/A.class", "y/B.class", "z/C.class" }) {
+			TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+			libJar.addClass(name, ClassWithoutMainMethod.class);
+			libraryFiles.add(libJar.getFile());
+		}
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		this.testJarFile.addClass("a/b/D.class", ClassWithoutMainMethod.class);
+		this.testJarFile.addClass("a/b/E.class", ClassWithoutMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Repackager repackager = new Repackager(file);
+		repackager.setClassLoadOrder(createClassLoadOrder("a.b.E", "z.C", "a.b.C"));
+		repackager.repackage(new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				for (File libraryFile : libraryFiles) {
+					callback.library(libraryFile, LibraryScope.COMPILE);
+				}
+			}
+		});
+		List<String> entryNames = getEntryNames(file);
+		List<String> expected = Arrays.asList("a/b/E.class", "a/b/C.class", "lib/"
+				+ libraryFiles.get(2).getName(), "a/b/D.class", "lib/"
+				+ libraryFiles.get(0).getName(), "lib/" + libraryFiles.get(1).getName());
+		List<String> actual = new ArrayList<String>(entryNames);
+		actual.retainAll(expected);
+		assertThat(actual, equalTo(expected));
+		assertThat(
+				entryNames.indexOf("org/springframework/boot/loader/JarLauncher.class") < entryNames
+						.indexOf("a/b/E.class"), equalTo(true));
+	}
+
+	@Test
+	public void classLoadOrderKeepsConflictingLibrariesInOrder() throws Exception {
+		TestJarFile libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("x/A.class", ClassWithoutMainMethod.class);
+		final File first = libJar.getFile();
+		libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("y/B.class", ClassWithoutMainMethod.class);
+		final File second = libJar.getFile();
+		libJar = new TestJarFile(this.temporaryFolder);
+		libJar.addClass("x/A.class", ClassWithoutMainMethod.class);
+		libJar.addClass("z/C.class", ClassWithoutMainMethod.class);
+		final File third = libJar.getFile();
+		this.testJarFile.addClass("a/b/C.class", ClassWithMainMethod.class);
+		File file = this.testJarFile.getFile();
+		Repackager repackager = new Repackager(file);
+		repackager.setClassLoadOrder(createClassLoadOrder("z.C"));
+		repackager.repackage(new Libraries() {
+			@Override
+			public void doWithLibraries(LibraryCallback callback) throws IOException {
+				callback.library(first, LibraryScope.COMPILE);
+				callback.library(second, LibraryScope.COMPILE);
+				callback.library(third, LibraryScope.COMPILE);
+			}
+		});
+		List<String> expected = Arrays.asList("lib/" + first.getName(), "lib/"
+				+ third.getName(), "a/b/C.class", "lib/" + second.getName());
+		List<String> actual = getEntryNames(file);
+		actual.retainAll(expected);
+		assertThat(actual, equalTo(expected));
+	}
+
+	private File createClassLoadOrder(String... classNames) throws IOException {
+		File file = this.temporaryFolder.newFile("classes.txt");
+		FileOutputStream outputStream = new FileOutputStream(file);
+		try {
+			for (String className : classNames) {
+				outputStream.write((className + "\n").getBytes("UTF-8"));
+			}
+		}
+		finally {
+			outputStream.close();
+		}
+		return file;
+	}
+
+	private byte[] getNestedJarIndex(File file) throws IOException {
+		NestedJarIndexWriter writer = new NestedJarIndexWriter();
+		writer.add(file, 0, 0, file.length(), 0);
+		return writer.toByteArray();
+	}
+
+	private List<String> getEntryNames(File file) throws IOException {
+		List<String> names = new ArrayList<String>();
+		JarFile jarFile = new JarFile(file);
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				names.add(entries.nextElement().getName());
+			}
+		}
+		finally {
+			jarFile.close();
+		}
+		return names;
+	}
+
+	private byte[] getBytes(File file) throws IOException {
+		return getBytes(new FileInputStream(file));
+	}
+
+	private byte[] getBytes(InputStream inputStream) throws IOException {
+		try {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, read);
+			}
+			return outputStream.toByteArray();
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
 	private boolean hasLauncherClasses(File file) throws IOException {
 		return hasEntry(file, "org/springframework/boot/")
 				&& hasEntry(file, "org/springframework/boot/loader/JarLauncher.class");
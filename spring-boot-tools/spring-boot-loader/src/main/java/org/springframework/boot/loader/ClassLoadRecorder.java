@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records the names of classes loaded by a {@link LaunchedURLClassLoader}, in load
+ * order, so that they can be written to a trace file and later used by a
+ * {@link ClassPrefetcher}. The trace file contains one class name per line.
+ * 
+ * @author Phillip Webb
+ */
+class ClassLoadRecorder {
+
+	private static final String ENCODING = "UTF-8";
+
+	private final File file;
+
+	private final Queue<String> classNames = new ConcurrentLinkedQueue<String>();
+
+	private final AtomicBoolean saved = new AtomicBoolean();
+
+	public ClassLoadRecorder(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Record that the specified class has been loaded.
+	 * @param name the class name
+	 */
+	public void record(String name) {
+		if (!this.saved.get()) {
+			this.classNames.add(name);
+		}
+	}
+
+	/**
+	 * Write the recorded class names to the trace file. Only the first call has any
+	 * effect.
+	 * @throws IOException on write error
+	 */
+	public void save() throws IOException {
+		if (!this.saved.compareAndSet(false, true)) {
+			return;
+		}
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(this.file), ENCODING));
+		try {
+			for (String name : this.classNames) {
+				writer.write(name);
+				writer.write('\n');
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Load class names from a trace file.
+	 * @param file the trace file
+	 * @return the class names, in load order
+	 * @throws IOException on read error
+	 */
+	public static List<String> load(File file) throws IOException {
+		List<String> classNames = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), ENCODING));
+		try {
+			String line = reader.readLine();
+			while (line != null) {
+				line = line.trim();
+				if (line.length() > 0) {
+					classNames.add(line);
+				}
+				line = reader.readLine();
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return classNames;
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.loader.PackageIndex.IndexedClass;
+
+/**
+ * Reads (and inflates) the bytes of classes listed in a trace file using background
+ * threads so that they are already in memory when the {@link LaunchedURLClassLoader}
+ * needs them. Classes are prefetched in trace order. The total size of classes held is
+ * bounded by a limit, classes are removed as they are taken and everything is released
+ * once startup has completed.
+ * 
+ * @author Phillip Webb
+ * @see ClassLoadRecorder
+ */
+class ClassPrefetcher {
+
+	private final PackageIndex packageIndex;
+
+	private final List<String> classNames;
+
+	private final long limit;
+
+	private final ConcurrentMap<String, IndexedClass> classes = new ConcurrentHashMap<String, IndexedClass>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final AtomicLong size = new AtomicLong();
+
+	private volatile boolean released;
+
+	/**
+	 * Create a new {@link ClassPrefetcher} instance.
+	 * @param packageIndex the index used to find classes
+	 * @param classNames the names of the classes to prefetch
+	 * @param limit the maximum number of bytes to hold
+	 */
+	public ClassPrefetcher(PackageIndex packageIndex, List<String> classNames, long limit) {
+		this.packageIndex = packageIndex;
+		this.classNames = classNames;
+		this.limit = limit;
+	}
+
+	/**
+	 * Start prefetching using the specified number of daemon threads.
+	 * @param threads the number of threads
+	 */
+	public void start(int threads) {
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					prefetch();
+				}
+			}, "class-prefetch-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	void prefetch() {
+		int index = this.next.getAndIncrement();
+		while (!this.released && index < this.classNames.size()) {
+			String name = this.classNames.get(index);
+			IndexedClass indexedClass = this.packageIndex.findClass(name);
+			if (indexedClass != null) {
+				long classSize = Math.max(indexedClass.getSize(), 0);
+				if (this.size.addAndGet(classSize) <= this.limit) {
+					try {
+						indexedClass.prefetch();
+						this.classes.put(name, indexedClass);
+					}
+					catch (IOException ex) {
+						this.size.addAndGet(-classSize);
+					}
+				}
+				else {
+					this.size.addAndGet(-classSize);
+				}
+			}
+			index = this.next.getAndIncrement();
+		}
+	}
+
+	/**
+	 * Take a prefetched class.
+	 * @param name the class name
+	 * @return the prefetched class or {@code null}
+	 */
+	public IndexedClass take(String name) {
+		IndexedClass indexedClass = this.classes.remove(name);
+		if (indexedClass != null) {
+			this.size.addAndGet(-Math.max(indexedClass.getSize(), 0));
+		}
+		return indexedClass;
+	}
+
+	/**
+	 * Stop prefetching and release all prefetched classes.
+	 */
+	public void release() {
+		this.released = true;
+		this.classes.clear();
+	}
+
+}
@@ -29,6 +29,7 @@ import org.springframework.boot.loader.archive.Archive.Entry;
 import org.springframework.boot.loader.archive.Archive.EntryFilter;
 import org.springframework.boot.loader.archive.ExplodedArchive;
 import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.boot.loader.archive.JdkJarFileArchive;
 
 /**
  * Base class for executable archive {@link Launcher}s.
@@ -37,18 +38,36 @@ import org.springframework.boot.loader.archive.JarFileArchive;
  */
 public abstract class ExecutableArchiveLauncher extends Launcher {
 
+	/**
+	 * Properties key for a boolean flag (default false) which if set will cause nested
+	 * jars to be extracted to a content addressed cache directory and loaded directly by
+	 * the JDK.
+	 */
+	public static final String EXTRACT_PROPERTY = "loader.extract";
+
+	/**
+	 * Properties key for the directory used to cache extracted nested jars (default
+	 * {@code ${user.home}/.spring-boot/libs}). The directory should only be writable by
+	 * the user running the application.
+	 */
+	public static final String EXTRACT_DIRECTORY_PROPERTY = "loader.extract.dir";
+
+	private final File root;
+
 	private final Archive archive;
 
 	public ExecutableArchiveLauncher() {
 		try {
-			this.archive = createArchive();
+			this.root = findRoot();
+			this.archive = (this.root.isDirectory() ? new ExplodedArchive(this.root)
+					: new JarFileArchive(this.root));
 		}
 		catch (Exception ex) {
 			throw new IllegalStateException(ex);
 		}
 	}
 
-	private Archive createArchive() throws Exception {
+	private File findRoot() throws Exception {
 		ProtectionDomain protectionDomain = getClass().getProtectionDomain();
 		CodeSource codeSource = protectionDomain.getCodeSource();
 		URI location = (codeSource == null ? null : codeSource.getLocation().toURI());
@@ -61,7 +80,7 @@ public abstract class ExecutableArchiveLauncher extends Launcher {
 			throw new IllegalStateException(
 					"Unable to determine code source archive from " + root);
 		}
-		return (root.isDirectory() ? new ExplodedArchive(root) : new JarFileArchive(root));
+		return root;
 	}
 
 	protected final Archive getArchive() {
@@ -75,17 +94,56 @@ public abstract class ExecutableArchiveLauncher extends Launcher {
 
 	@Override
 	protected List<Archive> getClassPathArchives() throws Exception {
+		EntryFilter filter = new EntryFilter() {
+			@Override
+			public boolean matches(Entry entry) {
+				return isNestedArchive(entry);
+			}
+		};
+		File cacheDirectory = getExtractDirectory();
+		if (cacheDirectory == null) {
+			List<Archive> archives = new ArrayList<Archive>(
+					this.archive.getNestedArchives(filter));
+			postProcessClassPathArchives(archives);
+			return archives;
+		}
+		long start = System.currentTimeMillis();
 		List<Archive> archives = new ArrayList<Archive>(
-				this.archive.getNestedArchives(new EntryFilter() {
-					@Override
-					public boolean matches(Entry entry) {
-						return isNestedArchive(entry);
-					}
-				}));
+				this.archive.getExtractedNestedArchives(filter, cacheDirectory));
+		this.logger.fine("Nested archives extracted to " + cacheDirectory + " in "
+				+ (System.currentTimeMillis() - start) + "ms");
 		postProcessClassPathArchives(archives);
+		if (!this.root.isDirectory()) {
+			// Load the application itself directly from the root jar as well
+			int index = archives.indexOf(this.archive);
+			if (index != -1) {
+				archives.set(index, new JdkJarFileArchive(this.root));
+			}
+		}
 		return archives;
 	}
 
+	/**
+	 * Returns the directory that nested jars should be extracted to or {@code null} if
+	 * nested jars should not be extracted.
+	 * @return the extract directory or {@code null}
+	 */
+	protected File getExtractDirectory() {
+		try {
+			if (!Boolean.getBoolean(EXTRACT_PROPERTY)) {
+				return null;
+			}
+			String directory = System.getProperty(EXTRACT_DIRECTORY_PROPERTY);
+			if (directory != null) {
+				return new File(directory);
+			}
+			return new File(System.getProperty("user.home"), ".spring-boot/libs");
+		}
+		catch (SecurityException ex) {
+			return null;
+		}
+	}
+
 	/**
 	 * Determine if the specified {@link JarEntry} is a nested item that should be added
 	 * to the classpath. The method is called once for each entry.
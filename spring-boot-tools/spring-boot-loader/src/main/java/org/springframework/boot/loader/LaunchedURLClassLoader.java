@@ -16,24 +16,100 @@
 
 package org.springframework.boot.loader;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.security.AccessController;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.jar.Manifest;
 
+import org.springframework.boot.loader.PackageIndex.IndexedArchive;
+import org.springframework.boot.loader.PackageIndex.IndexedClass;
 import org.springframework.boot.loader.jar.RandomAccessJarFile;
+import org.springframework.boot.loader.util.LoaderStatistics;
+import org.springframework.boot.loader.util.LoaderStatistics.ClassLoadTimer;
 
 /**
- * {@link ClassLoader} used by the {@link Launcher}.
+ * {@link ClassLoader} used by the {@link Launcher}. When running on Java 7 or later the
+ * class loader is registered as parallel capable and classes are loaded using a lock per
+ * class name rather than a lock on the class loader itself.
+ * <p>
+ * When all URLs are backed by {@link RandomAccessJarFile}s a package index is built from
+ * their entries the first time a class is found locally. Classes are then read directly
+ * from the archive(s) that contain their package rather than searching every URL.
+ * <p>
+ * When all URLs are backed by {@link RandomAccessJarFile}s, class and resource names that
+ * cannot be found are remembered in a bounded {@link NegativeLookupCache} so that
+ * repeated probes for optional classes and resources do not search every archive again.
+ * The caches are not used for {@code file:} directories since their content can change.
+ * The caches are cleared if a URL is added.
+ * <p>
+ * The names of classes loaded during startup can optionally be recorded to a trace file
+ * (see {@link #TRACE_RECORD_PROPERTY}). A later launch can use the trace file to
+ * prefetch those classes in parallel (see {@link #TRACE_PREFETCH_PROPERTY}).
+ * <p>
+ * Class load times and resource misses are recorded in the {@link LoaderStatistics}
+ * when they are enabled.
  * 
  * @author Phillip Webb
  */
 public class LaunchedURLClassLoader extends URLClassLoader {
 
+	/**
+	 * System property that can be used to set the maximum number of missing class and
+	 * resource names that are cached. Use {@code 0} to disable the cache.
+	 */
+	public static final String NEGATIVE_CACHE_SIZE_PROPERTY = "loader.negativecache.size";
+
+	/**
+	 * System property that can be used to specify a file that the names of classes
+	 * loaded during startup will be written to.
+	 */
+	public static final String TRACE_RECORD_PROPERTY = "loader.trace.record";
+
+	/**
+	 * System property that can be used to specify a previously recorded trace file. The
+	 * classes listed in the file are prefetched in parallel during startup.
+	 */
+	public static final String TRACE_PREFETCH_PROPERTY = "loader.trace.prefetch";
+
+	/**
+	 * System property that can be used to set the maximum number of bytes held by the
+	 * prefetch cache.
+	 */
+	public static final String TRACE_PREFETCH_LIMIT_PROPERTY = "loader.trace.prefetch.limit";
+
+	private static final int DEFAULT_NEGATIVE_CACHE_SIZE = 10000;
+
+	private static final long DEFAULT_PREFETCH_LIMIT = 64 * 1024 * 1024;
+
+	private static final Method GET_CLASS_LOADING_LOCK_METHOD = setupParallelCapable();
+
 	private final ClassLoader rootClassLoader;
 
+	private final NegativeLookupCache missingClasses;
+
+	private final NegativeLookupCache missingResources;
+
+	private volatile boolean cacheMissing;
+
+	private final Object packageIndexMonitor = new Object();
+
+	private volatile PackageIndex packageIndex;
+
+	private volatile boolean packageIndexBuilt;
+
+	private volatile ClassLoadRecorder recorder;
+
+	private volatile ClassPrefetcher prefetcher;
+
 	/**
 	 * Create a new {@link LaunchedURLClassLoader} instance.
 	 * @param urls the URLs from which to load classes and resources
@@ -42,6 +118,77 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 	public LaunchedURLClassLoader(URL[] urls, ClassLoader parent) {
 		super(urls, parent);
 		this.rootClassLoader = findRootClassLoader(parent);
+		int negativeCacheSize = getIntegerProperty(NEGATIVE_CACHE_SIZE_PROPERTY,
+				DEFAULT_NEGATIVE_CACHE_SIZE);
+		this.missingClasses = new NegativeLookupCache(negativeCacheSize);
+		this.missingResources = new NegativeLookupCache(negativeCacheSize);
+		this.cacheMissing = PackageIndex.isIndexable(urls);
+		if (getBooleanProperty(LoaderStatistics.JMX_PROPERTY)) {
+			String name = "org.springframework.boot.loader:type=NegativeLookupCache,loader="
+					+ Integer.toHexString(System.identityHashCode(this));
+			this.missingClasses.registerMBean(name + ",name=classes");
+			this.missingResources.registerMBean(name + ",name=resources");
+			LoaderStatistics.get().registerMBean();
+		}
+	}
+
+	private static int getIntegerProperty(String name, int defaultValue) {
+		try {
+			return Integer.getInteger(name, defaultValue);
+		}
+		catch (SecurityException ex) {
+			return defaultValue;
+		}
+	}
+
+	private static long getLongProperty(String name, long defaultValue) {
+		try {
+			return Long.getLong(name, defaultValue);
+		}
+		catch (SecurityException ex) {
+			return defaultValue;
+		}
+	}
+
+	private static File getFileProperty(String name) {
+		try {
+			String value = System.getProperty(name);
+			return (value == null || value.length() == 0 ? null : new File(value));
+		}
+		catch (SecurityException ex) {
+			return null;
+		}
+	}
+
+	private static boolean getBooleanProperty(String name) {
+		try {
+			return Boolean.getBoolean(name);
+		}
+		catch (SecurityException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Register this class as parallel capable. Reflection is used since the required
+	 * methods are only available on Java 7 or later.
+	 * @return the {@code getClassLoadingLock} method or {@code null} if not running on a
+	 * Java 7 (or later) JVM
+	 */
+	private static Method setupParallelCapable() {
+		try {
+			Method registerMethod = ClassLoader.class
+					.getDeclaredMethod("registerAsParallelCapable");
+			Method lockMethod = ClassLoader.class.getDeclaredMethod(
+					"getClassLoadingLock", String.class);
+			if (Boolean.TRUE.equals(registerMethod.invoke(null))) {
+				return lockMethod;
+			}
+		}
+		catch (Exception ex) {
+			// Not running on Java 7+
+		}
+		return null;
 	}
 
 	private ClassLoader findRootClassLoader(ClassLoader classLoader) {
@@ -54,18 +201,115 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 		return null;
 	}
 
+	/**
+	 * Start recording and/or prefetching startup classes as configured by the
+	 * {@link #TRACE_RECORD_PROPERTY} and {@link #TRACE_PREFETCH_PROPERTY} system
+	 * properties.
+	 * @see #finishStartupTrace()
+	 */
+	void startStartupTrace() {
+		startStartupTrace(getFileProperty(TRACE_RECORD_PROPERTY),
+				getFileProperty(TRACE_PREFETCH_PROPERTY),
+				getLongProperty(TRACE_PREFETCH_LIMIT_PROPERTY, DEFAULT_PREFETCH_LIMIT));
+	}
+
+	/**
+	 * Start recording and/or prefetching startup classes.
+	 * @param recordFile the file to record to or {@code null}
+	 * @param prefetchFile the trace file to prefetch from or {@code null}
+	 * @param prefetchLimit the maximum number of bytes held by the prefetch cache
+	 */
+	void startStartupTrace(File recordFile, File prefetchFile, long prefetchLimit) {
+		if (recordFile != null) {
+			this.recorder = new ClassLoadRecorder(recordFile);
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					finishStartupTrace();
+				}
+			});
+		}
+		if (prefetchFile != null && prefetchFile.exists()) {
+			PackageIndex packageIndex = getPackageIndex();
+			if (packageIndex != null) {
+				try {
+					ClassPrefetcher prefetcher = new ClassPrefetcher(packageIndex,
+							ClassLoadRecorder.load(prefetchFile), prefetchLimit);
+					prefetcher.start(Runtime.getRuntime().availableProcessors());
+					this.prefetcher = prefetcher;
+				}
+				catch (IOException ex) {
+					// Continue without prefetching
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finish startup tracing, writing any recorded trace file and releasing all
+	 * prefetched classes.
+	 */
+	void finishStartupTrace() {
+		ClassLoadRecorder recorder = this.recorder;
+		this.recorder = null;
+		if (recorder != null) {
+			try {
+				recorder.save();
+			}
+			catch (IOException ex) {
+				// Ignore
+			}
+		}
+		ClassPrefetcher prefetcher = this.prefetcher;
+		this.prefetcher = null;
+		if (prefetcher != null) {
+			prefetcher.release();
+		}
+	}
+
+	/**
+	 * Returns the cache of class names that could not be loaded.
+	 * @return the missing classes cache
+	 */
+	public NegativeLookupCache getMissingClasses() {
+		return this.missingClasses;
+	}
+
+	/**
+	 * Returns the cache of resource names that could not be found.
+	 * @return the missing resources cache
+	 */
+	public NegativeLookupCache getMissingResources() {
+		return this.missingResources;
+	}
+
 	@Override
 	public URL getResource(String name) {
+		if (this.cacheMissing && this.missingResources.isMissing(name)) {
+			LoaderStatistics.get().resourceMissed();
+			return null;
+		}
 		URL url = null;
 		if (this.rootClassLoader != null) {
 			url = this.rootClassLoader.getResource(name);
 		}
-		return (url == null ? findResource(name) : url);
+		url = (url == null ? findResource(name) : url);
+		if (url == null) {
+			if (this.cacheMissing) {
+				this.missingResources.addMissing(name);
+			}
+			LoaderStatistics.get().resourceMissed();
+		}
+		return url;
 	}
 
 	@Override
 	public Enumeration<URL> getResources(String name) throws IOException {
 
+		if (this.cacheMissing && this.missingResources.isMissing(name)) {
+			return Collections.enumeration(Collections.<URL> emptyList());
+		}
+
 		if (this.rootClassLoader == null) {
 			return findResources(name);
 		}
@@ -97,10 +341,21 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 	@Override
 	protected Class<?> loadClass(String name, boolean resolve)
 			throws ClassNotFoundException {
-		synchronized (this) {
+		synchronized (getLoadingLock(name)) {
 			Class<?> loadedClass = findLoadedClass(name);
 			if (loadedClass == null) {
-				loadedClass = doLoadClass(name);
+				if (this.cacheMissing && this.missingClasses.isMissing(name)) {
+					throw new ClassNotFoundException(name);
+				}
+				try {
+					loadedClass = doLoadClass(name);
+				}
+				catch (ClassNotFoundException ex) {
+					if (this.cacheMissing) {
+						this.missingClasses.addMissing(name);
+					}
+					throw ex;
+				}
 			}
 			if (resolve) {
 				resolveClass(loadedClass);
@@ -109,6 +364,18 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 		}
 	}
 
+	private Object getLoadingLock(String name) {
+		if (GET_CLASS_LOADING_LOCK_METHOD != null) {
+			try {
+				return GET_CLASS_LOADING_LOCK_METHOD.invoke(this, name);
+			}
+			catch (Exception ex) {
+				// Fall back to the class loader lock
+			}
+		}
+		return this;
+	}
+
 	private Class<?> doLoadClass(String name) throws ClassNotFoundException {
 
 		// 1) Try the root class loader
@@ -117,22 +384,86 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 				return this.rootClassLoader.loadClass(name);
 			}
 		}
-		catch (Exception ex) {
+		catch (ClassNotFoundException ex) {
+			// Continue
 		}
 
 		// 2) Try to find locally
 		try {
 			return findClass(name);
 		}
-		catch (Exception ex) {
+		catch (ClassNotFoundException ex) {
+			// Continue
 		}
 
-		// 3) Use standard loading
+		// 3) Delegate to the parent (we have already searched locally)
+		ClassLoader parent = getParent();
+		if (parent != null) {
+			return parent.loadClass(name);
+		}
 		return super.loadClass(name, false);
 	}
 
 	@Override
-	protected Class<?> findClass(final String name) throws ClassNotFoundException {
+	protected void addURL(URL url) {
+		synchronized (this.packageIndexMonitor) {
+			super.addURL(url);
+			this.packageIndex = null;
+			this.packageIndexBuilt = false;
+			this.cacheMissing = PackageIndex.isIndexable(getURLs());
+			this.missingClasses.clear();
+			this.missingResources.clear();
+		}
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		ClassLoadTimer timer = LoaderStatistics.get().startClassLoad();
+		Class<?> foundClass = null;
+		try {
+			foundClass = doFindClass(name);
+		}
+		finally {
+			if (timer != null) {
+				timer.stop(foundClass == null ? null : getArchiveName(foundClass));
+			}
+		}
+		ClassLoadRecorder recorder = this.recorder;
+		if (recorder != null) {
+			recorder.record(name);
+		}
+		return foundClass;
+	}
+
+	private String getArchiveName(Class<?> foundClass) {
+		try {
+			CodeSource codeSource = foundClass.getProtectionDomain().getCodeSource();
+			if (codeSource != null && codeSource.getLocation() != null) {
+				return codeSource.getLocation().toString();
+			}
+		}
+		catch (SecurityException ex) {
+			// Ignore
+		}
+		return "unknown";
+	}
+
+	private Class<?> doFindClass(final String name) throws ClassNotFoundException {
+		final PackageIndex packageIndex = getPackageIndex();
+		if (packageIndex != null) {
+			try {
+				return AccessController.doPrivileged(
+						new PrivilegedExceptionAction<Class<?>>() {
+							@Override
+							public Class<?> run() throws ClassNotFoundException {
+								return findIndexedClass(packageIndex, name);
+							}
+						}, AccessController.getContext());
+			}
+			catch (PrivilegedActionException ex) {
+				throw (ClassNotFoundException) ex.getException();
+			}
+		}
 		int lastDot = name.lastIndexOf('.');
 		if (lastDot != -1) {
 			String packageName = name.substring(0, lastDot);
@@ -148,6 +479,72 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 		return super.findClass(name);
 	}
 
+	/**
+	 * Returns the {@link PackageIndex} for the current URLs, building it if necessary.
+	 * @return the package index or {@code null} if the URLs cannot be indexed
+	 */
+	private PackageIndex getPackageIndex() {
+		if (this.packageIndexBuilt) {
+			return this.packageIndex;
+		}
+		synchronized (this.packageIndexMonitor) {
+			if (!this.packageIndexBuilt) {
+				this.packageIndex = PackageIndex.build(getURLs());
+				this.packageIndexBuilt = true;
+			}
+			return this.packageIndex;
+		}
+	}
+
+	/**
+	 * Find a class using the {@link PackageIndex}, taking it from the
+	 * {@link ClassPrefetcher} if it has already been read.
+	 * @param packageIndex the package index
+	 * @param name the class name
+	 * @return the class
+	 * @throws ClassNotFoundException if the class is not in any indexed archive
+	 */
+	private Class<?> findIndexedClass(PackageIndex packageIndex, String name)
+			throws ClassNotFoundException {
+		ClassPrefetcher prefetcher = this.prefetcher;
+		IndexedClass indexedClass = (prefetcher == null ? null : prefetcher.take(name));
+		if (indexedClass == null) {
+			indexedClass = packageIndex.findClass(name);
+		}
+		if (indexedClass == null) {
+			throw new ClassNotFoundException(name);
+		}
+		try {
+			return defineIndexedClass(name, indexedClass);
+		}
+		catch (IOException ex) {
+			throw new ClassNotFoundException(name, ex);
+		}
+	}
+
+	private Class<?> defineIndexedClass(String name, IndexedClass indexedClass)
+			throws IOException {
+		String packageName = indexedClass.getPackageName();
+		IndexedArchive archive = indexedClass.getArchive();
+		if (packageName.length() > 0 && getPackage(packageName) == null) {
+			try {
+				Manifest manifest = archive.getJarFile().getManifest();
+				if (manifest != null) {
+					definePackage(packageName, manifest, archive.getUrl());
+				}
+				else {
+					definePackage(packageName, null, null, null, null, null, null, null);
+				}
+			}
+			catch (IllegalArgumentException ex) {
+				// Defined concurrently by another thread
+			}
+		}
+		byte[] bytes = indexedClass.getBytes();
+		CodeSource codeSource = new CodeSource(archive.getUrl(), (CodeSigner[]) null);
+		return defineClass(name, bytes, 0, bytes.length, codeSource);
+	}
+
 	/**
 	 * Define a package before a {@code findClass} call is made. This is necessary to
 	 * ensure that the appropriate manifest for nested JARs associated with the package.
@@ -160,6 +557,10 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 				public Object run() throws ClassNotFoundException {
 					String path = name.replace('.', '/').concat(".class");
 					for (URL url : getURLs()) {
+						if (!"jar".equals(url.getProtocol())) {
+							// Plain jars are handled by the URLClassLoader itself
+							continue;
+						}
 						try {
 							if (url.getContent() instanceof RandomAccessJarFile) {
 								RandomAccessJarFile jarFile = (RandomAccessJarFile) url
@@ -181,4 +582,5 @@ public class LaunchedURLClassLoader extends URLClassLoader {
 		catch (java.security.PrivilegedActionException pae) {
 		}
 	}
+
 }
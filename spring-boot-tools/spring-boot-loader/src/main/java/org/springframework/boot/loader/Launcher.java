@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.logging.Logger;
 
 import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.util.LoaderStatistics;
 
 /**
  * Base class for launchers that can start an application with a fully configured
@@ -84,6 +85,10 @@ public abstract class Launcher {
 
 	/**
 	 * Launch the application given the archive file and a fully configured classloader.
+	 * If the classloader is a {@link LaunchedURLClassLoader} any startup trace recording
+	 * or prefetching is started before the main class is loaded and finished once the
+	 * main method returns. If {@link LoaderStatistics#STATISTICS_PROPERTY} is set a
+	 * report of the loader statistics is logged once the main method returns.
 	 * @param args the incoming arguments
 	 * @param mainClass the main class to run
 	 * @param classLoader the classloader
@@ -91,7 +96,16 @@ public abstract class Launcher {
 	 */
 	protected void launch(String[] args, String mainClass, ClassLoader classLoader)
 			throws Exception {
+		if (classLoader instanceof LaunchedURLClassLoader) {
+			((LaunchedURLClassLoader) classLoader).startStartupTrace();
+		}
 		Runnable runner = createMainMethodRunner(mainClass, args, classLoader);
+		if (classLoader instanceof LaunchedURLClassLoader) {
+			runner = new StartupTraceRunner(runner, (LaunchedURLClassLoader) classLoader);
+		}
+		if (LoaderStatistics.isReportEnabled()) {
+			runner = new StatisticsReportRunner(runner, this.logger);
+		}
 		Thread runnerThread = new Thread(runner);
 		runnerThread.setContextClassLoader(classLoader);
 		runnerThread.setName(Thread.currentThread().getName());
@@ -127,4 +141,59 @@ public abstract class Launcher {
 	 * @throws Exception
 	 */
 	protected abstract List<Archive> getClassPathArchives() throws Exception;
+
+	/**
+	 * Decorates the main method runner to finish any startup trace once the main method
+	 * has returned.
+	 */
+	private static class StartupTraceRunner implements Runnable {
+
+		private final Runnable runner;
+
+		private final LaunchedURLClassLoader classLoader;
+
+		public StartupTraceRunner(Runnable runner, LaunchedURLClassLoader classLoader) {
+			this.runner = runner;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.runner.run();
+			}
+			finally {
+				this.classLoader.finishStartupTrace();
+			}
+		}
+
+	}
+
+	/**
+	 * Decorates the main method runner to log the {@link LoaderStatistics} once the main
+	 * method has returned.
+	 */
+	private static class StatisticsReportRunner implements Runnable {
+
+		private final Runnable runner;
+
+		private final Logger logger;
+
+		public StatisticsReportRunner(Runnable runner, Logger logger) {
+			this.runner = runner;
+			this.logger = logger;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.runner.run();
+			}
+			finally {
+				this.logger.info(LoaderStatistics.get().getReport());
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A bounded, thread-safe cache of names (classes or resources) that are known not to
+ * exist. Used by {@link LaunchedURLClassLoader} to avoid repeatedly searching every
+ * archive for names that applications commonly probe for but that are not present. When
+ * the cache is full an arbitrary name is evicted to make room.
+ * 
+ * @author Phillip Webb
+ * @see NegativeLookupCacheMBean
+ */
+public class NegativeLookupCache implements NegativeLookupCacheMBean {
+
+	private final ConcurrentMap<String, Boolean> names = new ConcurrentHashMap<String, Boolean>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final int maxSize;
+
+	/**
+	 * Create a new {@link NegativeLookupCache} instance.
+	 * @param maxSize the maximum number of names to hold ({@code 0} to disable the
+	 * cache)
+	 */
+	public NegativeLookupCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns {@code true} if the specified name is known not to exist.
+	 * @param name the name to check
+	 * @return if the name is known to be missing
+	 */
+	public boolean isMissing(String name) {
+		if (this.maxSize <= 0) {
+			return false;
+		}
+		if (this.names.containsKey(name)) {
+			this.hitCount.incrementAndGet();
+			return true;
+		}
+		this.missCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Record that the specified name does not exist.
+	 * @param name the missing name
+	 */
+	public void addMissing(String name) {
+		if (this.maxSize <= 0) {
+			return;
+		}
+		if (this.names.putIfAbsent(name, Boolean.TRUE) == null
+				&& this.size.incrementAndGet() > this.maxSize) {
+			Iterator<String> iterator = this.names.keySet().iterator();
+			while (iterator.hasNext() && this.size.get() > this.maxSize) {
+				if (this.names.remove(iterator.next()) != null) {
+					this.size.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	@Override
+	public int getSize() {
+		return Math.max(0, this.size.get());
+	}
+
+	@Override
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	@Override
+	public void clear() {
+		Iterator<String> iterator = this.names.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (this.names.remove(iterator.next()) != null) {
+				this.size.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Register the cache with the platform {@link MBeanServer}. Failures are ignored
+	 * since the cache is only used for diagnostics.
+	 * @param name the object name to use
+	 */
+	public void registerMBean(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(name);
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(this, objectName);
+			}
+		}
+		catch (Exception ex) {
+			// Ignore
+		}
+	}
+
+}
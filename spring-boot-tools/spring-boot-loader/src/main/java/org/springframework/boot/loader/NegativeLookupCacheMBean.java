@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+/**
+ * Management interface for a {@link NegativeLookupCache}.
+ * 
+ * @author Phillip Webb
+ */
+public interface NegativeLookupCacheMBean {
+
+	/**
+	 * Returns the number of lookups that were answered by the cache.
+	 * @return the hit count
+	 */
+	long getHitCount();
+
+	/**
+	 * Returns the number of lookups that were not answered by the cache.
+	 * @return the miss count
+	 */
+	long getMissCount();
+
+	/**
+	 * Returns the number of names currently held in the cache.
+	 * @return the size of the cache
+	 */
+	int getSize();
+
+	/**
+	 * Returns the maximum number of names that the cache will hold.
+	 * @return the maximum size
+	 */
+	int getMaxSize();
+
+	/**
+	 * Remove all names from the cache.
+	 */
+	void clear();
+
+}
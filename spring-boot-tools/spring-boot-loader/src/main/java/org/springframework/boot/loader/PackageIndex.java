@@ -0,0 +1,244 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+
+import org.springframework.boot.loader.jar.RandomAccessJarFile;
+
+/**
+ * Index of package names to the archives that contain them, built once from the
+ * {@link RandomAccessJarFile}s backing the {@link LaunchedURLClassLoader} URLs. Package
+ * names of nested jars are read from the repackage-time index so that the entries of a
+ * jar are only loaded when a class is first found in it.
+ * 
+ * @author Phillip Webb
+ */
+class PackageIndex {
+
+	private final Map<String, List<IndexedArchive>> archives = new HashMap<String, List<IndexedArchive>>();
+
+	/**
+	 * Returns the archives that contain the specified package, in URL order.
+	 * @param packageName the package name
+	 * @return the archives (never {@code null})
+	 */
+	public List<IndexedArchive> getArchives(String packageName) {
+		List<IndexedArchive> archives = this.archives.get(packageName);
+		return (archives == null ? Collections.<IndexedArchive> emptyList() : archives);
+	}
+
+	/**
+	 * Find the specified class. Only archives that contain the package of the class are
+	 * searched (more than one only for split packages).
+	 * @param name the class name
+	 * @return the class or {@code null} if the class is not in any indexed archive
+	 */
+	public IndexedClass findClass(String name) {
+		int lastDot = name.lastIndexOf('.');
+		String packageName = (lastDot == -1 ? "" : name.substring(0, lastDot));
+		String path = name.replace('.', '/').concat(".class");
+		for (IndexedArchive archive : getArchives(packageName)) {
+			JarEntry entry = archive.getJarFile().getJarEntry(path);
+			if (entry != null) {
+				return new IndexedClass(packageName, archive, entry);
+			}
+		}
+		return null;
+	}
+
+	private void add(IndexedArchive archive) throws IOException {
+		for (String packageName : archive.getJarFile().getPackageNames()) {
+			List<IndexedArchive> archives = this.archives.get(packageName);
+			if (archives == null) {
+				archives = new ArrayList<IndexedArchive>(1);
+				this.archives.put(packageName, archives);
+			}
+			archives.add(archive);
+		}
+	}
+
+	/**
+	 * Build a {@link PackageIndex} for the specified URLs.
+	 * @param urls the class loader URLs
+	 * @return the index or {@code null} if any URL is not backed by a
+	 * {@link RandomAccessJarFile}
+	 */
+	public static PackageIndex build(URL[] urls) {
+		PackageIndex index = new PackageIndex();
+		for (URL url : urls) {
+			RandomAccessJarFile jarFile = getJarFile(url);
+			if (jarFile == null) {
+				return null;
+			}
+			try {
+				index.add(new IndexedArchive(url, jarFile));
+			}
+			catch (IOException ex) {
+				return null;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns {@code true} if all of the specified URLs are backed by a
+	 * {@link RandomAccessJarFile}. Such archives are not expected to change while they
+	 * are in use, unlike {@code file:} directories.
+	 * @param urls the class loader URLs
+	 * @return if all URLs are backed by a {@link RandomAccessJarFile}
+	 */
+	public static boolean isIndexable(URL[] urls) {
+		for (URL url : urls) {
+			if (getJarFile(url) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static RandomAccessJarFile getJarFile(URL url) {
+		if (!"jar".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			Object content = url.getContent();
+			return (content instanceof RandomAccessJarFile ? (RandomAccessJarFile) content
+					: null);
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * A single archive in a {@link PackageIndex}.
+	 */
+	static class IndexedArchive {
+
+		private final URL url;
+
+		private final RandomAccessJarFile jarFile;
+
+		public IndexedArchive(URL url, RandomAccessJarFile jarFile) {
+			this.url = url;
+			this.jarFile = jarFile;
+		}
+
+		public URL getUrl() {
+			return this.url;
+		}
+
+		public RandomAccessJarFile getJarFile() {
+			return this.jarFile;
+		}
+
+	}
+
+	/**
+	 * A class found using a {@link PackageIndex}.
+	 */
+	static class IndexedClass {
+
+		private final String packageName;
+
+		private final IndexedArchive archive;
+
+		private final JarEntry entry;
+
+		private byte[] bytes;
+
+		public IndexedClass(String packageName, IndexedArchive archive, JarEntry entry) {
+			this.packageName = packageName;
+			this.archive = archive;
+			this.entry = entry;
+		}
+
+		public String getPackageName() {
+			return this.packageName;
+		}
+
+		public IndexedArchive getArchive() {
+			return this.archive;
+		}
+
+		public long getSize() {
+			return this.entry.getSize();
+		}
+
+		/**
+		 * Read the class bytes so that a later {@link #getBytes()} call does not need to
+		 * access the archive.
+		 * @throws IOException on read error
+		 */
+		public void prefetch() throws IOException {
+			this.bytes = readBytes();
+		}
+
+		/**
+		 * Returns the class bytes, reading them from the archive unless they have been
+		 * prefetched.
+		 * @return the class bytes
+		 * @throws IOException on read error
+		 */
+		public byte[] getBytes() throws IOException {
+			return (this.bytes != null ? this.bytes : readBytes());
+		}
+
+		private byte[] readBytes() throws IOException {
+			InputStream inputStream = this.archive.getJarFile().getInputStream(
+					this.entry);
+			try {
+				int size = (int) this.entry.getSize();
+				if (size < 0) {
+					ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+					byte[] buffer = new byte[4096];
+					int bytesRead;
+					while ((bytesRead = inputStream.read(buffer)) != -1) {
+						outputStream.write(buffer, 0, bytesRead);
+					}
+					return outputStream.toByteArray();
+				}
+				byte[] bytes = new byte[size];
+				int offset = 0;
+				while (offset < size) {
+					int bytesRead = inputStream.read(bytes, offset, size - offset);
+					if (bytesRead == -1) {
+						throw new EOFException("Unexpected end of class data");
+					}
+					offset += bytesRead;
+				}
+				return bytes;
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+
+	}
+
+}
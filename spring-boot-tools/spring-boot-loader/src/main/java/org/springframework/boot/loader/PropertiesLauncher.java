@@ -33,6 +33,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import org.springframework.boot.loader.archive.Archive;
@@ -318,38 +325,90 @@ public class PropertiesLauncher extends Launcher {
 
 	@Override
 	protected List<Archive> getClassPathArchives() throws Exception {
-		List<Archive> lib = new ArrayList<Archive>();
+		List<ArchiveOpener> openers = new ArrayList<ArchiveOpener>();
 		for (String path : this.paths) {
-			for (Archive archive : getClassPathArchives(path)) {
-				List<Archive> nested = new ArrayList<Archive>(
-						archive.getNestedArchives(new ArchiveEntryFilter()));
-				nested.add(0, archive);
-				lib.addAll(nested);
-			}
+			addArchiveOpeners(path, openers);
 		}
+		List<Archive> lib = openArchives(openers);
 		addParentClassLoaderEntries(lib);
 		return lib;
 	}
 
-	private List<Archive> getClassPathArchives(String path) throws Exception {
+	private void addArchiveOpeners(String path, List<ArchiveOpener> openers)
+			throws Exception {
 		String root = cleanupPath(stripFileUrlPrefix(path));
-		List<Archive> lib = new ArrayList<Archive>();
 		File file = new File(root);
 		if (!root.startsWith("/")) {
 			file = new File(this.home, root);
 		}
+		ArchiveEntryFilter filter = new ArchiveEntryFilter();
 		if (file.isDirectory()) {
 			this.logger.info("Adding classpath entries from " + file);
 			Archive archive = new ExplodedArchive(file);
-			lib.add(archive);
+			openers.add(new ArchiveOpener(archive));
+			for (Entry entry : archive.getEntries()) {
+				if (filter.matches(entry)) {
+					openers.add(new ArchiveOpener(new File(file, entry.getName())));
+				}
+			}
 		}
 		Archive nested = getNestedArchive(root);
 		if (nested != null) {
 			this.logger.info("Adding classpath entries from nested " + nested.getUrl()
 					+ root);
-			lib.add(nested);
+			openers.add(new ArchiveOpener(nested));
+			for (Archive archive : nested.getNestedArchives(filter)) {
+				openers.add(new ArchiveOpener(archive));
+			}
+		}
+	}
+
+	/**
+	 * Open the archives concurrently on a pool bounded by the number of available
+	 * processors. The returned archives are in the same order as the openers.
+	 * @param openers the archive openers
+	 * @return the opened archives
+	 * @throws Exception
+	 */
+	private List<Archive> openArchives(List<ArchiveOpener> openers) throws Exception {
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(),
+				openers.size());
+		List<Archive> archives = new ArrayList<Archive>(openers.size());
+		if (threads <= 1) {
+			for (ArchiveOpener opener : openers) {
+				archives.add(opener.call());
+			}
+			return archives;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "archive-opener-"
+								+ this.count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			for (Future<Archive> archive : executor.invokeAll(openers)) {
+				try {
+					archives.add(archive.get());
+				}
+				catch (ExecutionException ex) {
+					if (ex.getCause() instanceof Exception) {
+						throw (Exception) ex.getCause();
+					}
+					throw ex;
+				}
+			}
+			return archives;
+		}
+		finally {
+			executor.shutdownNow();
 		}
-		return lib;
 	}
 
 	private Archive getNestedArchive(final String root) throws Exception {
@@ -416,6 +475,42 @@ public class PropertiesLauncher extends Launcher {
 		new PropertiesLauncher().launch(args);
 	}
 
+	/**
+	 * Opens a single classpath archive, either from a file or by reading the entries of
+	 * an existing (lazily opened) archive, and logs how long it took.
+	 */
+	private class ArchiveOpener implements Callable<Archive> {
+
+		private final File file;
+
+		private final Archive archive;
+
+		public ArchiveOpener(File file) {
+			this.file = file;
+			this.archive = null;
+		}
+
+		public ArchiveOpener(Archive archive) {
+			this.file = null;
+			this.archive = archive;
+		}
+
+		@Override
+		public Archive call() throws Exception {
+			long start = System.nanoTime();
+			Archive archive = this.archive;
+			if (archive == null) {
+				archive = (this.file.isDirectory() ? new ExplodedArchive(this.file)
+						: new JarFileArchive(this.file));
+			}
+			archive.getManifest();
+			PropertiesLauncher.this.logger.fine("Opened " + archive.getUrl() + " in "
+					+ (System.nanoTime() - start) / 1000000 + "ms");
+			return archive;
+		}
+
+	}
+
 	/**
 	 * Convenience class for finding nested archives (archive entries that can be
 	 * classpath entries).
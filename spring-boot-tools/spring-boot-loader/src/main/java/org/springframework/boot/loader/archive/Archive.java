@@ -16,6 +16,7 @@
 
 package org.springframework.boot.loader.archive;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -88,6 +89,22 @@ public abstract class Archive {
 	public abstract List<Archive> getNestedArchives(EntryFilter filter)
 			throws IOException;
 
+	/**
+	 * Returns nested {@link Archive}s for entries that match the specified filter,
+	 * extracting nested jars into the given cache directory where the archive supports
+	 * it. Extracted jars are named by their content so that they are only written once
+	 * and can be used directly by the JDK. By default this method is equivalent to
+	 * {@link #getNestedArchives(EntryFilter)}.
+	 * @param filter the filter used to limit entries
+	 * @param cacheDirectory the directory used to cache extracted jars
+	 * @return nested archives
+	 * @throws IOException
+	 */
+	public List<Archive> getExtractedNestedArchives(EntryFilter filter,
+			File cacheDirectory) throws IOException {
+		return getNestedArchives(filter);
+	}
+
 	/**
 	 * Returns a filtered version of the archive.
 	 * @param filter the filter to apply
@@ -33,10 +33,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.jar.Manifest;
 
 /**
- * {@link Archive} implementation backed by an exploded archive directory.
+ * {@link Archive} implementation backed by an exploded archive directory. Entries are
+ * resolved lazily when looked up, using a cache of directory listings, and the directory
+ * tree is only walked when all entries are requested.
  * 
  * @author Phillip Webb
  */
@@ -45,11 +49,16 @@ public class ExplodedArchive extends Archive {
 	private static final Set<String> SKIPPED_NAMES = new HashSet<String>(Arrays.asList(
 			".", ".."));
 
-	private static final Object MANIFEST_ENTRY_NAME = "META-INF/MANIFEST.MF";
+	private static final String MANIFEST_ENTRY_NAME = "META-INF/MANIFEST.MF";
 
 	private File root;
 
-	private Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+	/**
+	 * Entries of a filtered archive or {@code null} if entries are resolved lazily.
+	 */
+	private Map<String, Entry> entries;
+
+	private final ConcurrentMap<String, Set<String>> directoryListings = new ConcurrentHashMap<String, Set<String>>();
 
 	private Manifest manifest;
 
@@ -58,8 +67,6 @@ public class ExplodedArchive extends Archive {
 			throw new IllegalArgumentException("Invalid source folder " + root);
 		}
 		this.root = root;
-		buildEntries(root);
-		this.entries = Collections.unmodifiableMap(this.entries);
 	}
 
 	private ExplodedArchive(File root, Map<String, Entry> entries) {
@@ -67,22 +74,71 @@ public class ExplodedArchive extends Archive {
 		this.entries = Collections.unmodifiableMap(entries);
 	}
 
-	private void buildEntries(File file) {
-		if (!file.equals(this.root)) {
-			String name = file.getAbsolutePath().substring(
-					this.root.getAbsolutePath().length() + 1);
-			if (file.isDirectory()) {
-				name += "/";
+	/**
+	 * Walk the directory tree adding all entries in listing order. Directory listings
+	 * are cached as they are read so that later lookups do not list them again.
+	 * @param directory the directory to walk
+	 * @param directoryName the entry name of the directory ("" for the root)
+	 * @param entries the entries to add to
+	 */
+	private void buildEntries(File directory, String directoryName,
+			Map<String, Entry> entries) {
+		String[] list = directory.list();
+		if (list == null) {
+			return;
+		}
+		this.directoryListings.put(directoryName,
+				new HashSet<String>(Arrays.asList(list)));
+		for (String childName : list) {
+			if (!SKIPPED_NAMES.contains(childName)) {
+				File child = new File(directory, childName);
+				boolean childDirectory = child.isDirectory();
+				String name = directoryName + childName + (childDirectory ? "/" : "");
+				entries.put(name, new FileEntry(name, child, childDirectory));
+				if (childDirectory) {
+					buildEntries(child, name, entries);
+				}
 			}
-			this.entries.put(name, new FileEntry(name, file));
 		}
-		if (file.isDirectory()) {
-			for (File child : file.listFiles()) {
-				if (!SKIPPED_NAMES.contains(child.getName())) {
-					buildEntries(child);
+	}
+
+	/**
+	 * Return the entry with the specified name or {@code null}. Unless the archive is
+	 * filtered the entry is resolved by checking that each element of its path is listed
+	 * in its parent directory.
+	 * @param name the entry name (directory names end with '/')
+	 * @return the entry or {@code null}
+	 */
+	private Entry getEntry(String name) {
+		if (this.entries != null) {
+			return this.entries.get(name);
+		}
+		boolean directory = name.endsWith("/");
+		String path = (directory ? name.substring(0, name.length() - 1) : name);
+		int lastSlash = path.lastIndexOf('/');
+		String childName = path.substring(lastSlash + 1);
+		if (childName.length() == 0 || SKIPPED_NAMES.contains(childName)
+				|| !getChildNames(path.substring(0, lastSlash + 1)).contains(childName)) {
+			return null;
+		}
+		File file = new File(this.root, path);
+		return (file.isDirectory() == directory ? new FileEntry(name, file, directory)
+				: null);
+	}
+
+	private Set<String> getChildNames(String directoryName) {
+		Set<String> names = this.directoryListings.get(directoryName);
+		if (names == null) {
+			names = Collections.emptySet();
+			if (directoryName.length() == 0 || getEntry(directoryName) != null) {
+				String[] list = new File(this.root, directoryName).list();
+				if (list != null) {
+					names = new HashSet<String>(Arrays.asList(list));
 				}
 			}
+			this.directoryListings.put(directoryName, names);
 		}
+		return names;
 	}
 
 	@Override
@@ -93,14 +149,16 @@ public class ExplodedArchive extends Archive {
 
 	@Override
 	public Manifest getManifest() throws IOException {
-		if (this.manifest == null && this.entries.containsKey(MANIFEST_ENTRY_NAME)) {
-			FileEntry entry = (FileEntry) this.entries.get(MANIFEST_ENTRY_NAME);
-			FileInputStream inputStream = new FileInputStream(entry.getFile());
-			try {
-				this.manifest = new Manifest(inputStream);
-			}
-			finally {
-				inputStream.close();
+		if (this.manifest == null) {
+			FileEntry entry = (FileEntry) getEntry(MANIFEST_ENTRY_NAME);
+			if (entry != null) {
+				FileInputStream inputStream = new FileInputStream(entry.getFile());
+				try {
+					this.manifest = new Manifest(inputStream);
+				}
+				finally {
+					inputStream.close();
+				}
 			}
 		}
 		return this.manifest;
@@ -119,7 +177,16 @@ public class ExplodedArchive extends Archive {
 
 	@Override
 	public Collection<Entry> getEntries() {
-		return Collections.unmodifiableCollection(this.entries.values());
+		return Collections.unmodifiableCollection(getEntriesMap().values());
+	}
+
+	private Map<String, Entry> getEntriesMap() {
+		if (this.entries != null) {
+			return this.entries;
+		}
+		Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		buildEntries(this.root, "", entries);
+		return entries;
 	}
 
 	protected Archive getNestedArchive(Entry entry) throws IOException {
@@ -130,11 +197,12 @@ public class ExplodedArchive extends Archive {
 	@Override
 	public Archive getFilteredArchive(EntryRenameFilter filter) throws IOException {
 		Map<String, Entry> filteredEntries = new LinkedHashMap<String, Archive.Entry>();
-		for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+		for (Map.Entry<String, Entry> entry : getEntriesMap().entrySet()) {
 			String filteredName = filter.apply(entry.getKey(), entry.getValue());
 			if (filteredName != null) {
+				FileEntry fileEntry = (FileEntry) entry.getValue();
 				filteredEntries.put(filteredName, new FileEntry(filteredName,
-						((FileEntry) entry.getValue()).getFile()));
+						fileEntry.getFile(), fileEntry.isDirectory()));
 			}
 		}
 		return new ExplodedArchive(this.root, filteredEntries);
@@ -144,10 +212,12 @@ public class ExplodedArchive extends Archive {
 
 		private final String name;
 		private final File file;
+		private final boolean directory;
 
-		public FileEntry(String name, File file) {
+		public FileEntry(String name, File file, boolean directory) {
 			this.name = name;
 			this.file = file;
+			this.directory = directory;
 		}
 
 		public File getFile() {
@@ -156,7 +226,7 @@ public class ExplodedArchive extends Archive {
 
 		@Override
 		public boolean isDirectory() {
-			return this.file.isDirectory();
+			return this.directory;
 		}
 
 		@Override
@@ -177,7 +247,7 @@ public class ExplodedArchive extends Archive {
 		protected URLConnection openConnection(URL url) throws IOException {
 			String name = url.getPath().substring(
 					ExplodedArchive.this.root.getAbsolutePath().length() + 1);
-			if (ExplodedArchive.this.entries.containsKey(name)) {
+			if (getEntry(name) != null) {
 				return new URL(url.toString()).openConnection();
 			}
 			return new FileNotFoundURLConnection(url, name);
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.archive;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.jar.JarEntry;
+
+import org.springframework.boot.loader.jar.RandomAccessJarFile;
+
+/**
+ * Content addressed cache of nested jars extracted to disk. Each jar is written to a
+ * sub-directory named by the SHA-256 digest of its content and keeps its original file
+ * name. The digest is taken from the nested jar index that is written at repackage time
+ * so a cached jar can be found without reading the nested jar, the nested jar is only
+ * digested when the archive has no index. A cached jar is only reused after its digest
+ * has been verified, otherwise it is extracted again. Directories created by the cache are only accessible by their owner.
+ * 
+ * @author Phillip Webb
+ */
+class ExtractedJarCache {
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private final File directory;
+
+	public ExtractedJarCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Return a validated file containing the specified nested jar, extracting it if
+	 * necessary.
+	 * @param jarFile the containing jar file
+	 * @param entry the nested jar entry
+	 * @return the extracted file
+	 * @throws IOException
+	 */
+	public File get(RandomAccessJarFile jarFile, JarEntry entry) throws IOException {
+		String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+		byte[] indexedDigest = jarFile.getNestedJarDigest(entry);
+		String digest = (indexedDigest != null ? toHex(indexedDigest) : digest(
+				jarFile.getInputStream(entry), null));
+		File directory = new File(this.directory, digest);
+		File file = new File(directory, name);
+		if (isValid(file, entry, digest)) {
+			return file;
+		}
+		createDirectory(this.directory);
+		createDirectory(directory);
+		File extracting = File.createTempFile(name + ".", ".tmp", directory);
+		try {
+			OutputStream outputStream = new FileOutputStream(extracting);
+			try {
+				if (!digest.equals(digest(jarFile.getInputStream(entry), outputStream))) {
+					throw new IOException("Unexpected content when extracting "
+							+ entry.getName() + " from " + jarFile.getName());
+				}
+			}
+			finally {
+				outputStream.close();
+			}
+			// Another process may have extracted the same jar at the same time
+			if (!extracting.renameTo(file) && !isValid(file, entry, digest)) {
+				throw new IOException("Unable to extract " + entry.getName() + " to "
+						+ file);
+			}
+		}
+		finally {
+			extracting.delete();
+		}
+		return file;
+	}
+
+	private boolean isValid(File file, JarEntry entry, String digest)
+			throws IOException {
+		return (file.isFile() && file.length() == entry.getSize() && digest
+				.equals(digest(new FileInputStream(file), null)));
+	}
+
+	private void createDirectory(File directory) throws IOException {
+		if (directory.isDirectory()) {
+			return;
+		}
+		if (!directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("Unable to create cache directory " + directory);
+		}
+		// Other users must not be able to plant or replace cached jars
+		directory.setReadable(false, false);
+		directory.setReadable(true, true);
+		directory.setWritable(false, false);
+		directory.setWritable(true, true);
+		directory.setExecutable(false, false);
+		directory.setExecutable(true, true);
+	}
+
+	/**
+	 * Calculate the hex encoded digest of a stream, optionally copying it.
+	 * @param inputStream the input stream (closed by this method)
+	 * @param outputStream an output stream to copy to or {@code null}
+	 * @return the digest
+	 * @throws IOException
+	 */
+	private String digest(InputStream inputStream, OutputStream outputStream)
+			throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int bytesRead;
+			while ((bytesRead = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, bytesRead);
+				if (outputStream != null) {
+					outputStream.write(buffer, 0, bytesRead);
+				}
+			}
+			return toHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	private String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.boot.loader.archive;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -75,6 +76,18 @@ public class FilteredArchive extends Archive {
 		});
 	}
 
+	@Override
+	public List<Archive> getExtractedNestedArchives(final EntryFilter filter,
+			File cacheDirectory) throws IOException {
+		return this.parent.getExtractedNestedArchives(new EntryFilter() {
+			@Override
+			public boolean matches(Entry entry) {
+				return FilteredArchive.this.filter.matches(entry)
+						&& filter.matches(entry);
+			}
+		}, cacheDirectory);
+	}
+
 	@Override
 	public Archive getFilteredArchive(final EntryRenameFilter filter) throws IOException {
 		return this.parent.getFilteredArchive(new EntryRenameFilter() {
@@ -32,7 +32,9 @@ import org.springframework.boot.loader.jar.JarEntryFilter;
 import org.springframework.boot.loader.jar.RandomAccessJarFile;
 
 /**
- * {@link Archive} implementation backed by a {@link RandomAccessJarFile}.
+ * {@link Archive} implementation backed by a {@link RandomAccessJarFile}. Nested
+ * archives are lightweight handles, the entries of a nested jar are only read when they
+ * are first needed.
  * 
  * @author Phillip Webb
  */
@@ -40,7 +42,7 @@ public class JarFileArchive extends Archive {
 
 	private final RandomAccessJarFile jarFile;
 
-	private final List<Entry> entries;
+	private List<Entry> entries;
 
 	public JarFileArchive(File file) throws IOException {
 		this(new RandomAccessJarFile(file));
@@ -48,12 +50,6 @@ public class JarFileArchive extends Archive {
 
 	public JarFileArchive(RandomAccessJarFile jarFile) {
 		this.jarFile = jarFile;
-		ArrayList<Entry> jarFileEntries = new ArrayList<Entry>();
-		Enumeration<JarEntry> entries = jarFile.entries();
-		while (entries.hasMoreElements()) {
-			jarFileEntries.add(new JarFileEntry(entries.nextElement()));
-		}
-		this.entries = Collections.unmodifiableList(jarFileEntries);
 	}
 
 	@Override
@@ -78,8 +74,36 @@ public class JarFileArchive extends Archive {
 	}
 
 	@Override
-	public Collection<Entry> getEntries() {
-		return Collections.unmodifiableCollection(this.entries);
+	public List<Archive> getExtractedNestedArchives(EntryFilter filter,
+			File cacheDirectory) throws IOException {
+		ExtractedJarCache cache = new ExtractedJarCache(cacheDirectory);
+		List<Archive> nestedArchives = new ArrayList<Archive>();
+		for (Entry entry : getEntries()) {
+			if (filter.matches(entry)) {
+				if (entry.isDirectory()) {
+					nestedArchives.add(getNestedArchive(entry));
+				}
+				else {
+					JarEntry jarEntry = ((JarFileEntry) entry).getJarEntry();
+					nestedArchives.add(new JdkJarFileArchive(cache.get(this.jarFile,
+							jarEntry)));
+				}
+			}
+		}
+		return Collections.unmodifiableList(nestedArchives);
+	}
+
+	@Override
+	public synchronized Collection<Entry> getEntries() {
+		if (this.entries == null) {
+			ArrayList<Entry> jarFileEntries = new ArrayList<Entry>();
+			Enumeration<JarEntry> entries = this.jarFile.entries();
+			while (entries.hasMoreElements()) {
+				jarFileEntries.add(new JarFileEntry(entries.nextElement()));
+			}
+			this.entries = Collections.unmodifiableList(jarFileEntries);
+		}
+		return this.entries;
 	}
 
 	protected Archive getNestedArchive(Entry entry) throws IOException {
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * {@link Archive} implementation for a plain jar file on disk. The archive
+ * {@link #getUrl() URL} is a regular {@code file:} URL so that class loading is handled
+ * by the JDK's own {@link JarFile} implementation rather than a
+ * {@link JarFileArchive}. The manifest and entries are read on demand and nested
+ * archives are delegated to a {@link JarFileArchive}.
+ * 
+ * @author Phillip Webb
+ * @see JarFileArchive#getExtractedNestedArchives(EntryFilter, File)
+ */
+public class JdkJarFileArchive extends Archive {
+
+	private final File file;
+
+	private Manifest manifest;
+
+	private boolean manifestLoaded;
+
+	private List<Entry> entries;
+
+	public JdkJarFileArchive(File file) {
+		this.file = file;
+	}
+
+	public File getFile() {
+		return this.file;
+	}
+
+	@Override
+	public URL getUrl() throws MalformedURLException {
+		return this.file.toURI().toURL();
+	}
+
+	@Override
+	public synchronized Manifest getManifest() throws IOException {
+		if (!this.manifestLoaded) {
+			JarFile jarFile = new JarFile(this.file);
+			try {
+				this.manifest = jarFile.getManifest();
+				this.manifestLoaded = true;
+			}
+			finally {
+				jarFile.close();
+			}
+		}
+		return this.manifest;
+	}
+
+	@Override
+	public synchronized Collection<Entry> getEntries() {
+		if (this.entries == null) {
+			try {
+				List<Entry> entries = new ArrayList<Entry>();
+				JarFile jarFile = new JarFile(this.file);
+				try {
+					Enumeration<JarEntry> jarEntries = jarFile.entries();
+					while (jarEntries.hasMoreElements()) {
+						JarEntry jarEntry = jarEntries.nextElement();
+						entries.add(new JdkJarFileEntry(jarEntry.getName(), jarEntry
+								.isDirectory()));
+					}
+				}
+				finally {
+					jarFile.close();
+				}
+				this.entries = Collections.unmodifiableList(entries);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Unable to read entries from "
+						+ this.file, ex);
+			}
+		}
+		return this.entries;
+	}
+
+	@Override
+	public List<Archive> getNestedArchives(EntryFilter filter) throws IOException {
+		return new JarFileArchive(this.file).getNestedArchives(filter);
+	}
+
+	@Override
+	public Archive getFilteredArchive(EntryRenameFilter filter) throws IOException {
+		return new JarFileArchive(this.file).getFilteredArchive(filter);
+	}
+
+	/**
+	 * {@link Archive.Entry} implementation for an entry of a {@link JdkJarFileArchive}.
+	 */
+	private static class JdkJarFileEntry implements Entry {
+
+		private final String name;
+
+		private final boolean directory;
+
+		public JdkJarFileEntry(String name, boolean directory) {
+			this.name = name;
+			this.directory = directory;
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return this.directory;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+	}
+
+}
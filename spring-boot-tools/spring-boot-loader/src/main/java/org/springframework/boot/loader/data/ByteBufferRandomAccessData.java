@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.data;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.springframework.boot.loader.util.LoaderStatistics;
+
+/**
+ * {@link RandomAccessData} implementation backed by a {@link ByteBuffer} (usually a
+ * memory mapped file). Subsections are zero-copy slices of the same buffer and reads
+ * never block or require system calls.
+ * 
+ * @author Phillip Webb
+ */
+class ByteBufferRandomAccessData implements RandomAccessData {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Create a new {@link ByteBufferRandomAccessData} for the remaining bytes of the
+	 * given buffer. The buffer is never modified.
+	 * @param buffer the underlying buffer
+	 */
+	public ByteBufferRandomAccessData(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return new ByteBufferInputStream(this.buffer.duplicate());
+	}
+
+	@Override
+	public RandomAccessData getSubsection(long offset, long length) {
+		if (offset < 0 || length < 0 || offset + length > this.buffer.capacity()) {
+			throw new IndexOutOfBoundsException();
+		}
+		ByteBuffer subsection = this.buffer.duplicate();
+		subsection.limit((int) (offset + length));
+		subsection.position((int) offset);
+		return new ByteBufferRandomAccessData(subsection);
+	}
+
+	@Override
+	public long getSize() {
+		return this.buffer.capacity();
+	}
+
+	/**
+	 * {@link InputStream} that reads from its own duplicate of the buffer.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		public ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			LoaderStatistics.get().bytesRead(1);
+			return this.buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b) {
+			return read(b, 0, b == null ? 0 : b.length);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (b == null) {
+				throw new NullPointerException("Bytes must not be null");
+			}
+			if (len == 0) {
+				return 0;
+			}
+			int amount = Math.min(len, this.buffer.remaining());
+			if (amount <= 0) {
+				return -1;
+			}
+			this.buffer.get(b, off, amount);
+			LoaderStatistics.get().bytesRead(amount);
+			return amount;
+		}
+
+		@Override
+		public long skip(long n) {
+			if (n <= 0) {
+				return 0;
+			}
+			int amount = (int) Math.min(n, this.buffer.remaining());
+			this.buffer.position(this.buffer.position() + amount);
+			return amount;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+
+	}
+
+}
@@ -20,23 +20,45 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 
+import org.springframework.boot.loader.util.LoaderStatistics;
+
 /**
- * {@link RandomAccessData} implementation backed by a {@link RandomAccessFile}.
+ * {@link RandomAccessData} implementation backed by a {@link RandomAccessFile}. Reads are
+ * performed using a pool of {@link RandomAccessFile}s. Files that are no larger than an
+ * optional mapping threshold are instead memory mapped so that reads (including reads
+ * from subsections) are served directly from memory.
+ * <p>
+ * Memory mapping is disabled by default. A mapping cannot be released by
+ * {@link #close()}, it remains until the buffer is garbage collected. While it exists the
+ * file cannot be deleted or replaced on Windows and rewriting the file in place can crash
+ * the JVM. Only enable mapping for files that are not modified while they are in use.
  * 
  * @author Phillip Webb
  */
 public class RandomAccessDataFile implements RandomAccessData {
 
+	/**
+	 * System property that can be used to set the mapping threshold (in bytes). Files no
+	 * larger than the threshold are memory mapped. Defaults to {@code 0} (no mapping).
+	 */
+	public static final String MAPPING_THRESHOLD_PROPERTY = "loader.mmap.threshold";
+
 	private static final int DEFAULT_CONCURRENT_READS = 4;
 
+	private static final long DEFAULT_MAPPING_THRESHOLD = 0;
+
 	private File file;
 
 	private final FilePool filePool;
 
+	private final RandomAccessData mappedData;
+
 	private final long offset;
 
 	private final long length;
@@ -60,6 +82,19 @@ public class RandomAccessDataFile implements RandomAccessData {
 	 * @see #RandomAccessDataFile(File)
 	 */
 	public RandomAccessDataFile(File file, int concurrentReads) {
+		this(file, concurrentReads, getDefaultMappingThreshold());
+	}
+
+	/**
+	 * Create a new {@link RandomAccessDataFile} backed by the specified file.
+	 * @param file the underlying file
+	 * @param concurrentReads the maximum number of concurrent reads allowed on the
+	 * underlying file before blocking (only used when the file is not mapped)
+	 * @param mappingThreshold the maximum size of file that will be memory mapped or
+	 * {@code 0} if the file should not be mapped
+	 * @throws IllegalArgumentException if the file is null or does not exist
+	 */
+	public RandomAccessDataFile(File file, int concurrentReads, long mappingThreshold) {
 		if (file == null) {
 			throw new IllegalArgumentException("File must not be null");
 		}
@@ -70,6 +105,8 @@ public class RandomAccessDataFile implements RandomAccessData {
 		this.filePool = new FilePool(concurrentReads);
 		this.offset = 0L;
 		this.length = file.length();
+		this.mappedData = (this.length > 0 && this.length <= mappingThreshold
+				&& this.length <= Integer.MAX_VALUE ? map(file, this.length) : null);
 	}
 
 	/**
@@ -80,10 +117,39 @@ public class RandomAccessDataFile implements RandomAccessData {
 	 */
 	private RandomAccessDataFile(FilePool pool, long offset, long length) {
 		this.filePool = pool;
+		this.mappedData = null;
 		this.offset = offset;
 		this.length = length;
 	}
 
+	private static long getDefaultMappingThreshold() {
+		try {
+			return Long.getLong(MAPPING_THRESHOLD_PROPERTY, DEFAULT_MAPPING_THRESHOLD);
+		}
+		catch (SecurityException ex) {
+			return DEFAULT_MAPPING_THRESHOLD;
+		}
+	}
+
+	private static RandomAccessData map(File file, long length) {
+		try {
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = randomAccessFile.getChannel();
+				// The mapping remains valid once the channel is closed
+				return new ByteBufferRandomAccessData(channel.map(MapMode.READ_ONLY, 0,
+						length));
+			}
+			finally {
+				randomAccessFile.close();
+			}
+		}
+		catch (IOException ex) {
+			// Fall back to the file pool
+			return null;
+		}
+	}
+
 	/**
 	 * Returns the underling File.
 	 * @return the underlying file
@@ -92,8 +158,19 @@ public class RandomAccessDataFile implements RandomAccessData {
 		return this.file;
 	}
 
+	/**
+	 * Returns {@code true} if the file has been memory mapped.
+	 * @return if the file is mapped
+	 */
+	public boolean isMapped() {
+		return this.mappedData != null;
+	}
+
 	@Override
 	public InputStream getInputStream() {
+		if (this.mappedData != null) {
+			return this.mappedData.getInputStream();
+		}
 		return new DataInputStream();
 	}
 
@@ -102,6 +179,9 @@ public class RandomAccessDataFile implements RandomAccessData {
 		if (offset < 0 || length < 0 || offset + length > this.length) {
 			throw new IndexOutOfBoundsException();
 		}
+		if (this.mappedData != null) {
+			return this.mappedData.getSubsection(offset, length);
+		}
 		return new RandomAccessDataFile(this.filePool, this.offset + offset, length);
 	}
 
@@ -110,6 +190,11 @@ public class RandomAccessDataFile implements RandomAccessData {
 		return this.length;
 	}
 
+	/**
+	 * Close the pooled {@link RandomAccessFile}s. Any memory mapping is not released
+	 * until it is garbage collected.
+	 * @throws IOException if the files cannot be closed
+	 */
 	public void close() throws IOException {
 		this.filePool.close();
 	}
@@ -162,10 +247,13 @@ public class RandomAccessDataFile implements RandomAccessData {
 				if (b == null) {
 					int rtn = file.read();
 					moveOn(rtn == -1 ? 0 : 1);
+					LoaderStatistics.get().bytesRead(rtn == -1 ? 0 : 1);
 					return rtn;
 				}
 				else {
-					return (int) moveOn(file.read(b, off, (int) cap(len)));
+					int amount = (int) moveOn(file.read(b, off, (int) cap(len)));
+					LoaderStatistics.get().bytesRead(amount);
+					return amount;
 				}
 			}
 			finally {
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.jar;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.boot.loader.data.RandomAccessData;
+
+/**
+ * Utilities for dealing with bytes from ZIP files.
+ * 
+ * @author Phillip Webb
+ */
+final class Bytes {
+
+	private static final byte[] EMPTY_BYTES = new byte[] {};
+
+	private Bytes() {
+	}
+
+	/**
+	 * Read all of the specified data into a byte array.
+	 * @param data the data to read
+	 * @return the bytes
+	 * @throws IOException
+	 */
+	public static byte[] get(RandomAccessData data) throws IOException {
+		InputStream inputStream = data.getInputStream();
+		try {
+			return get(inputStream, data.getSize());
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Read the specified number of bytes from an input stream.
+	 * @param inputStream the source stream
+	 * @param length the number of bytes to read
+	 * @return the bytes
+	 * @throws IOException
+	 */
+	public static byte[] get(InputStream inputStream, long length) throws IOException {
+		if (length == 0) {
+			return EMPTY_BYTES;
+		}
+		byte[] bytes = new byte[(int) length];
+		int offset = 0;
+		while (offset < bytes.length) {
+			int read = inputStream.read(bytes, offset, bytes.length - offset);
+			if (read == -1) {
+				throw new EOFException("Unexpected end of data after " + offset
+						+ " bytes");
+			}
+			offset += read;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Return an unsigned little endian value from the specified bytes.
+	 * @param bytes the source bytes
+	 * @param offset the offset of the value
+	 * @param length the number of bytes in the value (at most 8)
+	 * @return the value
+	 */
+	public static long littleEndianValue(byte[] bytes, int offset, int length) {
+		long value = 0;
+		for (int i = length - 1; i >= 0; i--) {
+			value = ((value << 8) | (bytes[offset + i] & 0xFF));
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.jar;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact table of the entries contained in a {@link RandomAccessJarFile}. Entry details
+ * are held in parallel primitive arrays and entry names, extra data and comments are
+ * packed into a single UTF-8 byte block. Names are located using an open addressing hash
+ * table of entry indexes so that no objects need to be retained for an entry until it is
+ * actually requested.
+ * <p>
+ * Entries are {@link #add added} (and the last entry optionally
+ * {@link #renameLast(String) renamed} or {@link #removeLast() removed}) before the table
+ * is {@link #build() built}. Once built the table is not modified other than to record
+ * local header lengths as they are discovered.
+ * 
+ * @author Phillip Webb
+ */
+class JarEntryTable {
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private int size;
+
+	private int[] hashes;
+
+	private int[] offsets;
+
+	private int[] nameLengths;
+
+	private char[] extraLengths;
+
+	private char[] commentLengths;
+
+	private long[] localHeaderOffsets;
+
+	private int[] headerLengths;
+
+	private short[] methods;
+
+	private long[] times;
+
+	private int[] crcs;
+
+	private int[] compressedSizes;
+
+	private int[] sizes;
+
+	private byte[] block;
+
+	private int blockSize;
+
+	private int[] slots;
+
+	private BitSet replaced;
+
+	/**
+	 * Create a new {@link JarEntryTable} instance.
+	 * @param expectedSize the expected number of entries
+	 */
+	public JarEntryTable(int expectedSize) {
+		allocate(Math.max(expectedSize, MINIMUM_CAPACITY));
+		this.block = new byte[Math.max(expectedSize, MINIMUM_CAPACITY) * 32];
+	}
+
+	/**
+	 * Add a new entry to the table.
+	 * @param name the entry name
+	 * @param localHeaderOffset the offset of the local file header
+	 * @param headerLength the length of the local file header (including the name and
+	 * extra data) or {@code 0} if not known
+	 * @param method the compression method
+	 * @param time the modification time
+	 * @param crc the CRC-32 of the uncompressed data
+	 * @param compressedSize the size of the compressed data
+	 * @param size the size of the uncompressed data
+	 * @param extra the extra field data or {@code null}
+	 * @param comment the comment or {@code null}
+	 */
+	public void add(String name, long localHeaderOffset, int headerLength, int method,
+			long time, long crc, long compressedSize, long size, byte[] extra,
+			String comment) {
+		if (this.size == this.hashes.length) {
+			allocate(this.size * 2);
+		}
+		int index = this.size++;
+		this.offsets[index] = this.blockSize;
+		this.extraLengths[index] = (char) append(extra);
+		this.commentLengths[index] = (char) append(comment == null ? null
+				: getBytes(comment));
+		this.localHeaderOffsets[index] = localHeaderOffset;
+		this.headerLengths[index] = headerLength;
+		this.methods[index] = (short) method;
+		this.times[index] = time;
+		this.crcs[index] = (int) crc;
+		this.compressedSizes[index] = (int) compressedSize;
+		this.sizes[index] = (int) size;
+		setName(index, name);
+	}
+
+	/**
+	 * Rename the most recently added entry.
+	 * @param name the new name
+	 */
+	public void renameLast(String name) {
+		int index = this.size - 1;
+		this.blockSize = getNameOffset(index);
+		setName(index, name);
+	}
+
+	/**
+	 * Remove the most recently added entry.
+	 */
+	public void removeLast() {
+		this.size--;
+		this.blockSize = this.offsets[this.size];
+	}
+
+	private void setName(int index, String name) {
+		this.hashes[index] = name.hashCode();
+		this.nameLengths[index] = append(getBytes(name));
+	}
+
+	private int append(byte[] bytes) {
+		if (bytes == null) {
+			return 0;
+		}
+		if (this.blockSize + bytes.length > this.block.length) {
+			this.block = Arrays.copyOf(this.block,
+					Math.max(this.block.length * 2, this.blockSize + bytes.length));
+		}
+		System.arraycopy(bytes, 0, this.block, this.blockSize, bytes.length);
+		this.blockSize += bytes.length;
+		return bytes.length;
+	}
+
+	private void allocate(int capacity) {
+		this.hashes = copyOf(this.hashes, capacity);
+		this.offsets = copyOf(this.offsets, capacity);
+		this.nameLengths = copyOf(this.nameLengths, capacity);
+		this.extraLengths = (this.extraLengths == null ? new char[capacity] : Arrays
+				.copyOf(this.extraLengths, capacity));
+		this.commentLengths = (this.commentLengths == null ? new char[capacity]
+				: Arrays.copyOf(this.commentLengths, capacity));
+		this.localHeaderOffsets = copyOf(this.localHeaderOffsets, capacity);
+		this.headerLengths = copyOf(this.headerLengths, capacity);
+		this.methods = (this.methods == null ? new short[capacity] : Arrays.copyOf(
+				this.methods, capacity));
+		this.times = copyOf(this.times, capacity);
+		this.crcs = copyOf(this.crcs, capacity);
+		this.compressedSizes = copyOf(this.compressedSizes, capacity);
+		this.sizes = copyOf(this.sizes, capacity);
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		return (array == null ? new int[capacity] : Arrays.copyOf(array, capacity));
+	}
+
+	private static long[] copyOf(long[] array, int capacity) {
+		return (array == null ? new long[capacity] : Arrays.copyOf(array, capacity));
+	}
+
+	/**
+	 * Build the table, trimming excess capacity and creating the name lookup. When
+	 * several entries have the same name the last one is used.
+	 */
+	public void build() {
+		allocate(this.size);
+		this.block = Arrays.copyOf(this.block, this.blockSize);
+		int capacity = Integer.highestOneBit(Math.max(this.size, 1) * 2 - 1) << 1;
+		this.slots = new int[Math.max(capacity, 2)];
+		int mask = this.slots.length - 1;
+		for (int index = 0; index < this.size; index++) {
+			int slot = getSlot(this.hashes[index], mask);
+			while (this.slots[slot] != 0) {
+				int existing = this.slots[slot] - 1;
+				if (this.hashes[existing] == this.hashes[index]
+						&& nameEquals(existing, getName(index), false)) {
+					if (this.replaced == null) {
+						this.replaced = new BitSet();
+					}
+					this.replaced.set(existing);
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+			this.slots[slot] = index + 1;
+		}
+	}
+
+	/**
+	 * Return the index of the entry with the specified name.
+	 * @param name the name of the entry
+	 * @param directory if a trailing '/' should be appended to the name
+	 * @return the index or {@code -1} if there is no such entry
+	 */
+	public int indexOf(String name, boolean directory) {
+		int hash = (directory ? name.hashCode() * 31 + '/' : name.hashCode());
+		int mask = this.slots.length - 1;
+		int slot = getSlot(hash, mask);
+		while (this.slots[slot] != 0) {
+			int index = this.slots[slot] - 1;
+			if (this.hashes[index] == hash && nameEquals(index, name, directory)) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int getSlot(int hash, int mask) {
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private boolean nameEquals(int index, String name, boolean directory) {
+		int offset = getNameOffset(index);
+		int length = this.nameLengths[index];
+		int expectedLength = name.length() + (directory ? 1 : 0);
+		if (length < expectedLength) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			byte b = this.block[offset + i];
+			if (b < 0) {
+				return getName(index).equals(directory ? name + "/" : name);
+			}
+			if (b != name.charAt(i)) {
+				return false;
+			}
+		}
+		return (length == expectedLength && (!directory || this.block[offset + length
+				- 1] == '/'));
+	}
+
+	/**
+	 * Return the number of entries in the table (including any replaced entries).
+	 * @return the number of entries
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return if the entry at the specified index has been replaced by a later entry with
+	 * the same name.
+	 * @param index the entry index
+	 * @return if the entry is replaced
+	 */
+	public boolean isReplaced(int index) {
+		return (this.replaced != null && this.replaced.get(index));
+	}
+
+	public String getName(int index) {
+		return getString(getNameOffset(index), this.nameLengths[index]);
+	}
+
+	private int getNameOffset(int index) {
+		return this.offsets[index] + this.extraLengths[index]
+				+ this.commentLengths[index];
+	}
+
+	public byte[] getExtra(int index) {
+		int length = this.extraLengths[index];
+		if (length == 0) {
+			return null;
+		}
+		return Arrays.copyOfRange(this.block, this.offsets[index], this.offsets[index]
+				+ length);
+	}
+
+	public String getComment(int index) {
+		int length = this.commentLengths[index];
+		if (length == 0) {
+			return null;
+		}
+		return getString(this.offsets[index] + this.extraLengths[index], length);
+	}
+
+	public long getLocalHeaderOffset(int index) {
+		return this.localHeaderOffsets[index];
+	}
+
+	/**
+	 * Return the length of the local file header or {@code 0} if it has not yet been
+	 * read.
+	 * @param index the entry index
+	 * @return the header length
+	 */
+	public int getHeaderLength(int index) {
+		return this.headerLengths[index];
+	}
+
+	/**
+	 * Record the length of the local file header once it has been read. Since the value
+	 * is always the same, racing threads can safely overwrite each other.
+	 * @param index the entry index
+	 * @param headerLength the header length
+	 */
+	public void setHeaderLength(int index, int headerLength) {
+		this.headerLengths[index] = headerLength;
+	}
+
+	public int getMethod(int index) {
+		return this.methods[index];
+	}
+
+	public long getTime(int index) {
+		return this.times[index];
+	}
+
+	public long getCrc(int index) {
+		return this.crcs[index] & 0xFFFFFFFFL;
+	}
+
+	public long getCompressedSize(int index) {
+		return this.compressedSizes[index] & 0xFFFFFFFFL;
+	}
+
+	public long getSize(int index) {
+		return this.sizes[index] & 0xFFFFFFFFL;
+	}
+
+	private String getString(int offset, int length) {
+		try {
+			return new String(this.block, offset, length, "UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static byte[] getBytes(String value) {
+		try {
+			return value.getBytes("UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
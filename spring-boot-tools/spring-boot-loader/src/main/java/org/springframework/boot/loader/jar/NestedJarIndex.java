@@ -0,0 +1,357 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.jar;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of nested jars written at repackage time. Allows nested jars to be opened
+ * without reading their central directory. The index is loaded with a single read and
+ * the entries of each jar are only decoded when that jar is opened. The binary format is
+ * described by {@code org.springframework.boot.loader.tools.NestedJarIndexWriter}.
+ * 
+ * @author Phillip Webb
+ */
+class NestedJarIndex {
+
+	/**
+	 * The name of the jar entry that contains the index.
+	 */
+	public static final String ENTRY_NAME = "META-INF/spring-boot-nested-jars.idx";
+
+	private static final int MAGIC = 0x4E4A4958;
+
+	private static final int VERSION = 3;
+
+	private static final int HEADER_SIZE = 10;
+
+	private static final int JAR_RECORD_SIZE = 72;
+
+	private static final int DIGEST_SIZE = 32;
+
+	private static final byte[] CLASS_SUFFIX = { '.', 'c', 'l', 'a', 's', 's' };
+
+	private final byte[] bytes;
+
+	private final Map<Long, Integer> jarRecords;
+
+	private NestedJarIndex(byte[] bytes, Map<Long, Integer> jarRecords) {
+		this.bytes = bytes;
+		this.jarRecords = jarRecords;
+	}
+
+	/**
+	 * Return the indexed jar whose local header is at the specified offset (relative to
+	 * the start of the archive) or {@code null} if there is no such jar or it no longer
+	 * matches the given size and CRC.
+	 * @param localHeaderOffset the offset of the local header
+	 * @param size the size of the jar entry
+	 * @param crc the CRC of the jar entry
+	 * @return the indexed jar or {@code null}
+	 */
+	public IndexedJar get(long localHeaderOffset, long size, long crc) {
+		Integer record = this.jarRecords.get(localHeaderOffset);
+		if (record == null) {
+			return null;
+		}
+		IndexedJar jar = new IndexedJar(this.bytes, record);
+		if (jar.getSize() != size || jar.getCrc() != crc) {
+			return null;
+		}
+		return jar;
+	}
+
+	/**
+	 * Read an index from the specified bytes.
+	 * @param bytes the index bytes
+	 * @return the index or {@code null} if the bytes are not a supported index
+	 */
+	public static NestedJarIndex read(byte[] bytes) {
+		if (bytes.length < HEADER_SIZE || getInt(bytes, 0) != MAGIC
+				|| getValue(bytes, 4, 2) != VERSION) {
+			return null;
+		}
+		int jarCount = getInt(bytes, 6);
+		if (bytes.length < HEADER_SIZE + (long) jarCount * JAR_RECORD_SIZE) {
+			return null;
+		}
+		Map<Long, Integer> jarRecords = new HashMap<Long, Integer>(jarCount * 2);
+		for (int i = 0; i < jarCount; i++) {
+			int record = HEADER_SIZE + i * JAR_RECORD_SIZE;
+			jarRecords.put(getValue(bytes, record, 8), record);
+		}
+		return new NestedJarIndex(bytes, jarRecords);
+	}
+
+	private static int getInt(byte[] bytes, int offset) {
+		return (int) getValue(bytes, offset, 4);
+	}
+
+	private static long getValue(byte[] bytes, int offset, int length) {
+		long value = 0;
+		for (int i = 0; i < length; i++) {
+			value = ((value << 8) | (bytes[offset + i] & 0xFF));
+		}
+		return value;
+	}
+
+	/**
+	 * A nested jar contained in the index.
+	 */
+	static class IndexedJar {
+
+		private final byte[] bytes;
+
+		private final int record;
+
+		IndexedJar(byte[] bytes, int record) {
+			this.bytes = bytes;
+			this.record = record;
+		}
+
+		public long getDataOffset() {
+			return getValue(this.bytes, this.record + 8, 8);
+		}
+
+		public long getSize() {
+			return getValue(this.bytes, this.record + 16, 8);
+		}
+
+		public long getCrc() {
+			return getValue(this.bytes, this.record + 24, 8);
+		}
+
+		/**
+		 * Return the SHA-256 digest of the jar content.
+		 * @return the digest
+		 */
+		public byte[] getDigest() {
+			byte[] digest = new byte[DIGEST_SIZE];
+			System.arraycopy(this.bytes, this.record + 32, digest, 0, DIGEST_SIZE);
+			return digest;
+		}
+
+		/**
+		 * Decode the entries of the jar.
+		 * @return the entries
+		 * @throws IOException if the index is corrupt
+		 */
+		public IndexedEntry[] getEntries() throws IOException {
+			try {
+				IndexedEntry[] entries = new IndexedEntry[getInt(this.bytes,
+						this.record + 64)];
+				int offset = getInt(this.bytes, this.record + 68);
+				for (int i = 0; i < entries.length; i++) {
+					entries[i] = new IndexedEntry(this.bytes, offset);
+					offset = entries[i].getEnd();
+				}
+				return entries;
+			}
+			catch (IndexOutOfBoundsException ex) {
+				throw new IOException("Corrupt nested jar index");
+			}
+		}
+
+		/**
+		 * Return the names of the packages that contain classes in the jar without
+		 * decoding its entries. A name is only created when the package differs from
+		 * that of the previous class, entries are usually grouped by directory.
+		 * @return the package names
+		 * @throws IOException if the index is corrupt
+		 */
+		public Set<String> getPackageNames() throws IOException {
+			try {
+				Set<String> packageNames = new LinkedHashSet<String>();
+				int count = getInt(this.bytes, this.record + 64);
+				int offset = getInt(this.bytes, this.record + 68);
+				int previousStart = -1;
+				int previousLength = -1;
+				for (int i = 0; i < count; i++) {
+					int nameLength = (int) getValue(this.bytes, offset, 2);
+					int nameStart = offset + 2;
+					if (endsWith(this.bytes, nameStart, nameLength, CLASS_SUFFIX)) {
+						int packageLength = getPackageLength(this.bytes, nameStart,
+								nameLength);
+						if (previousStart == -1
+								|| !regionMatches(this.bytes, previousStart,
+										previousLength, nameStart, packageLength)) {
+							packageNames.add(new String(this.bytes, nameStart,
+									packageLength, "UTF-8").replace('/', '.'));
+							previousStart = nameStart;
+							previousLength = packageLength;
+						}
+					}
+					int position = nameStart + nameLength;
+					int extraLength = (int) getValue(this.bytes, position + 26, 2);
+					position += 28 + extraLength;
+					offset = position + 2 + (int) getValue(this.bytes, position, 2);
+				}
+				return packageNames;
+			}
+			catch (IndexOutOfBoundsException ex) {
+				throw new IOException("Corrupt nested jar index");
+			}
+		}
+
+		private static boolean endsWith(byte[] bytes, int start, int length,
+				byte[] suffix) {
+			if (length < suffix.length) {
+				return false;
+			}
+			int offset = start + length - suffix.length;
+			for (int i = 0; i < suffix.length; i++) {
+				if (bytes[offset + i] != suffix[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int getPackageLength(byte[] bytes, int start, int length) {
+			// '/' is never part of a multi-byte UTF-8 sequence
+			for (int i = length - 1; i >= 0; i--) {
+				if (bytes[start + i] == '/') {
+					return i;
+				}
+			}
+			return 0;
+		}
+
+		private static boolean regionMatches(byte[] bytes, int start, int length,
+				int otherStart, int otherLength) {
+			if (length != otherLength) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (bytes[start + i] != bytes[otherStart + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * A single entry of an indexed jar.
+	 */
+	static class IndexedEntry {
+
+		private static final byte[] NO_EXTRA = new byte[0];
+
+		private final String name;
+
+		private final long localHeaderOffset;
+
+		private final long dataOffset;
+
+		private final long compressedSize;
+
+		private final long size;
+
+		private final long crc;
+
+		private final int method;
+
+		private final long dosTime;
+
+		private final byte[] extra;
+
+		private final String comment;
+
+		private final int end;
+
+		IndexedEntry(byte[] bytes, int offset) throws UnsupportedEncodingException {
+			int nameLength = (int) getValue(bytes, offset, 2);
+			this.name = new String(bytes, offset + 2, nameLength, "UTF-8");
+			int position = offset + 2 + nameLength;
+			this.localHeaderOffset = getValue(bytes, position, 4);
+			this.dataOffset = getValue(bytes, position + 4, 4);
+			this.compressedSize = getValue(bytes, position + 8, 4);
+			this.size = getValue(bytes, position + 12, 4);
+			this.crc = getValue(bytes, position + 16, 4);
+			this.method = (int) getValue(bytes, position + 20, 2);
+			this.dosTime = getValue(bytes, position + 22, 4);
+			int extraLength = (int) getValue(bytes, position + 26, 2);
+			position += 28;
+			this.extra = (extraLength == 0 ? NO_EXTRA : new byte[extraLength]);
+			System.arraycopy(bytes, position, this.extra, 0, extraLength);
+			position += extraLength;
+			int commentLength = (int) getValue(bytes, position, 2);
+			position += 2;
+			this.comment = (commentLength == 0 ? null : new String(bytes, position,
+					commentLength, "UTF-8"));
+			this.end = position + commentLength;
+		}
+
+		int getEnd() {
+			return this.end;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public long getLocalHeaderOffset() {
+			return this.localHeaderOffset;
+		}
+
+		public long getDataOffset() {
+			return this.dataOffset;
+		}
+
+		public long getCompressedSize() {
+			return this.compressedSize;
+		}
+
+		public long getSize() {
+			return this.size;
+		}
+
+		public long getCrc() {
+			return this.crc;
+		}
+
+		public int getMethod() {
+			return this.method;
+		}
+
+		/**
+		 * Returns the MS-DOS date and time of the entry, as stored in the central
+		 * directory of the nested jar.
+		 * @return the MS-DOS date and time
+		 */
+		public long getDosTime() {
+			return this.dosTime;
+		}
+
+		public byte[] getExtra() {
+			return this.extra;
+		}
+
+		public String getComment() {
+			return this.comment;
+		}
+
+	}
+
+}
@@ -27,10 +27,14 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
-import java.util.Collections;
+import java.util.Calendar;
 import java.util.Enumeration;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -41,6 +45,9 @@ import java.util.zip.ZipEntry;
 
 import org.springframework.boot.loader.data.RandomAccessData;
 import org.springframework.boot.loader.data.RandomAccessDataFile;
+import org.springframework.boot.loader.jar.NestedJarIndex.IndexedEntry;
+import org.springframework.boot.loader.jar.NestedJarIndex.IndexedJar;
+import org.springframework.boot.loader.util.LoaderStatistics;
 
 /**
  * A Jar file that can loaded from a {@link RandomAccessDataFile}. This class extends and
@@ -57,12 +64,24 @@ import org.springframework.boot.loader.data.RandomAccessDataFile;
  * {@link #getNestedJarFile(ZipEntry, JarEntryFilter...) obtained} for embedded JAR files
  * (as long as their entry is not compressed).</li>
  * <li>Entry data can be accessed as {@link RandomAccessData}.</li>
+ * <li>Nested jars described by a repackage-time index are opened without reading their
+ * central directory.</li>
+ * <li>The entries of nested and filtered jars are only read when they are first
+ * needed.</li>
  * </ul>
  * 
  * @author Phillip Webb
  */
 public class RandomAccessJarFile extends JarFile {
 
+	private static final long CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50L;
+
+	private static final long LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50L;
+
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
 	private final RandomAccessDataFile rootJarFile;
 
 	private RandomAccessData data;
@@ -71,10 +90,20 @@ public class RandomAccessJarFile extends JarFile {
 
 	private final long size;
 
-	private Map<String, JarEntry> entries = new LinkedHashMap<String, JarEntry>();
+	private volatile JarEntryTable entries;
+
+	private IndexedJar indexedJar;
+
+	private JarEntryFilter[] filters;
 
 	private Manifest manifest;
 
+	private long startOfArchive;
+
+	private NestedJarIndex nestedJarIndex;
+
+	private boolean nestedJarIndexLoaded;
+
 	/**
 	 * Create a new {@link RandomAccessJarFile} backed by the specified file.
 	 * @param file the root jar file
@@ -93,64 +122,197 @@ public class RandomAccessJarFile extends JarFile {
 	 */
 	public RandomAccessJarFile(RandomAccessDataFile file, JarEntryFilter... filters)
 			throws IOException {
-		this(file, file.getFile().getPath(), file, filters);
+		this(file, file.getFile().getPath(), file, null, filters);
+		getEntries();
 	}
 
 	/**
 	 * Private constructor used to create a new {@link RandomAccessJarFile} either
-	 * directly or from a nested entry.
+	 * directly or from a nested entry. Entries are not read until they are first needed.
 	 * @param rootJarFile the root jar file
 	 * @param name the name of this file
 	 * @param data the underlying data
+	 * @param indexedJar the index of the jar or {@code null} if the central directory
+	 * should be read
 	 * @param filters an optional set of jar entry filters
 	 * @throws IOException
 	 */
 	private RandomAccessJarFile(RandomAccessDataFile rootJarFile, String name,
-			RandomAccessData data, JarEntryFilter... filters) throws IOException {
+			RandomAccessData data, IndexedJar indexedJar, JarEntryFilter... filters)
+			throws IOException {
 		super(rootJarFile.getFile());
 		this.rootJarFile = rootJarFile;
 		this.name = name;
 		this.data = data;
 		this.size = data.getSize();
+		this.indexedJar = indexedJar;
+		this.filters = filters;
+	}
 
-		RandomAccessDataZipInputStream inputStream = new RandomAccessDataZipInputStream(
-				data);
-		try {
-			RandomAccessDataZipEntry zipEntry = inputStream.getNextEntry();
-			while (zipEntry != null) {
-				addJarEntry(zipEntry, filters);
-				zipEntry = inputStream.getNextEntry();
-			}
-			this.manifest = findManifest();
-			if (this.manifest != null) {
-				for (JarEntry containedEntry : this.entries.values()) {
-					((Entry) containedEntry).configure(this.manifest);
+	/**
+	 * Return the entries of this file, reading them (and the manifest) on first use.
+	 * @return the entry table
+	 * @throws IOException
+	 */
+	private JarEntryTable getEntries() throws IOException {
+		JarEntryTable entries = this.entries;
+		if (entries == null) {
+			synchronized (this) {
+				entries = this.entries;
+				if (entries == null) {
+					entries = (this.indexedJar != null ? readIndexedJar(this.indexedJar,
+							this.filters) : readCentralDirectory(this.data, this.filters));
+					entries.build();
+					LoaderStatistics.get().archiveOpened(entries.size());
+					this.manifest = findManifest(entries);
+					this.entries = entries;
+					this.indexedJar = null;
+					this.filters = null;
 				}
 			}
 		}
-		finally {
-			inputStream.close();
+		return entries;
+	}
+
+	private JarEntryTable getEntriesOrFail() {
+		try {
+			return getEntries();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to read entries from " + getName(),
+					ex);
+		}
+	}
+
+	/**
+	 * Read entries from a repackage-time index. Data offsets are already known so local
+	 * headers never need to be read.
+	 * @param indexedJar the indexed jar
+	 * @param filters the entry filters
+	 * @return the entries
+	 * @throws IOException
+	 */
+	private JarEntryTable readIndexedJar(IndexedJar indexedJar, JarEntryFilter... filters)
+			throws IOException {
+		IndexedEntry[] indexedEntries = indexedJar.getEntries();
+		JarEntryTable entries = new JarEntryTable(indexedEntries.length);
+		Calendar calendar = Calendar.getInstance();
+		for (IndexedEntry indexedEntry : indexedEntries) {
+			byte[] extra = indexedEntry.getExtra();
+			entries.add(indexedEntry.getName(), indexedEntry.getLocalHeaderOffset(),
+					(int) (indexedEntry.getDataOffset() - indexedEntry
+							.getLocalHeaderOffset()), indexedEntry.getMethod(),
+					getTime(indexedEntry.getDosTime(), calendar), indexedEntry.getCrc(),
+					indexedEntry.getCompressedSize(), indexedEntry.getSize(),
+					(extra.length == 0 ? null : extra), indexedEntry.getComment());
+			filterLastEntry(entries, filters);
+		}
+		return entries;
+	}
+
+	/**
+	 * Read entries from the central directory located via the end of central directory
+	 * record. Only the central directory is read, local headers and entry data are not
+	 * touched until an entry is actually used.
+	 * @param data the archive data
+	 * @param filters the entry filters
+	 * @return the entries
+	 * @throws IOException
+	 */
+	private JarEntryTable readCentralDirectory(RandomAccessData data,
+			JarEntryFilter... filters) throws IOException {
+		CentralDirectoryEndRecord endRecord = new CentralDirectoryEndRecord(data);
+		long startOfArchive = endRecord.getStartOfArchive(data);
+		this.startOfArchive = startOfArchive;
+		byte[] centralDirectory = Bytes.get(endRecord.getCentralDirectory(data));
+		int numberOfRecords = endRecord.getNumberOfRecords();
+		JarEntryTable entries = new JarEntryTable(numberOfRecords);
+		Calendar calendar = Calendar.getInstance();
+		int position = 0;
+		for (int i = 0; i < numberOfRecords; i++) {
+			if (Bytes.littleEndianValue(centralDirectory, position, 4) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new IOException("Invalid central directory record in "
+						+ getName());
+			}
+			int nameLength = (int) Bytes.littleEndianValue(centralDirectory,
+					position + 28, 2);
+			int extraLength = (int) Bytes.littleEndianValue(centralDirectory,
+					position + 30, 2);
+			int commentLength = (int) Bytes.littleEndianValue(centralDirectory,
+					position + 32, 2);
+			int nameOffset = position + CENTRAL_DIRECTORY_HEADER_SIZE;
+			int extraOffset = nameOffset + nameLength;
+			byte[] extra = null;
+			if (extraLength > 0) {
+				extra = new byte[extraLength];
+				System.arraycopy(centralDirectory, extraOffset, extra, 0, extraLength);
+			}
+			String comment = null;
+			if (commentLength > 0) {
+				comment = new String(centralDirectory, extraOffset + extraLength,
+						commentLength, "UTF-8");
+			}
+			String name = new String(centralDirectory, nameOffset, nameLength, "UTF-8");
+			int method = (int) Bytes.littleEndianValue(centralDirectory, position + 10, 2);
+			long time = getTime(
+					Bytes.littleEndianValue(centralDirectory, position + 12, 4), calendar);
+			long crc = Bytes.littleEndianValue(centralDirectory, position + 16, 4);
+			long compressedSize = Bytes.littleEndianValue(centralDirectory,
+					position + 20, 4);
+			long size = Bytes.littleEndianValue(centralDirectory, position + 24, 4);
+			long localHeaderOffset = startOfArchive
+					+ Bytes.littleEndianValue(centralDirectory, position + 42, 4);
+			entries.add(name, localHeaderOffset, 0, method, time, crc, compressedSize,
+					size, extra, comment);
+			filterLastEntry(entries, filters);
+			position = extraOffset + extraLength + commentLength;
 		}
+		return entries;
 	}
 
-	private void addJarEntry(RandomAccessDataZipEntry zipEntry, JarEntryFilter... filters) {
-		Entry jarEntry = new Entry(zipEntry);
-		String name = zipEntry.getName();
+	private static long getTime(long dosTime, Calendar calendar) {
+		calendar.clear();
+		calendar.set((int) ((dosTime >> 25) & 0x7f) + 1980,
+				(int) ((dosTime >> 21) & 0x0f) - 1, (int) ((dosTime >> 16) & 0x1f),
+				(int) ((dosTime >> 11) & 0x1f), (int) ((dosTime >> 5) & 0x3f),
+				(int) ((dosTime << 1) & 0x3e));
+		return calendar.getTimeInMillis();
+	}
+
+	/**
+	 * Apply filters to the most recently added entry, renaming or removing it as
+	 * required. A {@link JarEntry} is only created when there are filters to apply.
+	 * @param entries the entries being read
+	 * @param filters the entry filters
+	 */
+	private void filterLastEntry(JarEntryTable entries, JarEntryFilter... filters) {
+		if (filters.length == 0) {
+			return;
+		}
+		Entry jarEntry = new Entry(this, entries, entries.size() - 1);
+		String name = jarEntry.getName();
 		for (JarEntryFilter filter : filters) {
 			name = (filter == null || name == null ? name : filter.apply(name, jarEntry));
 		}
-		if (name != null) {
-			jarEntry.setName(name);
-			this.entries.put(name, jarEntry);
+		if (name == null) {
+			entries.removeLast();
+		}
+		else if (!name.equals(jarEntry.getName())) {
+			entries.renameLast(name);
 		}
 	}
 
-	private Manifest findManifest() throws IOException {
-		ZipEntry manifestEntry = getEntry(MANIFEST_NAME);
-		if (manifestEntry != null) {
+	private Manifest findManifest(JarEntryTable entries) throws IOException {
+		int index = entries.indexOf(MANIFEST_NAME, false);
+		if (index != -1) {
 			BufferedInputStream inputStream = new BufferedInputStream(
-					getInputStream(manifestEntry));
-			return new Manifest(inputStream);
+					getInputStream(new Entry(this, entries, index)));
+			try {
+				return new Manifest(inputStream);
+			}
+			finally {
+				inputStream.close();
+			}
 		}
 		return null;
 	}
@@ -161,12 +323,43 @@ public class RandomAccessJarFile extends JarFile {
 
 	@Override
 	public Manifest getManifest() throws IOException {
+		getEntries();
 		return this.manifest;
 	}
 
+	/**
+	 * Return the names of the packages that contain classes in this file. When the file
+	 * is a nested jar that has not yet been opened the names are read from the
+	 * repackage-time index so that the entries do not need to be loaded.
+	 * @return the package names
+	 * @throws IOException if the package names cannot be read
+	 */
+	public Set<String> getPackageNames() throws IOException {
+		IndexedJar indexedJar = null;
+		synchronized (this) {
+			if (this.entries == null && this.filters.length == 0) {
+				indexedJar = this.indexedJar;
+			}
+		}
+		if (indexedJar != null) {
+			return indexedJar.getPackageNames();
+		}
+		Set<String> packageNames = new LinkedHashSet<String>();
+		JarEntryTable entries = getEntries();
+		for (int i = 0; i < entries.size(); i++) {
+			String name = entries.getName(i);
+			if (name.endsWith(".class")) {
+				int lastSlash = name.lastIndexOf('/');
+				packageNames.add(lastSlash == -1 ? "" : name.substring(0, lastSlash)
+						.replace('/', '.'));
+			}
+		}
+		return packageNames;
+	}
+
 	@Override
 	public Enumeration<JarEntry> entries() {
-		return Collections.enumeration(this.entries.values());
+		return new EntryEnumeration(getEntriesOrFail());
 	}
 
 	@Override
@@ -176,18 +369,23 @@ public class RandomAccessJarFile extends JarFile {
 
 	@Override
 	public ZipEntry getEntry(String name) {
-		JarEntry entry = this.entries.get(name);
-		if (entry == null && name != null && !name.endsWith("/")) {
-			entry = this.entries.get(name + "/");
+		if (name == null) {
+			return null;
 		}
-		return entry;
+		JarEntryTable entries = getEntriesOrFail();
+		int index = entries.indexOf(name, false);
+		if (index == -1 && !name.endsWith("/")) {
+			index = entries.indexOf(name, true);
+		}
+		return (index == -1 ? null : new Entry(this, entries, index));
 	}
 
 	@Override
-	public synchronized InputStream getInputStream(ZipEntry ze) throws IOException {
+	public InputStream getInputStream(ZipEntry ze) throws IOException {
 		InputStream inputStream = getData(ze).getInputStream();
 		if (ze.getMethod() == ZipEntry.DEFLATED) {
-			inputStream = new ZipInflaterInputStream(inputStream, (int) ze.getSize());
+			inputStream = new ZipInflaterInputStream(inputStream, (int) ze.getSize(),
+					ze.getCompressedSize());
 		}
 		return inputStream;
 	}
@@ -227,7 +425,7 @@ public class RandomAccessJarFile extends JarFile {
 			}
 		};
 		return new RandomAccessJarFile(this.rootJarFile, getName() + "!/"
-				+ name.substring(0, name.length() - 1), this.data, filtersToUse);
+				+ name.substring(0, name.length() - 1), this.data, null, filtersToUse);
 	}
 
 	private RandomAccessJarFile getNestedJarFileFromFileEntry(ZipEntry entry,
@@ -236,8 +434,61 @@ public class RandomAccessJarFile extends JarFile {
 			throw new IllegalStateException("Unable to open nested compressed entry "
 					+ entry.getName());
 		}
+		IndexedJar indexedJar = getIndexedJar((Entry) entry);
+		if (indexedJar != null) {
+			RandomAccessData data = this.data.getSubsection(this.startOfArchive
+					+ indexedJar.getDataOffset(), indexedJar.getSize());
+			return new RandomAccessJarFile(this.rootJarFile, getName() + "!/"
+					+ entry.getName(), data, indexedJar, filters);
+		}
 		return new RandomAccessJarFile(this.rootJarFile, getName() + "!/"
-				+ entry.getName(), getData(entry), filters);
+				+ entry.getName(), getData(entry), null, filters);
+	}
+
+	/**
+	 * Return the SHA-256 digest of a nested jar as recorded in the repackage-time index.
+	 * The content of the nested jar is not read.
+	 * @param ze the zip entry of the nested jar
+	 * @return the digest or {@code null} if the nested jar is not indexed
+	 */
+	public synchronized byte[] getNestedJarDigest(ZipEntry ze) {
+		if (!(ze instanceof Entry) || ze.getMethod() != ZipEntry.STORED) {
+			return null;
+		}
+		IndexedJar indexedJar = getIndexedJar((Entry) ze);
+		return (indexedJar == null ? null : indexedJar.getDigest());
+	}
+
+	private IndexedJar getIndexedJar(Entry entry) {
+		NestedJarIndex index = getNestedJarIndex();
+		if (index == null || entry.getJarFile() != this) {
+			return null;
+		}
+		return index.get(entry.getLocalHeaderOffset() - this.startOfArchive,
+				entry.getCompressedSize(), entry.getCrc());
+	}
+
+	private NestedJarIndex getNestedJarIndex() {
+		if (!this.nestedJarIndexLoaded) {
+			this.nestedJarIndexLoaded = true;
+			ZipEntry indexEntry = getEntry(NestedJarIndex.ENTRY_NAME);
+			if (indexEntry != null) {
+				try {
+					InputStream inputStream = getInputStream(indexEntry);
+					try {
+						this.nestedJarIndex = NestedJarIndex.read(Bytes.get(inputStream,
+								indexEntry.getSize()));
+					}
+					finally {
+						inputStream.close();
+					}
+				}
+				catch (IOException ex) {
+					// Ignore and scan nested jars instead
+				}
+			}
+		}
+		return this.nestedJarIndex;
 	}
 
 	/**
@@ -248,7 +499,8 @@ public class RandomAccessJarFile extends JarFile {
 	 */
 	public synchronized RandomAccessJarFile getFilteredJarFile(JarEntryFilter... filters)
 			throws IOException {
-		return new RandomAccessJarFile(this.rootJarFile, getName(), this.data, filters);
+		return new RandomAccessJarFile(this.rootJarFile, getName(), this.data, null,
+				filters);
 	}
 
 	/**
@@ -257,8 +509,8 @@ public class RandomAccessJarFile extends JarFile {
 	 * @return the entry {@link RandomAccessData}
 	 * @throws IOException
 	 */
-	private synchronized RandomAccessData getData(ZipEntry ze) throws IOException {
-		if (!this.entries.containsValue(ze)) {
+	private RandomAccessData getData(ZipEntry ze) throws IOException {
+		if (!(ze instanceof Entry) || ((Entry) ze).getJarFile() != this) {
 			throw new IllegalArgumentException("ZipEntry must be contained in this file");
 		}
 		return ((Entry) ze).getData();
@@ -297,42 +549,118 @@ public class RandomAccessJarFile extends JarFile {
 	}
 
 	/**
-	 * A single {@link JarEntry} in this file.
+	 * {@link Enumeration} of the entries in this file. {@link JarEntry} instances are
+	 * created as the enumeration progresses.
 	 */
-	private static class Entry extends JarEntry {
+	private class EntryEnumeration implements Enumeration<JarEntry> {
 
-		private String name;
+		private final JarEntryTable entries;
 
-		private RandomAccessData entryData;
+		private int index;
 
-		private Attributes attributes;
+		public EntryEnumeration(JarEntryTable entries) {
+			this.entries = entries;
+			this.index = next(0);
+		}
 
-		public Entry(RandomAccessDataZipEntry entry) {
-			super(entry);
-			this.entryData = entry.getData();
+		@Override
+		public boolean hasMoreElements() {
+			return this.index < this.entries.size();
 		}
 
-		void configure(Manifest manifest) {
-			this.attributes = manifest.getAttributes(getName());
+		@Override
+		public JarEntry nextElement() {
+			if (!hasMoreElements()) {
+				throw new NoSuchElementException();
+			}
+			Entry entry = new Entry(RandomAccessJarFile.this, this.entries, this.index);
+			this.index = next(this.index + 1);
+			return entry;
 		}
 
-		void setName(String name) {
-			this.name = name;
+		private int next(int index) {
+			while (index < this.entries.size() && this.entries.isReplaced(index)) {
+				index++;
+			}
+			return index;
 		}
 
-		@Override
-		public String getName() {
-			return (this.name == null ? super.getName() : this.name);
+	}
+
+	/**
+	 * A single {@link JarEntry} in this file, created on demand from the
+	 * {@link JarEntryTable}. The location of the entry data is only resolved (by reading
+	 * the local file header) when the data is first requested.
+	 */
+	private static class Entry extends JarEntry {
+
+		private final RandomAccessJarFile jarFile;
+
+		private final JarEntryTable entries;
+
+		private final int index;
+
+		private volatile RandomAccessData entryData;
+
+		public Entry(RandomAccessJarFile jarFile, JarEntryTable entries, int index) {
+			super(entries.getName(index));
+			this.jarFile = jarFile;
+			this.entries = entries;
+			this.index = index;
+			setMethod(entries.getMethod(index));
+			setTime(entries.getTime(index));
+			setCrc(entries.getCrc(index));
+			setCompressedSize(entries.getCompressedSize(index));
+			setSize(entries.getSize(index));
+			byte[] extra = entries.getExtra(index);
+			if (extra != null) {
+				setExtra(extra);
+			}
+			setComment(entries.getComment(index));
+		}
+
+		RandomAccessJarFile getJarFile() {
+			return this.jarFile;
+		}
+
+		long getLocalHeaderOffset() {
+			return this.entries.getLocalHeaderOffset(this.index);
 		}
 
 		@Override
 		public Attributes getAttributes() throws IOException {
-			return this.attributes;
+			Manifest manifest = this.jarFile.manifest;
+			return (manifest == null ? null : manifest.getAttributes(getName()));
 		}
 
-		public RandomAccessData getData() {
+		/**
+		 * Return the entry data, reading the local file header if its length is not
+		 * yet known.
+		 * @return the entry data
+		 * @throws IOException
+		 */
+		public RandomAccessData getData() throws IOException {
+			if (this.entryData == null) {
+				long localHeaderOffset = this.entries.getLocalHeaderOffset(this.index);
+				int headerLength = this.entries.getHeaderLength(this.index);
+				if (headerLength == 0) {
+					byte[] localHeader = Bytes.get(this.jarFile.data.getSubsection(
+							localHeaderOffset, LOCAL_FILE_HEADER_SIZE));
+					if (Bytes.littleEndianValue(localHeader, 0, 4) != LOCAL_FILE_HEADER_SIGNATURE) {
+						throw new IOException("Invalid local file header for "
+								+ getName());
+					}
+					headerLength = (int) (LOCAL_FILE_HEADER_SIZE
+							+ Bytes.littleEndianValue(localHeader, 26, 2) + Bytes
+							.littleEndianValue(localHeader, 28, 2));
+					this.entries.setHeaderLength(this.index, headerLength);
+				}
+				this.entryData = this.jarFile.data.getSubsection(localHeaderOffset
+						+ headerLength, this.entries.getCompressedSize(this.index));
+			}
 			return this.entryData;
 		}
+
 	}
 
 	/**
@@ -450,15 +778,31 @@ public class RandomAccessJarFile extends JarFile {
 	/**
 	 * {@link InflaterInputStream} that supports the writing of an extra "dummy" byte
 	 * (which is required with JDK 6) and returns accurate available() results.
+	 * {@link Inflater}s are taken from a bounded pool and returned to it when the stream
+	 * is closed. The buffer is sized to the compressed data so that small entries are
+	 * read in a single call.
 	 */
 	private static class ZipInflaterInputStream extends InflaterInputStream {
 
+		private static final int MAX_POOLED_INFLATERS = 16;
+
+		private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+		private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+		private static final Queue<Inflater> inflaterPool = new ConcurrentLinkedQueue<Inflater>();
+
+		private static final AtomicInteger inflaterPoolSize = new AtomicInteger();
+
 		private boolean extraBytesWritten;
 
 		private int available;
 
-		public ZipInflaterInputStream(InputStream inputStream, int size) {
-			super(inputStream, new Inflater(true), 512);
+		private boolean closed;
+
+		public ZipInflaterInputStream(InputStream inputStream, int size,
+				long compressedSize) {
+			super(inputStream, acquireInflater(), getBufferSize(compressedSize));
 			this.available = size;
 		}
 
@@ -472,13 +816,26 @@ public class RandomAccessJarFile extends JarFile {
 
 		@Override
 		public int read(byte[] b, int off, int len) throws IOException {
+			long start = (LoaderStatistics.isEnabled() ? System.nanoTime() : 0);
 			int result = super.read(b, off, len);
 			if (result != -1) {
 				this.available -= result;
 			}
+			if (LoaderStatistics.isEnabled()) {
+				LoaderStatistics.get().bytesInflated(result, System.nanoTime() - start);
+			}
 			return result;
 		}
 
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				super.close();
+				releaseInflater(this.inf);
+			}
+		}
+
 		@Override
 		protected void fill() throws IOException {
 			try {
@@ -495,6 +852,33 @@ public class RandomAccessJarFile extends JarFile {
 			}
 		}
 
+		private static int getBufferSize(long compressedSize) {
+			if (compressedSize < 0) {
+				return DEFAULT_BUFFER_SIZE;
+			}
+			return (int) Math.max(1, Math.min(compressedSize, MAX_BUFFER_SIZE));
+		}
+
+		private static Inflater acquireInflater() {
+			Inflater inflater = inflaterPool.poll();
+			if (inflater == null) {
+				return new Inflater(true);
+			}
+			inflaterPoolSize.decrementAndGet();
+			return inflater;
+		}
+
+		private static void releaseInflater(Inflater inflater) {
+			if (inflaterPoolSize.incrementAndGet() <= MAX_POOLED_INFLATERS) {
+				inflater.reset();
+				inflaterPool.offer(inflater);
+			}
+			else {
+				inflaterPoolSize.decrementAndGet();
+				inflater.end();
+			}
+		}
+
 	}
 
 }
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Lightweight counters that describe the work done by the loader during startup: the
+ * archives that are opened and indexed, the bytes read and inflated, the classes that
+ * are loaded from each archive and the resource lookups that miss. Statistics are only
+ * collected when the {@link #STATISTICS_PROPERTY} or {@link #JMX_PROPERTY} system
+ * property is {@code true}; otherwise every method is a no-op.
+ * 
+ * @author Phillip Webb
+ * @see LoaderStatisticsMBean
+ */
+public class LoaderStatistics implements LoaderStatisticsMBean {
+
+	/**
+	 * System property that can be set to {@code true} to collect statistics and report
+	 * them once the application's main method has returned.
+	 */
+	public static final String STATISTICS_PROPERTY = "loader.statistics";
+
+	/**
+	 * System property that can be set to {@code true} to collect statistics and register
+	 * the loader MBeans (including these statistics) with the platform MBean server.
+	 */
+	public static final String JMX_PROPERTY = "loader.jmx";
+
+	/**
+	 * The object name used when the statistics are registered as an MBean.
+	 */
+	public static final String OBJECT_NAME = "org.springframework.boot.loader:type=LoaderStatistics";
+
+	private static final boolean ENABLED = getBooleanProperty(STATISTICS_PROPERTY)
+			|| getBooleanProperty(JMX_PROPERTY);
+
+	private static final LoaderStatistics instance = new LoaderStatistics(ENABLED);
+
+	private final boolean enabled;
+
+	private final AtomicLong archivesOpened = new AtomicLong();
+
+	private final AtomicLong entriesIndexed = new AtomicLong();
+
+	private final AtomicLong bytesRead = new AtomicLong();
+
+	private final AtomicLong bytesInflated = new AtomicLong();
+
+	private final AtomicLong inflateTime = new AtomicLong();
+
+	private final AtomicLong resourceMisses = new AtomicLong();
+
+	private final ConcurrentMap<String, ClassLoads> classLoads = new ConcurrentHashMap<String, ClassLoads>();
+
+	private final ThreadLocal<long[]> nestedClassLoadTime = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	LoaderStatistics(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	private static boolean getBooleanProperty(String name) {
+		try {
+			return Boolean.getBoolean(name);
+		}
+		catch (SecurityException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the shared {@link LoaderStatistics} instance.
+	 * @return the statistics
+	 */
+	public static LoaderStatistics get() {
+		return instance;
+	}
+
+	/**
+	 * Returns {@code true} if statistics are being collected.
+	 * @return if statistics are enabled
+	 */
+	public static boolean isEnabled() {
+		return instance.enabled;
+	}
+
+	/**
+	 * Returns {@code true} if a statistics report has been requested using the
+	 * {@link #STATISTICS_PROPERTY}.
+	 * @return if a report should be produced
+	 */
+	public static boolean isReportEnabled() {
+		return ENABLED && getBooleanProperty(STATISTICS_PROPERTY);
+	}
+
+	/**
+	 * Record that an archive has been opened and its entries indexed.
+	 * @param entries the number of entries indexed
+	 */
+	public void archiveOpened(int entries) {
+		if (this.enabled) {
+			this.archivesOpened.incrementAndGet();
+			this.entriesIndexed.addAndGet(entries);
+		}
+	}
+
+	/**
+	 * Record that bytes have been read from a file.
+	 * @param bytes the number of bytes read
+	 */
+	public void bytesRead(long bytes) {
+		if (this.enabled && bytes > 0) {
+			this.bytesRead.addAndGet(bytes);
+		}
+	}
+
+	/**
+	 * Record that bytes have been inflated.
+	 * @param bytes the number of bytes inflated
+	 * @param nanos the time taken in nanoseconds
+	 */
+	public void bytesInflated(long bytes, long nanos) {
+		if (this.enabled) {
+			if (bytes > 0) {
+				this.bytesInflated.addAndGet(bytes);
+			}
+			this.inflateTime.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * Start timing the load of a class. Classes that are loaded by the same thread while
+	 * the timer is running (for example the superclass) are timed separately and their
+	 * time is excluded.
+	 * @return the timer or {@code null} if statistics are disabled
+	 * @see ClassLoadTimer#stop(String)
+	 */
+	public ClassLoadTimer startClassLoad() {
+		if (!this.enabled) {
+			return null;
+		}
+		long[] nestedTime = this.nestedClassLoadTime.get();
+		ClassLoadTimer timer = new ClassLoadTimer(nestedTime[0]);
+		nestedTime[0] = 0;
+		return timer;
+	}
+
+	/**
+	 * Record that a class has been loaded.
+	 * @param archive the archive (usually a URL) that the class was loaded from
+	 * @param nanos the time taken in nanoseconds
+	 */
+	public void classLoaded(String archive, long nanos) {
+		if (this.enabled) {
+			ClassLoads loads = this.classLoads.get(archive);
+			if (loads == null) {
+				ClassLoads existing = this.classLoads.putIfAbsent(archive,
+						loads = new ClassLoads(archive));
+				loads = (existing == null ? loads : existing);
+			}
+			loads.add(nanos);
+		}
+	}
+
+	/**
+	 * Record that a resource lookup did not find a resource.
+	 */
+	public void resourceMissed() {
+		if (this.enabled) {
+			this.resourceMisses.incrementAndGet();
+		}
+	}
+
+	@Override
+	public long getArchivesOpened() {
+		return this.archivesOpened.get();
+	}
+
+	@Override
+	public long getEntriesIndexed() {
+		return this.entriesIndexed.get();
+	}
+
+	@Override
+	public long getBytesRead() {
+		return this.bytesRead.get();
+	}
+
+	@Override
+	public long getBytesInflated() {
+		return this.bytesInflated.get();
+	}
+
+	@Override
+	public long getInflateTime() {
+		return millis(this.inflateTime.get());
+	}
+
+	@Override
+	public long getClassLoadCount() {
+		long count = 0;
+		for (ClassLoads loads : this.classLoads.values()) {
+			count += loads.getCount();
+		}
+		return count;
+	}
+
+	@Override
+	public long getClassLoadTime() {
+		long time = 0;
+		for (ClassLoads loads : this.classLoads.values()) {
+			time += loads.getTime();
+		}
+		return millis(time);
+	}
+
+	@Override
+	public String[] getArchiveClassLoads() {
+		List<ClassLoads> sorted = getSortedClassLoads();
+		String[] result = new String[sorted.size()];
+		for (int i = 0; i < result.length; i++) {
+			ClassLoads loads = sorted.get(i);
+			result[i] = loads.getArchive() + " " + loads.getCount() + " "
+					+ millis(loads.getTime());
+		}
+		return result;
+	}
+
+	@Override
+	public long getResourceMisses() {
+		return this.resourceMisses.get();
+	}
+
+	@Override
+	public String getReport() {
+		StringBuilder report = new StringBuilder("Loader statistics:");
+		report.append("\n  archives opened: " + getArchivesOpened() + " ("
+				+ getEntriesIndexed() + " entries indexed)");
+		report.append("\n  bytes read: " + getBytesRead());
+		report.append("\n  bytes inflated: " + getBytesInflated() + " in "
+				+ getInflateTime() + "ms");
+		report.append("\n  classes loaded: " + getClassLoadCount() + " in "
+				+ getClassLoadTime() + "ms");
+		report.append("\n  resource misses: " + getResourceMisses());
+		for (ClassLoads loads : getSortedClassLoads()) {
+			report.append("\n    " + loads.getArchive() + ": " + loads.getCount()
+					+ " classes in " + millis(loads.getTime()) + "ms");
+		}
+		return report.toString();
+	}
+
+	@Override
+	public void reset() {
+		this.archivesOpened.set(0);
+		this.entriesIndexed.set(0);
+		this.bytesRead.set(0);
+		this.bytesInflated.set(0);
+		this.inflateTime.set(0);
+		this.resourceMisses.set(0);
+		this.classLoads.clear();
+	}
+
+	private List<ClassLoads> getSortedClassLoads() {
+		List<ClassLoads> sorted = new ArrayList<ClassLoads>(this.classLoads.values());
+		Collections.sort(sorted, new Comparator<ClassLoads>() {
+			@Override
+			public int compare(ClassLoads o1, ClassLoads o2) {
+				long t1 = o1.getTime();
+				long t2 = o2.getTime();
+				return (t1 < t2 ? 1 : (t1 == t2 ? 0 : -1));
+			}
+		});
+		return sorted;
+	}
+
+	private static long millis(long nanos) {
+		return nanos / 1000000;
+	}
+
+	/**
+	 * Register the statistics with the platform {@link MBeanServer} using the
+	 * {@link #OBJECT_NAME}. Failures are ignored since the statistics are only used for
+	 * diagnostics.
+	 */
+	public void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(this, objectName);
+			}
+		}
+		catch (Exception ex) {
+			// Ignore
+		}
+	}
+
+	/**
+	 * Times the load of a single class, excluding any nested class loads.
+	 * @see LoaderStatistics#startClassLoad()
+	 */
+	public final class ClassLoadTimer {
+
+		private final long start = System.nanoTime();
+
+		private final long enclosingNestedTime;
+
+		private ClassLoadTimer(long enclosingNestedTime) {
+			this.enclosingNestedTime = enclosingNestedTime;
+		}
+
+		/**
+		 * Stop the timer and record the class load. Must be called by the thread that
+		 * started the timer, even if the class was not found.
+		 * @param archive the archive that the class was loaded from or {@code null} if
+		 * the class was not found
+		 */
+		public void stop(String archive) {
+			long elapsed = System.nanoTime() - this.start;
+			long[] nestedTime = LoaderStatistics.this.nestedClassLoadTime.get();
+			long exclusive = elapsed - nestedTime[0];
+			nestedTime[0] = this.enclosingNestedTime + elapsed;
+			if (archive != null) {
+				classLoaded(archive, exclusive);
+			}
+		}
+
+	}
+
+	/**
+	 * Class load count and time for a single archive.
+	 */
+	private static class ClassLoads {
+
+		private final String archive;
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong time = new AtomicLong();
+
+		public ClassLoads(String archive) {
+			this.archive = archive;
+		}
+
+		public void add(long nanos) {
+			this.count.incrementAndGet();
+			this.time.addAndGet(nanos);
+		}
+
+		public String getArchive() {
+			return this.archive;
+		}
+
+		public long getCount() {
+			return this.count.get();
+		}
+
+		public long getTime() {
+			return this.time.get();
+		}
+
+	}
+
+}
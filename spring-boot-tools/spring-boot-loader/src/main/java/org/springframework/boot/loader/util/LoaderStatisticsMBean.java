@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.util;
+
+/**
+ * Management interface for {@link LoaderStatistics}.
+ * 
+ * @author Phillip Webb
+ */
+public interface LoaderStatisticsMBean {
+
+	/**
+	 * Returns the number of jar archives whose entries have been indexed.
+	 * @return the number of archives opened
+	 */
+	long getArchivesOpened();
+
+	/**
+	 * Returns the total number of entries indexed across all opened archives.
+	 * @return the number of entries indexed
+	 */
+	long getEntriesIndexed();
+
+	/**
+	 * Returns the number of bytes read from disk (or from a memory mapping of the file).
+	 * @return the number of bytes read
+	 */
+	long getBytesRead();
+
+	/**
+	 * Returns the number of bytes produced by inflating compressed entries.
+	 * @return the number of bytes inflated
+	 */
+	long getBytesInflated();
+
+	/**
+	 * Returns the total time spent inflating compressed entries.
+	 * @return the inflate time in milliseconds
+	 */
+	long getInflateTime();
+
+	/**
+	 * Returns the number of classes found and defined by the loader.
+	 * @return the class load count
+	 */
+	long getClassLoadCount();
+
+	/**
+	 * Returns the total time spent finding and defining classes. The time for a class
+	 * excludes any classes that were loaded while it was being defined, so each class
+	 * is only counted once.
+	 * @return the class load time in milliseconds
+	 */
+	long getClassLoadTime();
+
+	/**
+	 * Returns the class load count and time for each archive, one line per archive in
+	 * the form {@code <url> <count> <time-ms>}.
+	 * @return the class loads per archive
+	 */
+	String[] getArchiveClassLoads();
+
+	/**
+	 * Returns the number of resource lookups that did not find a resource.
+	 * @return the resource miss count
+	 */
+	long getResourceMisses();
+
+	/**
+	 * Returns a human readable report of all statistics.
+	 * @return the report
+	 */
+	String getReport();
+
+	/**
+	 * Reset all statistics to zero.
+	 */
+	void reset();
+
+}
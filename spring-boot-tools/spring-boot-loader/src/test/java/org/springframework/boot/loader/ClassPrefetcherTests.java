@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.loader.PackageIndex.IndexedClass;
+import org.springframework.boot.loader.jar.RandomAccessJarFile;
+
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link ClassPrefetcher}.
+ * 
+ * @author Phillip Webb
+ */
+public class ClassPrefetcherTests {
+
+	private static final String NAME = TestJarCreator.class.getName();
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private PackageIndex packageIndex;
+
+	@Before
+	public void setup() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		TestJarCreator.createClassJar(file, TestJarCreator.class);
+		URL url = new RandomAccessJarFile(file).getUrl();
+		this.packageIndex = PackageIndex.build(new URL[] { url });
+	}
+
+	@Test
+	public void prefetchAndTake() throws Exception {
+		ClassPrefetcher prefetcher = new ClassPrefetcher(this.packageIndex,
+				Arrays.asList(NAME, "org.example.Missing"), 1024 * 1024);
+		prefetcher.prefetch();
+		IndexedClass indexedClass = prefetcher.take(NAME);
+		assertThat(indexedClass, notNullValue());
+		assertThat(indexedClass.getBytes(), notNullValue());
+		assertThat(prefetcher.take(NAME), nullValue());
+	}
+
+	@Test
+	public void limitExceeded() throws Exception {
+		ClassPrefetcher prefetcher = new ClassPrefetcher(this.packageIndex,
+				Arrays.asList(NAME), 1);
+		prefetcher.prefetch();
+		assertThat(prefetcher.take(NAME), nullValue());
+	}
+
+	@Test
+	public void release() throws Exception {
+		ClassPrefetcher prefetcher = new ClassPrefetcher(this.packageIndex,
+				Arrays.asList(NAME), 1024 * 1024);
+		prefetcher.prefetch();
+		prefetcher.release();
+		assertThat(prefetcher.take(NAME), nullValue());
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.archive.JarFileArchive;
+
+/**
+ * Multithreaded class loading benchmark for {@link LaunchedURLClassLoader}. A fat jar
+ * containing nested jars of generated classes is created (unless an existing jar is
+ * specified) and every class is then loaded by a fresh class loader using an increasing
+ * number of threads. Not run as part of the build, use:
+ * 
+ * <pre>
+ * java org.springframework.boot.loader.LaunchedURLClassLoaderBenchmark [threads] [iterations] [jar]
+ * </pre>
+ * 
+ * @author Phillip Webb
+ */
+public class LaunchedURLClassLoaderBenchmark {
+
+	private static final int NESTED_JARS = 80;
+
+	private static final int CLASSES_PER_JAR = 250;
+
+	private static final int MISSING_NAMES = 1000;
+
+	private static final int PROBES_PER_NAME = 5;
+
+	public static void main(String[] args) throws Exception {
+		int maxThreads = (args.length > 0 ? Integer.parseInt(args[0]) : Runtime
+				.getRuntime().availableProcessors() * 2);
+		int iterations = (args.length > 1 ? Integer.parseInt(args[1]) : 5);
+		File file;
+		if (args.length > 2) {
+			file = new File(args[2]);
+		}
+		else {
+			file = File.createTempFile("benchmark", ".jar");
+			file.deleteOnExit();
+			createFatJar(file);
+		}
+		JarFileArchive archive = new JarFileArchive(file);
+		List<Archive> nested = archive.getNestedArchives(new Archive.EntryFilter() {
+			@Override
+			public boolean matches(Archive.Entry entry) {
+				return !entry.isDirectory() && entry.getName().startsWith("lib/");
+			}
+		});
+		URL[] urls = new URL[nested.size() + 1];
+		urls[0] = archive.getUrl();
+		for (int i = 0; i < nested.size(); i++) {
+			urls[i + 1] = nested.get(i).getUrl();
+		}
+		List<String> classNames = getClassNames(archive, nested);
+		System.out.println("Loading " + classNames.size() + " classes from "
+				+ urls.length + " archives");
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			long best = Long.MAX_VALUE;
+			for (int i = 0; i < iterations; i++) {
+				best = Math.min(best, run(urls, classNames, threads));
+			}
+			System.out.println(threads + " thread(s): " + best + "ms");
+		}
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < iterations; i++) {
+			best = Math.min(best, probeMissing(urls));
+		}
+		System.out.println("Probing " + MISSING_NAMES + " missing classes and resources "
+				+ PROBES_PER_NAME + " times: " + best + "ms");
+	}
+
+	private static long probeMissing(URL[] urls) {
+		LaunchedURLClassLoader classLoader = new LaunchedURLClassLoader(urls,
+				LaunchedURLClassLoaderBenchmark.class.getClassLoader().getParent());
+		long start = System.nanoTime();
+		for (int i = 0; i < PROBES_PER_NAME; i++) {
+			for (int j = 0; j < MISSING_NAMES; j++) {
+				try {
+					classLoader.loadClass("benchmark.missing.p" + (j % 10) + ".Class" + j);
+					throw new IllegalStateException("Unexpected class");
+				}
+				catch (ClassNotFoundException ex) {
+					// Expected
+				}
+				if (classLoader.getResource("META-INF/missing/resource" + j) != null) {
+					throw new IllegalStateException("Unexpected resource");
+				}
+			}
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	private static List<String> getClassNames(Archive archive, List<Archive> nested) {
+		List<String> classNames = new ArrayList<String>();
+		List<Archive> archives = new ArrayList<Archive>(nested);
+		archives.add(archive);
+		for (Archive candidate : archives) {
+			for (Archive.Entry entry : candidate.getEntries()) {
+				String name = entry.getName();
+				if (name.endsWith(".class") && !name.startsWith("org/springframework/")) {
+					classNames.add(name.substring(0, name.length() - 6).replace('/',
+							'.'));
+				}
+			}
+		}
+		return classNames;
+	}
+
+	private static long run(URL[] urls, final List<String> classNames, int threads)
+			throws Exception {
+		final LaunchedURLClassLoader classLoader = new LaunchedURLClassLoader(urls,
+				LaunchedURLClassLoaderBenchmark.class.getClassLoader().getParent());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			long start = System.nanoTime();
+			for (int i = 0; i < threads; i++) {
+				final int offset = i;
+				final int step = threads;
+				results.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						int loaded = 0;
+						for (int j = offset; j < classNames.size(); j += step) {
+							classLoader.loadClass(classNames.get(j));
+							loaded++;
+						}
+						return loaded;
+					}
+				}));
+			}
+			int loaded = 0;
+			for (Future<Integer> result : results) {
+				loaded += result.get();
+			}
+			long time = (System.nanoTime() - start) / 1000000;
+			if (loaded != classNames.size()) {
+				throw new IllegalStateException("Only loaded " + loaded + " classes");
+			}
+			return time;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void createFatJar(File file) throws IOException {
+		JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			for (int i = 0; i < NESTED_JARS; i++) {
+				byte[] data = createNestedJar("lib" + i);
+				JarEntry entry = new JarEntry("lib/lib" + i + ".jar");
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(data.length);
+				entry.setCompressedSize(data.length);
+				CRC32 crc32 = new CRC32();
+				crc32.update(data);
+				entry.setCrc(crc32.getValue());
+				jarOutputStream.putNextEntry(entry);
+				jarOutputStream.write(data);
+				jarOutputStream.closeEntry();
+			}
+		}
+		finally {
+			jarOutputStream.close();
+		}
+	}
+
+	private static byte[] createNestedJar(String name) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JarOutputStream jarOutputStream = new JarOutputStream(bytes);
+		for (int i = 0; i < CLASSES_PER_JAR; i++) {
+			String className = "benchmark/" + name + "/p" + (i % 10) + "/Class" + i;
+			jarOutputStream.putNextEntry(new JarEntry(className + ".class"));
+			jarOutputStream.write(createClass(className));
+			jarOutputStream.closeEntry();
+		}
+		jarOutputStream.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Create the bytes of an empty public class extending {@link Object}.
+	 */
+	private static byte[] createClass(String className) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0); // minor version
+		out.writeShort(50); // major version (Java 6)
+		out.writeShort(5); // constant pool count
+		out.writeByte(7); // #1 class
+		out.writeShort(2);
+		out.writeByte(1); // #2 utf8
+		out.writeUTF(className);
+		out.writeByte(7); // #3 class
+		out.writeShort(4);
+		out.writeByte(1); // #4 utf8
+		out.writeUTF("java/lang/Object");
+		out.writeShort(0x0021); // public super
+		out.writeShort(1); // this class
+		out.writeShort(3); // super class
+		out.writeShort(0); // interfaces
+		out.writeShort(0); // fields
+		out.writeShort(0); // methods
+		out.writeShort(0); // attributes
+		out.close();
+		return bytes.toByteArray();
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.loader.jar.RandomAccessJarFile;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link LaunchedURLClassLoader}.
+ * 
+ * @author Phillip Webb
+ */
+public class LaunchedURLClassLoaderTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void resolveResourceFromArchive() throws Exception {
+		LaunchedURLClassLoader loader = createClassLoader();
+		assertThat(loader.getResource("1.dat"), notNullValue());
+	}
+
+	@Test
+	public void loadClassFromParent() throws Exception {
+		LaunchedURLClassLoader loader = createClassLoader();
+		assertThat(loader.loadClass(getClass().getName()),
+				equalTo((Object) getClass()));
+	}
+
+	@Test(expected = ClassNotFoundException.class)
+	public void loadMissingClass() throws Exception {
+		createClassLoader().loadClass("org.example.DoesNotExist");
+	}
+
+	@Test
+	public void missingClassIsCached() throws Exception {
+		LaunchedURLClassLoader loader = createClassLoader();
+		for (int i = 0; i < 2; i++) {
+			try {
+				loader.loadClass("org.example.DoesNotExist");
+			}
+			catch (ClassNotFoundException ex) {
+				// Expected
+			}
+		}
+		assertThat(loader.getMissingClasses().getHitCount(), equalTo(1L));
+	}
+
+	@Test
+	public void missingResourceIsCached() throws Exception {
+		LaunchedURLClassLoader loader = createClassLoader();
+		assertThat(loader.getResource("missing.dat"), nullValue());
+		assertThat(loader.getResource("missing.dat"), nullValue());
+		assertThat(loader.getResources("missing.dat").hasMoreElements(),
+				equalTo(false));
+		assertThat(loader.getMissingResources().getHitCount(), equalTo(2L));
+		assertThat(loader.getMissingResources().getSize(), equalTo(1));
+	}
+
+	@Test
+	public void addUrlClearsMissingResources() throws Exception {
+		LaunchedURLClassLoader loader = new LaunchedURLClassLoader(new URL[0], getClass()
+				.getClassLoader());
+		assertThat(loader.getResource("1.dat"), nullValue());
+		File file = this.temporaryFolder.newFile();
+		TestJarCreator.createTestJar(file);
+		loader.addURL(new RandomAccessJarFile(file).getUrl());
+		assertThat(loader.getResource("1.dat"), notNullValue());
+	}
+
+	@Test
+	public void missingResourceInDirectoryIsNotCached() throws Exception {
+		File folder = this.temporaryFolder.newFolder();
+		LaunchedURLClassLoader loader = new LaunchedURLClassLoader(new URL[] { folder
+				.toURI().toURL() }, getClass().getClassLoader());
+		assertThat(loader.getResource("added.dat"), nullValue());
+		new File(folder, "added.dat").createNewFile();
+		assertThat(loader.getResource("added.dat"), notNullValue());
+		assertThat(loader.getMissingResources().getSize(), equalTo(0));
+	}
+
+	@Test
+	public void loadClassConcurrently() throws Exception {
+		final LaunchedURLClassLoader loader = createClassLoader();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Class<?>>> results = new ArrayList<Future<Class<?>>>();
+			for (int i = 0; i < 16; i++) {
+				results.add(executor.submit(new Callable<Class<?>>() {
+					@Override
+					public Class<?> call() throws Exception {
+						return loader.loadClass(LaunchedURLClassLoaderTests.class
+								.getName());
+					}
+				}));
+			}
+			for (Future<Class<?>> result : results) {
+				assertThat(result.get(), sameInstance((Object) getClass()));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void loadClassFromIndexedArchive() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		TestJarCreator.createClassJar(file, TestJarCreator.class);
+		URL url = new RandomAccessJarFile(file).getUrl();
+		LaunchedURLClassLoader loader = new LaunchedURLClassLoader(new URL[] { url },
+				null);
+		Class<?> loaded = loader.loadClass(TestJarCreator.class.getName());
+		assertThat(loaded.getClassLoader(), sameInstance((Object) loader));
+		assertThat(loaded.getProtectionDomain().getCodeSource().getLocation(),
+				equalTo(url));
+		assertThat(loaded.getPackage().getName(),
+				equalTo(TestJarCreator.class.getPackage().getName()));
+	}
+
+	@Test
+	public void recordAndPrefetchStartupTrace() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		TestJarCreator.createClassJar(file, TestJarCreator.class);
+		URL url = new RandomAccessJarFile(file).getUrl();
+		File trace = this.temporaryFolder.newFile();
+		LaunchedURLClassLoader loader = new LaunchedURLClassLoader(new URL[] { url },
+				null);
+		loader.startStartupTrace(trace, null, 0);
+		loader.loadClass(TestJarCreator.class.getName());
+		loader.finishStartupTrace();
+		assertThat(ClassLoadRecorder.load(trace),
+				equalTo(Collections.singletonList(TestJarCreator.class.getName())));
+		loader = new LaunchedURLClassLoader(new URL[] { url }, null);
+		loader.startStartupTrace(null, trace, 1024 * 1024);
+		Class<?> loaded = loader.loadClass(TestJarCreator.class.getName());
+		loader.finishStartupTrace();
+		assertThat(loaded.getClassLoader(), sameInstance((Object) loader));
+	}
+
+	private LaunchedURLClassLoader createClassLoader() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		TestJarCreator.createTestJar(file);
+		URL url = new RandomAccessJarFile(file).getUrl();
+		return new LaunchedURLClassLoader(new URL[] { url }, getClass().getClassLoader());
+	}
+
+}
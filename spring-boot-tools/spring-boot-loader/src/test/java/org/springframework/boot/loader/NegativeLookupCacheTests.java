@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link NegativeLookupCache}.
+ * 
+ * @author Phillip Webb
+ */
+public class NegativeLookupCacheTests {
+
+	@Test
+	public void hitAndMiss() throws Exception {
+		NegativeLookupCache cache = new NegativeLookupCache(10);
+		assertThat(cache.isMissing("a"), equalTo(false));
+		cache.addMissing("a");
+		assertThat(cache.isMissing("a"), equalTo(true));
+		assertThat(cache.isMissing("b"), equalTo(false));
+		assertThat(cache.getHitCount(), equalTo(1L));
+		assertThat(cache.getMissCount(), equalTo(2L));
+		assertThat(cache.getSize(), equalTo(1));
+	}
+
+	@Test
+	public void bounded() throws Exception {
+		NegativeLookupCache cache = new NegativeLookupCache(10);
+		for (int i = 0; i < 100; i++) {
+			cache.addMissing("name" + i);
+		}
+		assertThat(cache.getSize(), equalTo(10));
+	}
+
+	@Test
+	public void clear() throws Exception {
+		NegativeLookupCache cache = new NegativeLookupCache(10);
+		cache.addMissing("a");
+		cache.addMissing("a");
+		cache.clear();
+		assertThat(cache.getSize(), equalTo(0));
+		assertThat(cache.isMissing("a"), equalTo(false));
+	}
+
+	@Test
+	public void disabled() throws Exception {
+		NegativeLookupCache cache = new NegativeLookupCache(0);
+		cache.addMissing("a");
+		assertThat(cache.isMissing("a"), equalTo(false));
+		assertThat(cache.getSize(), equalTo(0));
+		assertThat(cache.getMissCount(), equalTo(0L));
+	}
+
+}
@@ -18,10 +18,16 @@ package org.springframework.boot.loader;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.archive.ExplodedArchive;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.Assert.assertEquals;
@@ -33,6 +39,9 @@ import static org.junit.Assert.assertEquals;
  */
 public class PropertiesLauncherTests {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Before
 	public void setup() throws IOException {
 		System.setProperty("loader.home",
@@ -95,4 +104,31 @@ public class PropertiesLauncherTests {
 		assertEquals("demo.Application", System.getProperty("loader.main"));
 	}
 
+	@Test
+	public void testClassPathArchivesKeepOrder() throws Exception {
+		File lib = this.temporaryFolder.newFolder("lib");
+		for (String name : new String[] { "c.jar", "a.jar", "b.jar" }) {
+			TestJarCreator.createTestJar(new File(lib, name));
+		}
+		System.setProperty("loader.path", lib.getAbsolutePath());
+		PropertiesLauncher launcher = new PropertiesLauncher();
+		List<String> expected = new ArrayList<String>();
+		Archive archive = new ExplodedArchive(lib);
+		expected.add(archive.getUrl().toString());
+		for (Archive nested : archive.getNestedArchives(new Archive.EntryFilter() {
+			@Override
+			public boolean matches(Archive.Entry entry) {
+				return entry.getName().endsWith(".jar");
+			}
+		})) {
+			expected.add(nested.getUrl().toString());
+		}
+		List<String> actual = new ArrayList<String>();
+		for (Archive classPathArchive : launcher.getClassPathArchives()) {
+			actual.add(classPathArchive.getUrl().toString());
+		}
+		assertEquals(4, actual.size());
+		assertEquals(expected, actual);
+	}
+
 }
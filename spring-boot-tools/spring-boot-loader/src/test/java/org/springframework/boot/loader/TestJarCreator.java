@@ -20,6 +20,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -62,6 +63,35 @@ public abstract class TestJarCreator {
 		}
 	}
 
+	/**
+	 * Create a jar containing the compiled form of the specified class.
+	 * @param file the jar file to create
+	 * @param type the class to include
+	 * @throws Exception
+	 */
+	public static void createClassJar(File file, Class<?> type) throws Exception {
+		String name = type.getName().replace('.', '/') + ".class";
+		JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			jarOutputStream.putNextEntry(new JarEntry(name));
+			InputStream inputStream = type.getClassLoader().getResourceAsStream(name);
+			try {
+				byte[] buffer = new byte[4096];
+				int bytesRead;
+				while ((bytesRead = inputStream.read(buffer)) != -1) {
+					jarOutputStream.write(buffer, 0, bytesRead);
+				}
+			}
+			finally {
+				inputStream.close();
+			}
+			jarOutputStream.closeEntry();
+		}
+		finally {
+			jarOutputStream.close();
+		}
+	}
+
 	private static byte[] getNestedJarData() throws Exception {
 		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
 		JarOutputStream jarOutputStream = new JarOutputStream(byteArrayOutputStream);
@@ -107,6 +107,18 @@ public class ExplodedArchiveTests {
 		assertThat(url, equalTo(this.rootFolder.toURI().toURL()));
 	}
 
+	@Test
+	public void getResourcesFromUrl() throws Exception {
+		URLClassLoader classLoader = new URLClassLoader(
+				new URL[] { this.archive.getUrl() });
+		assertThat(classLoader.getResourceAsStream("1.dat").read(), equalTo(1));
+		assertThat(classLoader.getResourceAsStream("d/9.dat").read(), equalTo(9));
+		assertThat(classLoader.getResourceAsStream("missing.dat"), nullValue());
+		assertThat(classLoader.getResourceAsStream("d/missing.dat"), nullValue());
+		assertThat(classLoader.getResourceAsStream("missing/9.dat"), nullValue());
+		assertThat(classLoader.getResourceAsStream("1.dat/"), nullValue());
+	}
+
 	@Test
 	public void getNestedArchive() throws Exception {
 		Entry entry = getEntriesMap(this.archive).get("nested.jar");
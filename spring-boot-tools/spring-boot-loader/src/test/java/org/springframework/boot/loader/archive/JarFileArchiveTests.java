@@ -17,8 +17,10 @@
 package org.springframework.boot.loader.archive;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Before;
@@ -31,6 +33,7 @@ import org.springframework.boot.loader.archive.JarFileArchive;
 import org.springframework.boot.loader.archive.Archive.Entry;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -97,6 +100,55 @@ public class JarFileArchiveTests {
 		assertThat(entries.size(), equalTo(1));
 	}
 
+	@Test
+	public void getExtractedNestedArchives() throws Exception {
+		File cacheDirectory = this.temporaryFolder.newFolder();
+		List<Archive> nested = getExtractedNestedJar(cacheDirectory);
+		assertThat(nested.size(), equalTo(1));
+		assertThat(nested.get(0), instanceOf(JdkJarFileArchive.class));
+		File file = ((JdkJarFileArchive) nested.get(0)).getFile();
+		assertThat(file.getName(), equalTo("nested.jar"));
+		assertThat(file.getParentFile().getParentFile(), equalTo(cacheDirectory));
+		assertThat(file.getParentFile().getName().matches("[0-9a-f]{64}"),
+				equalTo(true));
+		assertThat(nested.get(0).getUrl(), equalTo(file.toURI().toURL()));
+		assertThat(getEntriesMap(nested.get(0)).containsKey("3.dat"), equalTo(true));
+	}
+
+	@Test
+	public void getExtractedNestedArchivesReusesCachedJar() throws Exception {
+		File cacheDirectory = this.temporaryFolder.newFolder();
+		File file = ((JdkJarFileArchive) getExtractedNestedJar(cacheDirectory).get(0))
+				.getFile();
+		file.setLastModified(1000);
+		getExtractedNestedJar(cacheDirectory);
+		assertThat(file.lastModified(), equalTo(1000L));
+	}
+
+	@Test
+	public void getExtractedNestedArchivesReplacesInvalidCachedJar() throws Exception {
+		File cacheDirectory = this.temporaryFolder.newFolder();
+		File file = ((JdkJarFileArchive) getExtractedNestedJar(cacheDirectory).get(0))
+				.getFile();
+		long length = file.length();
+		FileOutputStream outputStream = new FileOutputStream(file);
+		outputStream.write(new byte[(int) length]);
+		outputStream.close();
+		getExtractedNestedJar(cacheDirectory);
+		assertThat(getEntriesMap(new JdkJarFileArchive(file)).containsKey("3.dat"),
+				equalTo(true));
+		assertThat(file.getParentFile().list().length, equalTo(1));
+	}
+
+	private List<Archive> getExtractedNestedJar(File cacheDirectory) throws Exception {
+		return this.archive.getExtractedNestedArchives(new Archive.EntryFilter() {
+			@Override
+			public boolean matches(Entry entry) {
+				return entry.getName().equals("nested.jar");
+			}
+		}, cacheDirectory);
+	}
+
 	private Map<String, Archive.Entry> getEntriesMap(Archive archive) {
 		Map<String, Archive.Entry> entries = new HashMap<String, Archive.Entry>();
 		for (Archive.Entry entry : archive.getEntries()) {
@@ -76,10 +76,14 @@ public class RandomAccessDataFileTests {
 		FileOutputStream outputStream = new FileOutputStream(tempFile);
 		outputStream.write(BYTES);
 		outputStream.close();
-		this.file = new RandomAccessDataFile(tempFile);
+		this.file = createFile(tempFile);
 		this.inputStream = file.getInputStream();
 	}
 
+	protected RandomAccessDataFile createFile(File file) {
+		return new RandomAccessDataFile(file);
+	}
+
 	@After
 	public void cleanup() throws Exception {
 		inputStream.close();
@@ -295,6 +299,27 @@ public class RandomAccessDataFileTests {
 		}
 	}
 
+	@Test
+	public void notMappedByDefault() throws Exception {
+		assertThat(new RandomAccessDataFile(tempFile).isMapped(), equalTo(false));
+	}
+
+	@Test
+	public void notMappedAboveThreshold() throws Exception {
+		assertThat(new RandomAccessDataFile(tempFile, 1, 255).isMapped(), equalTo(false));
+		assertThat(new RandomAccessDataFile(tempFile, 1, 256).isMapped(), equalTo(true));
+	}
+
+	@Test
+	public void nestedSubsection() throws Exception {
+		RandomAccessData subsection = file.getSubsection(10, 20).getSubsection(5, 2);
+		InputStream inputStream = subsection.getInputStream();
+		assertThat(subsection.getSize(), equalTo(2L));
+		assertThat(inputStream.read(), equalTo(15));
+		assertThat(inputStream.read(), equalTo(16));
+		assertThat(inputStream.read(), equalTo(-1));
+	}
+
 	@Test
 	public void close() throws Exception {
 		file.getInputStream().read();
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.jar;
+
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link JarEntryTable}.
+ * 
+ * @author Phillip Webb
+ */
+public class JarEntryTableTests {
+
+	@Test
+	public void addAndGet() throws Exception {
+		JarEntryTable table = new JarEntryTable(1);
+		table.add("a/b.class", 10, 0, ZipEntry.DEFLATED, 1000, 0xFFFFFFFFL, 20, 30,
+				new byte[] { 1, 2 }, "comment");
+		table.build();
+		int index = table.indexOf("a/b.class", false);
+		assertThat(index, equalTo(0));
+		assertThat(table.getName(index), equalTo("a/b.class"));
+		assertThat(table.getLocalHeaderOffset(index), equalTo(10L));
+		assertThat(table.getHeaderLength(index), equalTo(0));
+		assertThat(table.getMethod(index), equalTo(ZipEntry.DEFLATED));
+		assertThat(table.getTime(index), equalTo(1000L));
+		assertThat(table.getCrc(index), equalTo(0xFFFFFFFFL));
+		assertThat(table.getCompressedSize(index), equalTo(20L));
+		assertThat(table.getSize(index), equalTo(30L));
+		assertThat(table.getExtra(index), equalTo(new byte[] { 1, 2 }));
+		assertThat(table.getComment(index), equalTo("comment"));
+	}
+
+	@Test
+	public void growsBeyondExpectedSize() throws Exception {
+		JarEntryTable table = new JarEntryTable(0);
+		for (int i = 0; i < 1000; i++) {
+			add(table, "entry" + i);
+		}
+		table.build();
+		assertThat(table.size(), equalTo(1000));
+		for (int i = 0; i < 1000; i++) {
+			assertThat(table.indexOf("entry" + i, false), equalTo(i));
+		}
+		assertThat(table.indexOf("entry1000", false), equalTo(-1));
+	}
+
+	@Test
+	public void directoryLookup() throws Exception {
+		JarEntryTable table = new JarEntryTable(2);
+		add(table, "d/");
+		add(table, "e");
+		table.build();
+		assertThat(table.indexOf("d", false), equalTo(-1));
+		assertThat(table.indexOf("d", true), equalTo(0));
+		assertThat(table.indexOf("e", true), equalTo(-1));
+	}
+
+	@Test
+	public void nonAsciiNames() throws Exception {
+		JarEntryTable table = new JarEntryTable(2);
+		add(table, "caf\u00e9/");
+		add(table, "caf\u00e9/\u00fcber.txt");
+		table.build();
+		assertThat(table.indexOf("caf\u00e9", true), equalTo(0));
+		assertThat(table.indexOf("caf\u00e9/\u00fcber.txt", false), equalTo(1));
+		assertThat(table.getName(1), equalTo("caf\u00e9/\u00fcber.txt"));
+		assertThat(table.indexOf("cafe/uber.txt", false), equalTo(-1));
+	}
+
+	@Test
+	public void renameAndRemoveLast() throws Exception {
+		JarEntryTable table = new JarEntryTable(2);
+		add(table, "a");
+		add(table, "lib/b");
+		table.renameLast("b");
+		add(table, "c");
+		table.removeLast();
+		table.build();
+		assertThat(table.size(), equalTo(2));
+		assertThat(table.indexOf("b", false), equalTo(1));
+		assertThat(table.indexOf("lib/b", false), equalTo(-1));
+		assertThat(table.indexOf("c", false), equalTo(-1));
+		assertThat(table.getExtra(1), nullValue());
+	}
+
+	@Test
+	public void duplicateNamesUseLastEntry() throws Exception {
+		JarEntryTable table = new JarEntryTable(2);
+		add(table, "a");
+		add(table, "a");
+		table.build();
+		assertThat(table.indexOf("a", false), equalTo(1));
+		assertThat(table.isReplaced(0), is(true));
+		assertThat(table.isReplaced(1), is(false));
+	}
+
+	private void add(JarEntryTable table, String name) {
+		table.add(name, 0, 0, ZipEntry.STORED, 0, 0, 0, 0, null, null);
+	}
+
+}
@@ -17,14 +17,24 @@
 package org.springframework.boot.loader.jar;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 
 import org.junit.Before;
@@ -121,6 +131,55 @@ public class RandomAccessJarFileTests {
 		assertThat(inputStream.read(), equalTo(-1));
 	}
 
+	@Test
+	public void getInputStreamAfterClose() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			InputStream inputStream = this.jarFile.getInputStream(this.jarFile
+					.getEntry("2.dat"));
+			assertThat(inputStream.read(), equalTo(2));
+			assertThat(inputStream.read(), equalTo(-1));
+			inputStream.close();
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void getInputStreamConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 100; i++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						InputStream inputStream = RandomAccessJarFileTests.this.jarFile
+								.getInputStream(RandomAccessJarFileTests.this.jarFile
+										.getEntry("d/9.dat"));
+						try {
+							return inputStream.read() == 9 && inputStream.read() == -1;
+						}
+						finally {
+							inputStream.close();
+						}
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get(), equalTo(true));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void getInputStreamForEntryFromOtherFile() throws Exception {
+		RandomAccessJarFile other = new RandomAccessJarFile(this.rootJarFile);
+		this.thrown.expect(IllegalArgumentException.class);
+		this.jarFile.getInputStream(other.getEntry("1.dat"));
+	}
+
 	@Test
 	public void getName() throws Exception {
 		assertThat(this.jarFile.getName(), equalTo(this.rootJarFile.getPath()));
@@ -160,8 +219,7 @@ public class RandomAccessJarFileTests {
 				+ "!/1.dat"));
 		JarURLConnection jarURLConnection = (JarURLConnection) url.openConnection();
 		assertThat(jarURLConnection.getJarFile(), sameInstance((JarFile) this.jarFile));
-		assertThat(jarURLConnection.getJarEntry(),
-				sameInstance(this.jarFile.getJarEntry("1.dat")));
+		assertThat(jarURLConnection.getJarEntry().getName(), equalTo("1.dat"));
 		assertThat(jarURLConnection.getContentLength(), equalTo(1));
 		assertThat(jarURLConnection.getContent(), instanceOf(InputStream.class));
 		assertThat(jarURLConnection.getContentType(), equalTo("content/unknown"));
@@ -217,6 +275,34 @@ public class RandomAccessJarFileTests {
 				sameInstance((JarFile) nestedJarFile));
 	}
 
+	@Test
+	public void getNestedJarFileReadsEntriesOnFirstUse() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			byte[] data = new byte[1024];
+			ZipEntry nestedEntry = new ZipEntry("invalid.jar");
+			nestedEntry.setMethod(ZipEntry.STORED);
+			nestedEntry.setSize(data.length);
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			nestedEntry.setCrc(crc.getValue());
+			outputStream.putNextEntry(nestedEntry);
+			outputStream.write(data);
+			outputStream.closeEntry();
+		}
+		finally {
+			outputStream.close();
+		}
+		RandomAccessJarFile jarFile = new RandomAccessJarFile(file);
+		RandomAccessJarFile nestedJarFile = jarFile.getNestedJarFile(jarFile
+				.getEntry("invalid.jar"));
+		assertThat(nestedJarFile.getUrl().toString(), equalTo("jar:file:"
+				+ file.getPath() + "!/invalid.jar!/"));
+		this.thrown.expect(IllegalStateException.class);
+		nestedJarFile.entries();
+	}
+
 	@Test
 	public void getNestedJarDirectory() throws Exception {
 		RandomAccessJarFile nestedJarFile = this.jarFile.getNestedJarFile(this.jarFile
@@ -275,6 +361,108 @@ public class RandomAccessJarFileTests {
 		assertThat(inputStream.read(), equalTo(-1));
 	}
 
+	@Test
+	public void createFromFileWithPrefixedBytes() throws Exception {
+		File prefixedFile = this.temporaryFolder.newFile();
+		FileOutputStream outputStream = new FileOutputStream(prefixedFile);
+		try {
+			outputStream.write("#!/bin/sh\nexit 0\n".getBytes());
+			FileInputStream inputStream = new FileInputStream(this.rootJarFile);
+			try {
+				byte[] buffer = new byte[4096];
+				int bytesRead;
+				while ((bytesRead = inputStream.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, bytesRead);
+				}
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+		finally {
+			outputStream.close();
+		}
+		RandomAccessJarFile jarFile = new RandomAccessJarFile(prefixedFile);
+		assertThat(jarFile.getManifest().getMainAttributes().getValue("Built-By"),
+				equalTo("j1"));
+		InputStream inputStream = jarFile.getInputStream(jarFile.getEntry("2.dat"));
+		assertThat(inputStream.read(), equalTo(2));
+		assertThat(inputStream.read(), equalTo(-1));
+		RandomAccessJarFile nestedJarFile = jarFile.getNestedJarFile(jarFile
+				.getEntry("nested.jar"));
+		inputStream = nestedJarFile.getInputStream(nestedJarFile.getEntry("4.dat"));
+		assertThat(inputStream.read(), equalTo(4));
+		jarFile.close();
+	}
+
+	@Test
+	public void getEntryDetailsFromCentralDirectory() throws Exception {
+		JarEntry entry = this.jarFile.getJarEntry("1.dat");
+		assertThat(entry.getSize(), equalTo(1L));
+		assertThat(entry.getMethod(), equalTo(ZipEntry.DEFLATED));
+		assertThat(entry.getCrc(), greaterThan(0L));
+		assertThat(entry.getTime(), greaterThan(0L));
+		JarEntry nested = this.jarFile.getJarEntry("nested.jar");
+		assertThat(nested.getMethod(), equalTo(ZipEntry.STORED));
+		assertThat(nested.getCompressedSize(), equalTo(nested.getSize()));
+	}
+
+	@Test
+	public void createFromNonZipFile() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		FileOutputStream outputStream = new FileOutputStream(file);
+		outputStream.write(new byte[1024]);
+		outputStream.close();
+		this.thrown.expect(IOException.class);
+		new RandomAccessJarFile(file);
+	}
+
+	@Test
+	public void getNestedJarFileWithInvalidIndex() throws Exception {
+		byte[] nestedJarData = readRootJarFile();
+		File file = this.temporaryFolder.newFile();
+		JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			outputStream.putNextEntry(new ZipEntry(NestedJarIndex.ENTRY_NAME));
+			outputStream.write(new byte[] { 0x4E, 0x4A, 0x49, 0x58, 0, 1, 0, 0, 0, 9 });
+			outputStream.closeEntry();
+			ZipEntry nestedEntry = new ZipEntry("nested.jar");
+			nestedEntry.setMethod(ZipEntry.STORED);
+			nestedEntry.setSize(nestedJarData.length);
+			CRC32 crc = new CRC32();
+			crc.update(nestedJarData);
+			nestedEntry.setCrc(crc.getValue());
+			outputStream.putNextEntry(nestedEntry);
+			outputStream.write(nestedJarData);
+			outputStream.closeEntry();
+		}
+		finally {
+			outputStream.close();
+		}
+		RandomAccessJarFile jarFile = new RandomAccessJarFile(file);
+		RandomAccessJarFile nestedJarFile = jarFile.getNestedJarFile(jarFile
+				.getEntry("nested.jar"));
+		InputStream inputStream = nestedJarFile.getInputStream(nestedJarFile
+				.getEntry("2.dat"));
+		assertThat(inputStream.read(), equalTo(2));
+		jarFile.close();
+	}
+
+	private byte[] readRootJarFile() throws IOException {
+		byte[] bytes = new byte[(int) this.rootJarFile.length()];
+		FileInputStream inputStream = new FileInputStream(this.rootJarFile);
+		try {
+			int offset = 0;
+			while (offset < bytes.length) {
+				offset += inputStream.read(bytes, offset, bytes.length - offset);
+			}
+		}
+		finally {
+			inputStream.close();
+		}
+		return bytes;
+	}
+
 	@Test
 	public void sensibleToString() throws Exception {
 		assertThat(this.jarFile.toString(), equalTo(this.rootJarFile.getPath()));
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.loader.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LoaderStatistics}.
+ * 
+ * @author Phillip Webb
+ */
+public class LoaderStatisticsTests {
+
+	@Test
+	public void disabledStatisticsAreNotRecorded() throws Exception {
+		LoaderStatistics statistics = new LoaderStatistics(false);
+		statistics.archiveOpened(10);
+		statistics.bytesRead(100);
+		statistics.bytesInflated(200, 1000);
+		statistics.classLoaded("a", 1000);
+		statistics.resourceMissed();
+		assertEquals(0, statistics.getArchivesOpened());
+		assertEquals(0, statistics.getEntriesIndexed());
+		assertEquals(0, statistics.getBytesRead());
+		assertEquals(0, statistics.getBytesInflated());
+		assertEquals(0, statistics.getClassLoadCount());
+		assertEquals(0, statistics.getResourceMisses());
+	}
+
+	@Test
+	public void recordStatistics() throws Exception {
+		LoaderStatistics statistics = new LoaderStatistics(true);
+		statistics.archiveOpened(10);
+		statistics.archiveOpened(5);
+		statistics.bytesRead(100);
+		statistics.bytesRead(-1);
+		statistics.bytesInflated(200, TimeUnit.MILLISECONDS.toNanos(3));
+		statistics.resourceMissed();
+		assertEquals(2, statistics.getArchivesOpened());
+		assertEquals(15, statistics.getEntriesIndexed());
+		assertEquals(100, statistics.getBytesRead());
+		assertEquals(200, statistics.getBytesInflated());
+		assertEquals(3, statistics.getInflateTime());
+		assertEquals(1, statistics.getResourceMisses());
+	}
+
+	@Test
+	public void classLoadsPerArchive() throws Exception {
+		LoaderStatistics statistics = new LoaderStatistics(true);
+		statistics.classLoaded("a", TimeUnit.MILLISECONDS.toNanos(1));
+		statistics.classLoaded("b", TimeUnit.MILLISECONDS.toNanos(5));
+		statistics.classLoaded("b", TimeUnit.MILLISECONDS.toNanos(2));
+		assertEquals(3, statistics.getClassLoadCount());
+		assertEquals(8, statistics.getClassLoadTime());
+		String[] archives = statistics.getArchiveClassLoads();
+		assertEquals(2, archives.length);
+		assertEquals("b 2 7", archives[0]);
+		assertEquals("a 1 1", archives[1]);
+		assertThat(statistics.getReport(), containsString("b: 2 classes in 7ms"));
+	}
+
+	@Test
+	public void nestedClassLoadTimeIsExcluded() throws Exception {
+		LoaderStatistics statistics = new LoaderStatistics(true);
+		LoaderStatistics.ClassLoadTimer outer = statistics.startClassLoad();
+		LoaderStatistics.ClassLoadTimer nested = statistics.startClassLoad();
+		Thread.sleep(50);
+		nested.stop("b");
+		outer.stop("a");
+		String[] archives = statistics.getArchiveClassLoads();
+		assertEquals("b", archives[0].split(" ")[0]);
+		long nestedTime = Long.parseLong(archives[0].split(" ")[2]);
+		long outerTime = Long.parseLong(archives[1].split(" ")[2]);
+		assertTrue(nestedTime >= 50);
+		assertTrue(outerTime < 50);
+		assertEquals(2, statistics.getClassLoadCount());
+	}
+
+	@Test
+	public void classNotFoundIsNotRecorded() throws Exception {
+		LoaderStatistics statistics = new LoaderStatistics(true);
+		statistics.startClassLoad().stop(null);
+		assertEquals(0, statistics.getClassLoadCount());
+	}
+
+	@Test
+	public void disabledTimerIsNull() throws Exception {
+		assertNull(new LoaderStatistics(false).startClassLoad());
+	}
+
+	@Test
+	public void reset() throws Exception {
+		LoaderStatistics statistics = new LoaderStatistics(true);
+		statistics.archiveOpened(10);
+		statistics.classLoaded("a", 1000);
+		statistics.reset();
+		assertEquals(0, statistics.getArchivesOpened());
+		assertEquals(0, statistics.getClassLoadCount());
+		assertEquals(0, statistics.getArchiveClassLoads().length);
+	}
+
+}
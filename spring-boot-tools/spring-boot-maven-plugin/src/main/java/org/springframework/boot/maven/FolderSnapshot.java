@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.maven;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A snapshot of the files in a folder, used to detect when the folder has changed.
+ * Files are compared using their size and last modified time.
+ * 
+ * @author Phillip Webb
+ */
+class FolderSnapshot {
+
+	private final Map<String, FileState> files = new HashMap<String, FileState>();
+
+	/**
+	 * Create a new {@link FolderSnapshot} of the given folder.
+	 * @param folder the folder (need not exist)
+	 */
+	public FolderSnapshot(File folder) {
+		collect(folder, "");
+	}
+
+	private void collect(File folder, String path) {
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isDirectory()) {
+					collect(file, path + file.getName() + "/");
+				}
+				else {
+					this.files.put(path + file.getName(), new FileState(file));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of files in the snapshot.
+	 * @return the number of files
+	 */
+	public int size() {
+		return this.files.size();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		return this.files.equals(((FolderSnapshot) obj).files);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.files.hashCode();
+	}
+
+	/**
+	 * The state of a single file.
+	 */
+	private static class FileState {
+
+		private final long length;
+
+		private final long lastModified;
+
+		public FileState(File file) {
+			this.length = file.length();
+			this.lastModified = file.lastModified();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			FileState other = (FileState) obj;
+			return this.length == other.length && this.lastModified == other.lastModified;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (this.length ^ this.lastModified);
+		}
+
+	}
+
+}
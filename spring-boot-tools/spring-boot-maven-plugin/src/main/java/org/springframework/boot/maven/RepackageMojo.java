@@ -89,6 +89,15 @@ public class RepackageMojo extends AbstractMojo {
 	@Parameter
 	private LayoutType layout;
 
+	/**
+	 * A file listing classes in the order that they are loaded when the application
+	 * starts, one class name per line (as recorded using
+	 * {@literal -Dloader.trace.record}). If specified, the listed classes and the
+	 * libraries that contain them are written at the front of the archive.
+	 */
+	@Parameter
+	private File classLoadOrder;
+
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		File source = this.project.getArtifact().getFile();
@@ -99,6 +108,7 @@ public class RepackageMojo extends AbstractMojo {
 			getLog().info("Layout: " + this.layout);
 			repackager.setLayout(this.layout.layout());
 		}
+		repackager.setClassLoadOrder(this.classLoadOrder);
 		Libraries libraries = new ArtifactsLibraries(this.project.getArtifacts());
 		try {
 			repackager.repackage(target, libraries);
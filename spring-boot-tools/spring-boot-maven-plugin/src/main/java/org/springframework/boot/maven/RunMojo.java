@@ -89,9 +89,28 @@ public class RunMojo extends AbstractMojo {
 	@Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
 	private File classesDirectrory;
 
+	/**
+	 * Restart the application in the same JVM when the classes directory changes.
+	 * Dependencies are loaded by a class loader that is kept between restarts, only
+	 * the project classes and resources are reloaded.
+	 */
+	@Parameter(property = "run.reload", defaultValue = "false")
+	private boolean reload;
+
+	/**
+	 * The interval in milliseconds at which the classes directory is checked for
+	 * changes when reloading.
+	 */
+	@Parameter(property = "run.reloadInterval", defaultValue = "1000")
+	private long reloadInterval;
+
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		final String startClassName = getStartClass();
+		if (this.reload) {
+			runWithReload(startClassName);
+			return;
+		}
 		IsolatedThreadGroup threadGroup = new IsolatedThreadGroup(startClassName);
 		Thread launchThread = new Thread(threadGroup, new LaunchRunner(startClassName,
 				this.arguments), startClassName + ".main()");
@@ -118,6 +137,62 @@ public class RunMojo extends AbstractMojo {
 		return mainClass;
 	}
 
+	private void runWithReload(String startClassName) throws MojoExecutionException {
+		if (!ShutdownHooks.isSupported()) {
+			getLog().warn("Unable to access shutdown hooks, the application may not "
+					+ "stop cleanly when it is restarted");
+		}
+		ClassLoader dependencies = new URLClassLoader(getDependencyUrls());
+		RunningApplication application = new RunningApplication(startClassName,
+				dependencies);
+		try {
+			watch(application);
+		}
+		catch (InterruptedException ex) {
+			application.stop();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void watch(RunningApplication application) throws MojoExecutionException,
+			InterruptedException {
+		FolderSnapshot snapshot = new FolderSnapshot(this.classesDirectrory);
+		long coldStartTime = -1;
+		long stopTime = -1;
+		while (true) {
+			application.waitForStart(this.reloadInterval);
+			if (!application.isReported() && application.isStarted()) {
+				long startTime = application.report();
+				if (coldStartTime == -1) {
+					coldStartTime = startTime;
+					getLog().info("Started in " + startTime + " ms, watching "
+							+ this.classesDirectrory + " for changes");
+				}
+				else {
+					getLog().info("Restarted in " + (stopTime + startTime) + " ms (stop "
+							+ stopTime + " ms, start " + startTime
+							+ " ms); cold start took " + coldStartTime + " ms");
+				}
+			}
+			FolderSnapshot current = new FolderSnapshot(this.classesDirectrory);
+			if (!current.equals(snapshot)) {
+				// Wait for the compiler to finish writing
+				do {
+					snapshot = current;
+					Thread.sleep(this.reloadInterval);
+					current = new FolderSnapshot(this.classesDirectrory);
+				}
+				while (!current.equals(snapshot));
+				getLog().info("Changes detected in " + this.classesDirectrory
+						+ ", restarting");
+				long stopStart = System.currentTimeMillis();
+				application.stop();
+				stopTime = System.currentTimeMillis() - stopStart;
+				application.start();
+			}
+		}
+	}
+
 	private ClassLoader getClassLoader() throws MojoExecutionException {
 		URL[] urls = getClassPathUrls();
 		return new URLClassLoader(urls);
@@ -137,6 +212,30 @@ public class RunMojo extends AbstractMojo {
 		}
 	}
 
+	private URL[] getProjectUrls() throws MojoExecutionException {
+		try {
+			List<URL> urls = new ArrayList<URL>();
+			addUserDefinedFolders(urls);
+			addResources(urls);
+			addProjectClasses(urls);
+			return urls.toArray(new URL[urls.size()]);
+		}
+		catch (MalformedURLException ex) {
+			throw new MojoExecutionException("Unable to build classpath", ex);
+		}
+	}
+
+	private URL[] getDependencyUrls() throws MojoExecutionException {
+		try {
+			List<URL> urls = new ArrayList<URL>();
+			addDependencies(urls);
+			return urls.toArray(new URL[urls.size()]);
+		}
+		catch (MalformedURLException ex) {
+			throw new MojoExecutionException("Unable to build classpath", ex);
+		}
+	}
+
 	private void addUserDefinedFolders(List<URL> urls) throws MalformedURLException {
 		if (this.folders != null) {
 			for (String folder : this.folders) {
@@ -217,6 +316,124 @@ public class RunMojo extends AbstractMojo {
 		}
 	}
 
+	/**
+	 * An application that has been launched in its own thread group and class loader
+	 * so that it can be stopped and launched again when reloading.
+	 */
+	class RunningApplication {
+
+		private static final long STOP_TIMEOUT = 10000;
+
+		private final String startClassName;
+
+		private final ClassLoader dependencies;
+
+		private IsolatedThreadGroup threadGroup;
+
+		private Thread launchThread;
+
+		private long startTime;
+
+		private long endTime;
+
+		public RunningApplication(String startClassName, ClassLoader dependencies)
+				throws MojoExecutionException {
+			this.startClassName = startClassName;
+			this.dependencies = dependencies;
+			start();
+		}
+
+		/**
+		 * Start the application using a new class loader for the project classes. A
+		 * running application must have been {@link #stop() stopped} first.
+		 * @throws MojoExecutionException
+		 */
+		public void start() throws MojoExecutionException {
+			this.startTime = System.currentTimeMillis();
+			this.endTime = -1;
+			this.threadGroup = new IsolatedThreadGroup(this.startClassName);
+			this.launchThread = new Thread(this.threadGroup, new LaunchRunner(
+					this.startClassName, RunMojo.this.arguments), this.startClassName
+					+ ".main()");
+			this.launchThread.setContextClassLoader(new URLClassLoader(getProjectUrls(),
+					this.dependencies));
+			this.launchThread.start();
+		}
+
+		/**
+		 * Returns {@code true} if the main method of the application has returned.
+		 * @return if the application has started
+		 */
+		public boolean isStarted() {
+			return !this.launchThread.isAlive();
+		}
+
+		/**
+		 * Wait for the main method of the application to return, or simply wait if it
+		 * has already returned.
+		 * @param timeout the time to wait in milliseconds
+		 * @throws InterruptedException if the current thread is interrupted
+		 */
+		public void waitForStart(long timeout) throws InterruptedException {
+			if (isStarted()) {
+				Thread.sleep(timeout);
+			}
+			else {
+				this.launchThread.join(timeout);
+			}
+		}
+
+		public boolean isReported() {
+			return this.endTime != -1;
+		}
+
+		/**
+		 * Mark the start of the application as reported.
+		 * @return the time taken to start the application in milliseconds
+		 */
+		public long report() {
+			this.endTime = System.currentTimeMillis();
+			return this.endTime - this.startTime;
+		}
+
+		/**
+		 * Stop the application by running the shutdown hooks that it registered and then
+		 * waiting for its non-daemon threads to finish.
+		 */
+		public void stop() {
+			if (ShutdownHooks.isSupported()) {
+				ShutdownHooks.run(this.threadGroup, STOP_TIMEOUT);
+			}
+			long end = System.currentTimeMillis() + STOP_TIMEOUT;
+			try {
+				for (Thread thread : getNonDaemonThreads()) {
+					thread.join(Math.max(end - System.currentTimeMillis(), 1));
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			for (Thread thread : getNonDaemonThreads()) {
+				getLog().warn("Interrupting thread " + thread.getName()
+						+ " that did not stop when the application was stopped");
+				thread.interrupt();
+			}
+		}
+
+		private List<Thread> getNonDaemonThreads() {
+			Thread[] threads = new Thread[this.threadGroup.activeCount()];
+			this.threadGroup.enumerate(threads);
+			List<Thread> nonDaemonThreads = new ArrayList<Thread>();
+			for (Thread thread : threads) {
+				if (thread != null && !thread.isDaemon() && thread.isAlive()) {
+					nonDaemonThreads.add(thread);
+				}
+			}
+			return nonDaemonThreads;
+		}
+
+	}
+
 	/**
 	 * Runner used to launch the application.
 	 */
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.maven;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the JVM shutdown hooks that were registered by threads of a given
+ * {@link ThreadGroup}, without waiting for the JVM to exit. Applications started using
+ * {@code SpringApplication} register a hook that closes the application context, so
+ * running the hooks stops the application in the same way as a JVM exit would.
+ * <p>
+ * The JVM offers no public API to list registered hooks so they are read from the
+ * private {@code java.lang.ApplicationShutdownHooks} registry. On Java 9 and above this
+ * requires {@code --add-opens java.base/java.lang=ALL-UNNAMED}, use
+ * {@link #isSupported()} to check that the hooks can be accessed. Each hook is removed
+ * from the JVM before it is run so it will not run again when the JVM exits.
+ * 
+ * @author Phillip Webb
+ */
+class ShutdownHooks {
+
+	private static final String HOOKS_CLASS = "java.lang.ApplicationShutdownHooks";
+
+	private static final Field hooksField;
+
+	static {
+		Field field;
+		try {
+			field = Class.forName(HOOKS_CLASS).getDeclaredField("hooks");
+			field.setAccessible(true);
+		}
+		catch (Exception ex) {
+			// Not available or not accessible
+			field = null;
+		}
+		hooksField = field;
+	}
+
+	/**
+	 * Returns {@code true} if the registered shutdown hooks can be accessed.
+	 * @return if shutdown hooks can be run
+	 */
+	public static boolean isSupported() {
+		return hooksField != null;
+	}
+
+	/**
+	 * Run the shutdown hooks registered by threads of the given group (or one of its
+	 * sub-groups). The hooks are removed from the JVM and run concurrently. Hooks that
+	 * have already been removed by another thread are not run.
+	 * @param threadGroup the thread group
+	 * @param timeout the maximum time to wait for the hooks to complete in milliseconds
+	 * @return the number of hooks that were run
+	 * @throws IllegalStateException if the registered hooks cannot be accessed
+	 * @see #isSupported()
+	 */
+	public static int run(ThreadGroup threadGroup, long timeout) {
+		List<Thread> hooks = new ArrayList<Thread>();
+		for (Thread hook : getHooks(threadGroup)) {
+			try {
+				if (Runtime.getRuntime().removeShutdownHook(hook)) {
+					hook.start();
+					hooks.add(hook);
+				}
+			}
+			catch (IllegalStateException ex) {
+				// JVM is already shutting down and will run the hook
+			}
+		}
+		long end = System.currentTimeMillis() + timeout;
+		for (Thread hook : hooks) {
+			long remaining = end - System.currentTimeMillis();
+			if (remaining > 0) {
+				try {
+					hook.join(remaining);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		return hooks.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Thread> getHooks(ThreadGroup threadGroup) {
+		if (!isSupported()) {
+			throw new IllegalStateException("Unable to access shutdown hooks");
+		}
+		List<Thread> hooks = new ArrayList<Thread>();
+		try {
+			// The registry synchronizes on its class
+			synchronized (hooksField.getDeclaringClass()) {
+				Map<Thread, Thread> registered = (Map<Thread, Thread>) hooksField
+						.get(null);
+				if (registered != null) {
+					for (Thread hook : registered.keySet()) {
+						ThreadGroup hookGroup = hook.getThreadGroup();
+						if (hookGroup != null && threadGroup.parentOf(hookGroup)) {
+							hooks.add(hook);
+						}
+					}
+				}
+			}
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException("Unable to access shutdown hooks", ex);
+		}
+		return hooks;
+	}
+
+}
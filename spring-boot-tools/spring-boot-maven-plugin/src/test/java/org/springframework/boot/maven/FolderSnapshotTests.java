@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link FolderSnapshot}.
+ * 
+ * @author Phillip Webb
+ */
+public class FolderSnapshotTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File folder;
+
+	@Before
+	public void setup() throws IOException {
+		this.folder = this.temporaryFolder.newFolder();
+		write(new File(this.folder, "a/b/C.class"), "C");
+		write(new File(this.folder, "application.properties"), "a=b");
+	}
+
+	@Test
+	public void unchangedFolder() throws Exception {
+		FolderSnapshot snapshot = new FolderSnapshot(this.folder);
+		assertEquals(2, snapshot.size());
+		assertEquals(snapshot, new FolderSnapshot(this.folder));
+	}
+
+	@Test
+	public void missingFolder() throws Exception {
+		File missing = new File(this.folder, "missing");
+		assertEquals(0, new FolderSnapshot(missing).size());
+		assertEquals(new FolderSnapshot(missing), new FolderSnapshot(missing));
+	}
+
+	@Test
+	public void addedFile() throws Exception {
+		FolderSnapshot snapshot = new FolderSnapshot(this.folder);
+		write(new File(this.folder, "a/D.class"), "D");
+		assertFalse(snapshot.equals(new FolderSnapshot(this.folder)));
+	}
+
+	@Test
+	public void deletedFile() throws Exception {
+		FolderSnapshot snapshot = new FolderSnapshot(this.folder);
+		new File(this.folder, "a/b/C.class").delete();
+		assertFalse(snapshot.equals(new FolderSnapshot(this.folder)));
+	}
+
+	@Test
+	public void modifiedFile() throws Exception {
+		FolderSnapshot snapshot = new FolderSnapshot(this.folder);
+		File file = new File(this.folder, "a/b/C.class");
+		write(file, "Changed");
+		assertFalse(snapshot.equals(new FolderSnapshot(this.folder)));
+		long lastModified = file.lastModified();
+		snapshot = new FolderSnapshot(this.folder);
+		write(file, "Changes");
+		file.setLastModified(lastModified - 10000);
+		assertFalse(snapshot.equals(new FolderSnapshot(this.folder)));
+	}
+
+	private void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write(content.getBytes());
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+}
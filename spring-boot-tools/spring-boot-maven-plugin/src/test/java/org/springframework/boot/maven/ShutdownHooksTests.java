@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.boot.maven;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ShutdownHooks}.
+ *
+ * @author Phillip Webb
+ */
+public class ShutdownHooksTests {
+
+	private ThreadGroup threadGroup;
+
+	private Thread hook;
+
+	private CountDownLatch hookRan;
+
+	@Before
+	public void setup() throws Exception {
+		Assume.assumeTrue(ShutdownHooks.isSupported());
+		this.threadGroup = new ThreadGroup("application");
+		this.hookRan = new CountDownLatch(1);
+		Thread registrar = new Thread(this.threadGroup, new Runnable() {
+			@Override
+			public void run() {
+				ShutdownHooksTests.this.hook = new Thread() {
+					@Override
+					public void run() {
+						ShutdownHooksTests.this.hookRan.countDown();
+					}
+				};
+				Runtime.getRuntime().addShutdownHook(ShutdownHooksTests.this.hook);
+			}
+		});
+		registrar.start();
+		registrar.join();
+	}
+
+	@After
+	public void cleanup() {
+		if (this.hook != null) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(this.hook);
+			}
+			catch (IllegalStateException ex) {
+				// JVM is shutting down
+			}
+		}
+	}
+
+	@Test
+	public void runsHooksOfThreadGroup() throws Exception {
+		assertEquals(1, ShutdownHooks.run(this.threadGroup, 1000));
+		assertTrue(this.hookRan.await(1, TimeUnit.SECONDS));
+		assertFalse(Runtime.getRuntime().removeShutdownHook(this.hook));
+	}
+
+	@Test
+	public void runsHooksOfSubGroup() throws Exception {
+		ThreadGroup parent = new ThreadGroup("parent");
+		ThreadGroup child = new ThreadGroup(parent, "child");
+		Thread hook = new Thread(child, "hook");
+		Runtime.getRuntime().addShutdownHook(hook);
+		assertEquals(1, ShutdownHooks.run(parent, 1000));
+		assertFalse(Runtime.getRuntime().removeShutdownHook(hook));
+	}
+
+	@Test
+	public void ignoresHooksOfOtherThreadGroups() throws Exception {
+		assertEquals(0, ShutdownHooks.run(new ThreadGroup("other"), 1000));
+		assertEquals(1, this.hookRan.getCount());
+		assertTrue(Runtime.getRuntime().removeShutdownHook(this.hook));
+	}
+
+}
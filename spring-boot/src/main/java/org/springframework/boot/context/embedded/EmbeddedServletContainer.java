@@ -39,6 +39,11 @@ public interface EmbeddedServletContainer {
 			// Do nothing
 		};
 
+		@Override
+		public void pause() throws EmbeddedServletContainerException {
+			// Do nothing
+		}
+
 		@Override
 		public void stop() throws EmbeddedServletContainerException {
 			// Do nothing
@@ -52,6 +57,15 @@ public interface EmbeddedServletContainer {
 	 */
 	void start() throws EmbeddedServletContainerException;
 
+	/**
+	 * Pauses the embedded servlet container so that no new connections are accepted.
+	 * Requests that are already being processed are allowed to complete. Usually called
+	 * to drain the container before it is {@link #stop() stopped}. Connectors that cannot
+	 * be paused are logged and skipped so that the remaining connectors are still paused.
+	 * @throws EmbeddedServletContainerException of the container cannot be paused
+	 */
+	void pause() throws EmbeddedServletContainerException;
+
 	/**
 	 * Stops the embedded servlet container. Calling this method on an already stopped
 	 * container has no effect.
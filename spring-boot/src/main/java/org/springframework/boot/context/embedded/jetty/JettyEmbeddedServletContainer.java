@@ -16,6 +16,8 @@
 
 package org.springframework.boot.context.embedded.jetty;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Server;
 import org.springframework.boot.context.embedded.EmbeddedServletContainer;
@@ -32,6 +34,8 @@ import org.springframework.util.Assert;
  */
 public class JettyEmbeddedServletContainer implements EmbeddedServletContainer {
 
+	private final Log logger = LogFactory.getLog(JettyEmbeddedServletContainer.class);
+
 	private final Server server;
 
 	/**
@@ -76,6 +80,18 @@ public class JettyEmbeddedServletContainer implements EmbeddedServletContainer {
 		}
 	}
 
+	@Override
+	public void pause() throws EmbeddedServletContainerException {
+		for (Connector connector : this.server.getConnectors()) {
+			try {
+				connector.close();
+			}
+			catch (Exception ex) {
+				this.logger.error("Cannot pause connector: ", ex);
+			}
+		}
+	}
+
 	@Override
 	public synchronized void stop() {
 		try {
@@ -65,6 +65,8 @@ public class JettyEmbeddedServletContainerFactory extends
 
 	private List<Configuration> configurations = new ArrayList<Configuration>();
 
+	private List<JettyServerCustomizer> jettyServerCustomizers = new ArrayList<JettyServerCustomizer>();
+
 	private ResourceLoader resourceLoader;
 
 	/**
@@ -126,6 +128,9 @@ public class JettyEmbeddedServletContainerFactory extends
 		postProcessWebAppContext(context);
 
 		server.setHandler(context);
+		for (JettyServerCustomizer customizer : getServerCustomizers()) {
+			customizer.customize(server);
+		}
 		return getJettyEmbeddedServletContainer(server);
 	}
 
@@ -281,6 +286,36 @@ public class JettyEmbeddedServletContainerFactory extends
 		this.configurations.addAll(Arrays.asList(configurations));
 	}
 
+	/**
+	 * Sets {@link JettyServerCustomizer}s that will be applied to the {@link Server}
+	 * before it is started. Calling this method will replace any existing customizers.
+	 * @param customizers the Jetty customizers to apply
+	 */
+	public void setServerCustomizers(
+			Collection<? extends JettyServerCustomizer> customizers) {
+		Assert.notNull(customizers, "Customizers must not be null");
+		this.jettyServerCustomizers = new ArrayList<JettyServerCustomizer>(customizers);
+	}
+
+	/**
+	 * Returns a mutable collection of Jetty {@link JettyServerCustomizer}s that will be
+	 * applied to the {@link Server} before it is created.
+	 * @return the {@link JettyServerCustomizer}s
+	 */
+	public Collection<JettyServerCustomizer> getServerCustomizers() {
+		return this.jettyServerCustomizers;
+	}
+
+	/**
+	 * Add {@link JettyServerCustomizer}s that will be applied to the {@link Server}
+	 * before it is started.
+	 * @param customizers the customizers to add
+	 */
+	public void addServerCustomizers(JettyServerCustomizer... customizers) {
+		Assert.notNull(customizers, "Customizers must not be null");
+		this.jettyServerCustomizers.addAll(Arrays.asList(customizers));
+	}
+
 	private void addJettyErrorPages(ErrorHandler errorHandler,
 			Collection<ErrorPage> errorPages) {
 		if (errorHandler instanceof ErrorPageErrorHandler) {
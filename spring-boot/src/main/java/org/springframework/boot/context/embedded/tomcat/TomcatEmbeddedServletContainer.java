@@ -95,6 +95,18 @@ public class TomcatEmbeddedServletContainer implements EmbeddedServletContainer
 		}
 	}
 
+	@Override
+	public void pause() throws EmbeddedServletContainerException {
+		for (Connector connector : this.tomcat.getService().findConnectors()) {
+			try {
+				connector.pause();
+			}
+			catch (Exception ex) {
+				this.logger.error("Cannot pause connector: ", ex);
+			}
+		}
+	}
+
 	@Override
 	public synchronized void stop() throws EmbeddedServletContainerException {
 		try {
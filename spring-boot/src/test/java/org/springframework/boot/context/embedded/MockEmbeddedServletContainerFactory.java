@@ -157,6 +157,10 @@ public class MockEmbeddedServletContainerFactory extends
 		public void start() throws EmbeddedServletContainerException {
 		}
 
+		@Override
+		public void pause() throws EmbeddedServletContainerException {
+		}
+
 		@Override
 		public void stop() {
 			this.servletContext = null;
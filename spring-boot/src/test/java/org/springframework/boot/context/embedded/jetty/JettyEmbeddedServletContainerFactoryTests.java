@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.webapp.Configuration;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.junit.Test;
@@ -64,6 +65,22 @@ public class JettyEmbeddedServletContainerFactoryTests extends
 		}
 	}
 
+	@Test
+	public void jettyCustomizations() throws Exception {
+		JettyEmbeddedServletContainerFactory factory = getFactory();
+		JettyServerCustomizer[] customizers = new JettyServerCustomizer[4];
+		for (int i = 0; i < customizers.length; i++) {
+			customizers[i] = mock(JettyServerCustomizer.class);
+		}
+		factory.setServerCustomizers(Arrays.asList(customizers[0], customizers[1]));
+		factory.addServerCustomizers(customizers[2], customizers[3]);
+		this.container = factory.getEmbeddedServletContainer();
+		InOrder ordered = inOrder((Object[]) customizers);
+		for (JettyServerCustomizer customizer : customizers) {
+			ordered.verify(customizer).customize((Server) anyObject());
+		}
+	}
+
 	@Test
 	public void sessionTimeout() throws Exception {
 		JettyEmbeddedServletContainerFactory factory = getFactory();
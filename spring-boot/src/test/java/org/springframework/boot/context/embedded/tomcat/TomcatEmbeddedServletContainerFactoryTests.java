@@ -18,6 +18,7 @@ package org.springframework.boot.context.embedded.tomcat;
 
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.catalina.Context;
 import org.apache.catalina.LifecycleEvent;
@@ -97,6 +98,24 @@ public class TomcatEmbeddedServletContainerFactoryTests extends
 		}
 	}
 
+	@Test
+	public void pausePausesAllConnectors() throws Exception {
+		TomcatEmbeddedServletContainerFactory factory = getFactory();
+		this.container = factory.getEmbeddedServletContainer();
+		final AtomicBoolean paused = new AtomicBoolean();
+		Connector connector = new Connector() {
+			@Override
+			public void pause() {
+				paused.set(true);
+			}
+		};
+		connector.setPort(0);
+		((TomcatEmbeddedServletContainer) this.container).getTomcat().getService()
+				.addConnector(connector);
+		this.container.pause();
+		assertThat(paused.get(), equalTo(true));
+	}
+
 	@Test
 	public void sessionTimeout() throws Exception {
 		TomcatEmbeddedServletContainerFactory factory = getFactory();